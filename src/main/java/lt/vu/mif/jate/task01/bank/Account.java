@@ -2,42 +2,82 @@ package lt.vu.mif.jate.task01.bank;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Currency;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
 
 /**
  * Класс банковского счёта.
  */
 public class Account {
     /**
-     * Международный номер.
+     * Атомарное увеличение счётчика изменений остатков.
      */
-    private final String iban;
+    private static final AtomicLongFieldUpdater<Account> MOD_COUNT =
+            AtomicLongFieldUpdater.newUpdater(Account.class, "modCount");
     /**
-     * Банк.
+     * Количество запоминаемых общих сумм.
      */
-    private Bank bank;
+    private static final int CACHED_TOTALS = 4;
     /**
-     * Номер счёта.
+     * Порядок захвата блокировок счетов: по упакованному международному
+     * номеру, затем по неупакованному.
      */
-    private BigInteger number;
+    static final Comparator<Account> LOCK_ORDER = Comparator
+            .comparingLong((Account account) -> account.record.keyWord(0))
+            .thenComparingLong(account -> account.record.keyWord(1))
+            .thenComparingLong(account -> account.record.keyWord(2))
+            .thenComparing(account -> account.record.unpackedIban(),
+                    Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparingInt(System::identityHashCode);
     /**
-     * Количество денег в разных валютах.
+     * Блокировка для счетов, порядок которых неразличим.
      */
-    private Map<Currency, BigDecimal> balance;
+    static final Object TIE_LOCK = new Object();
+    /**
+     * Контекст банка счёта.
+     */
+    private final BankingContext context;
+    /**
+     * Номер, банк, состояние, позиция журнала и остатки счёта.
+     */
+    private final AccountRecord record;
+    /**
+     * Блокировка счёта для переводов.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+    /**
+     * Журнал изменений счёта или null.
+     */
+    private volatile Journal journal;
+    /**
+     * Счётчик изменений остатков.
+     */
+    private volatile long modCount;
+    /**
+     * Запомненные общие суммы, последняя подсчитанная первой.
+     */
+    private volatile List<Total> totals = Collections.emptyList();
 
     /**
+     * Счёт контекста по умолчанию.
+     *
      * @param pIban международный номер счёта.
      */
     public Account(final String pIban) {
-        balance = new HashMap<>();
-        Converter.getInstance().getCurrencies().forEach(currency ->
-                balance.put(currency, new BigDecimal("0.00")));
-        iban = pIban;
+        this(BankingContext.getDefault(), pIban, null, null);
     }
 
     /**
+     * Счёт контекста по умолчанию.
+     *
      * @param pIban   международный номер счёта.
      * @param pBank   банк счёта.
      * @param pNumber номер счёта в банке.
@@ -45,35 +85,98 @@ public class Account {
     public Account(final String pIban,
                    final Bank pBank,
                    final BigInteger pNumber) {
-        this(pIban);
-        bank = pBank;
-        number = pNumber;
+        this(BankingContext.getDefault(), pIban, pBank, pNumber);
+    }
+
+    /**
+     * Способ хранения остатков берётся из банка контекста, конвертер
+     * контекста используется всеми операциями счёта.
+     *
+     * @param pContext контекст банка.
+     * @param pIban    международный номер счёта.
+     * @param pBank    банк счёта.
+     * @param pNumber  номер счёта в банке.
+     */
+    public Account(final BankingContext pContext,
+                   final String pIban,
+                   final Bank pBank,
+                   final BigInteger pNumber) {
+        context = pContext;
+        Banking banking = pContext.getBanking();
+        record = banking.getBalanceMode().create(banking, pIban, pBank,
+                pNumber);
+    }
+
+    /**
+     * @return контекст банка счёта.
+     */
+    public final BankingContext getContext() {
+        return context;
+    }
+
+    /**
+     * @return конвертер контекста счёта.
+     */
+    protected final Converter getConverter() {
+        return context.getConverter();
+    }
+
+    /**
+     * Сумма операции в валюте с переданным номером. Варианты операций
+     * с кодом и с номером валюты проверяют сумму только здесь.
+     *
+     * @param amount   неотрицательная сумма, не более двух знаков после
+     *                 запятой.
+     * @param currency номер валюты, см. {@link CurrencyId}.
+     * @return денежная сумма.
+     * @throws NumberFormatException неверная сумма.
+     */
+    protected final Money money(final BigDecimal amount,
+                                final int currency) {
+        return Money.ofAmount(amount, CurrencyId.currency(currency));
     }
 
     /**
      * @return банк счёта.
      */
     public final Bank getBank() {
-        return bank;
+        return record.bank();
     }
 
     /**
      * @return номер счёта в банке.
      */
     public final BigInteger getNumber() {
-        return number;
+        return record.number();
     }
 
     /**
-     * @return количество денег в разных валютах.
+     * @return копия ненулевых остатков в разных валютах.
      */
     public final Map<Currency, BigDecimal> getBalance() {
-        return balance;
+        Map<Currency, BigDecimal> copy = new HashMap<>();
+        Balances balances = balances();
+        for (int slot = 0; slot < balances.slots(); slot++) {
+            long amount = balances.amountAt(slot);
+            if (amount != 0) {
+                copy.put(CurrencyId.currency(balances.currencyAt(slot)),
+                        BigDecimal.valueOf(amount, Money.SCALE));
+            }
+        }
+        return copy;
     }
 
     @Override
     public final String toString() {
-        return iban;
+        return record.iban();
+    }
+
+    /**
+     * @param key упакованный номер.
+     * @return международный номер счёта совпадает с упакованным.
+     */
+    final boolean hasKey(final IbanKey key) {
+        return record.hasKey(key);
     }
 
     /**
@@ -81,7 +184,24 @@ public class Account {
      * @return количество денег в валюте код которой был передан.
      */
     public final BigDecimal balance(final String currencyCode) {
-        return getBalance().get(Currency.getInstance(currencyCode));
+        return BigDecimal.valueOf(balances().get(CurrencyId.of(currencyCode)),
+                Money.SCALE);
+    }
+
+    /**
+     * @param currency номер валюты, см. {@link CurrencyId}.
+     * @return количество денег в валюте в минимальных единицах.
+     */
+    public final long balance(final int currency) {
+        return balances().get(currency);
+    }
+
+    /**
+     * @param currency валюта.
+     * @return количество денег в переданной валюте.
+     */
+    public final Money balance(final Currency currency) {
+        return Money.ofMinor(balances().get(CurrencyId.of(currency)), currency);
     }
 
     /**
@@ -90,15 +210,414 @@ public class Account {
      * был передан.
      */
     public final BigDecimal balanceAll(final String currencyCode) {
-        BigDecimal sum = BigDecimal.ZERO;
-        for (Map.Entry<Currency, BigDecimal> entry : balance.entrySet()) {
-            sum = sum.add(Converter.getInstance()
-                    .convert(entry.getValue(), entry.getKey(),
-                            Currency.getInstance(currencyCode)));
+        return total(CurrencyId.of(currencyCode)).decimal;
+    }
+
+    /**
+     * @param currency номер валюты, см. {@link CurrencyId}.
+     * @return общее количество денег сконвертированной в валюту, в
+     * минимальных единицах.
+     */
+    public final long balanceAll(final int currency) {
+        return total(currency).money.getMinorUnits();
+    }
+
+    /**
+     * Общая сумма запоминается для нескольких последних валют и
+     * пересчитывается только после изменения остатков или курсов.
+     *
+     * @param currency валюта.
+     * @return общее количество денег сконвертированной в переданную валюту.
+     */
+    public final Money balanceAll(final Currency currency) {
+        return total(CurrencyId.of(currency)).money;
+    }
+
+    /**
+     * @param currency номер валюты.
+     * @return актуальная запомненная или заново подсчитанная общая сумма.
+     */
+    private Total total(final int currency) {
+        Converter converter = context.getConverter();
+        long version = converter.getRateVersion();
+        long modified = modCount;
+        List<Total> cached = totals;
+        for (Total total : cached) {
+            if (total.currency == currency
+                    && total.modCount == modified
+                    && total.rateVersion == version) {
+                return total;
+            }
+        }
+        Total total = new Total(currency, modified, version,
+                Money.ofMinor(sum(converter, currency),
+                        CurrencyId.currency(currency)));
+        List<Total> updated = new ArrayList<>(CACHED_TOTALS);
+        updated.add(total);
+        for (Total other : cached) {
+            if (updated.size() == CACHED_TOTALS) {
+                break;
+            }
+            if (other.currency != currency) {
+                updated.add(other);
+            }
+        }
+        totals = Collections.unmodifiableList(updated);
+        return total;
+    }
+
+    /**
+     * @param converter конвертер.
+     * @param currency  номер валюты.
+     * @return сумма ненулевых остатков в валюте в минимальных единицах.
+     */
+    private long sum(final Converter converter, final int currency) {
+        long sum = 0;
+        Balances balances = balances();
+        for (int slot = 0; slot < balances.slots(); slot++) {
+            long amount = balances.amountAt(slot);
+            if (amount != 0) {
+                sum = Math.addExact(sum, converter.convertMinor(amount,
+                        balances.currencyAt(slot), currency));
+            }
         }
         return sum;
     }
 
+    /**
+     * Зачислить сумму на счёт без проверок.
+     *
+     * @param amount сумма.
+     */
+    protected final void deposit(final Money amount) {
+        update(CurrencyId.of(amount.getCurrency()), amount.getMinorUnits());
+    }
+
+    /**
+     * Списать сумму со счёта без проверок.
+     *
+     * @param amount сумма.
+     */
+    protected final void withdraw(final Money amount) {
+        update(CurrencyId.of(amount.getCurrency()),
+                Math.negateExact(amount.getMinorUnits()));
+    }
+
+    /**
+     * Изменение остатка без проверок. Без журнала атомарные остатки
+     * изменяются без блокировок; неатомарные остатки изменяются под
+     * блокировкой счёта, чтобы снимок не видел их частично изменёнными, а
+     * с журналом — под блокировкой, чтобы снимок видел остатки вместе с
+     * позицией журнала, которая их учитывает.
+     *
+     * @param currency номер валюты.
+     * @param delta    изменение остатка.
+     */
+    private void update(final int currency, final long delta) {
+        if (isLockFree()) {
+            balances().add(currency, delta);
+            changed(currency, delta);
+            return;
+        }
+        lock.lock();
+        try {
+            balances().add(currency, delta);
+            changed(currency, delta);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Атомарно списать сумму со счёта, если это разрешает
+     * {@link #checkDebit(Money, long)}. Без журнала атомарные остатки
+     * списываются без блокировок: остаток проверяется и изменяется через
+     * CAS, а пакеты переводов списывают свои изменения тем же CAS и
+     * повторяют проверку, если остаток изменился. Иначе списание
+     * выполняется под блокировкой счёта, как и {@link #update(int, long)}.
+     *
+     * @param amount сумма.
+     */
+    protected final void withdrawChecked(final Money amount) {
+        int currency = CurrencyId.of(amount.getCurrency());
+        long delta = Math.negateExact(amount.getMinorUnits());
+        if (isLockFree()) {
+            long current;
+            do {
+                current = balances().get(currency);
+                checkDebit(amount, current);
+            } while (!balances().compareAndSet(currency, current,
+                    current + delta));
+            changed(currency, delta);
+            return;
+        }
+        lock.lock();
+        try {
+            checkDebit(amount, balances().get(currency));
+            balances().add(currency, delta);
+            changed(currency, delta);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Выполнение операции под блокировкой счёта, как у переводов. Все
+     * изменения операции записываются в журнал одним кадром.
+     *
+     * @param operation операция.
+     * @param action    действие.
+     */
+    final void exclusive(final Journal.Operation operation,
+                         final Runnable action) {
+        lock.lock();
+        try {
+            Journal current = journal;
+            if (current == null) {
+                action.run();
+                return;
+            }
+            current.begin(operation);
+            try {
+                action.run();
+            } finally {
+                current.end();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Проверка списания со счёта по правилам его типа. Используется при
+     * списаниях и переводах, в том числе пакетных, где остаток учитывает
+     * уже принятые переводы пакета. По умолчанию списание разрешено.
+     *
+     * @param amount    сумма.
+     * @param available остаток в валюте суммы в минимальных единицах.
+     */
+    protected void checkDebit(final Money amount, final long available) {
+    }
+
+    /**
+     * Проверка зачисления на счёт по правилам его типа. Проверка не меняет
+     * счёт: новое состояние записывается в {@code pending}, а вызывающий
+     * устанавливает его вместе с зачислением под блокировкой счёта. По
+     * умолчанию зачисление разрешено и состояние не меняется.
+     *
+     * @param amount  сумма.
+     * @param pending состояние счёта с учётом ещё не применённых изменений.
+     */
+    protected void checkCredit(final Money amount,
+                               final PendingState pending) {
+    }
+
+    /**
+     * @param currency номер валюты.
+     * @return остаток в минимальных единицах.
+     */
+    final long balanceOf(final int currency) {
+        return balances().get(currency);
+    }
+
+    /**
+     * Изменение остатка, если он не изменился с момента проверки. Учёт
+     * изменения выполняет вызывающий через {@link #changed(int, long)},
+     * когда изменение окончательно.
+     *
+     * @param currency номер валюты.
+     * @param expected проверенный остаток.
+     * @param update   новый остаток.
+     * @return был-ли остаток изменён.
+     */
+    final boolean compareAndSetBalance(final int currency,
+                                       final long expected,
+                                       final long update) {
+        return balances().compareAndSet(currency, expected, update);
+    }
+
+    /**
+     * Применение изменения остатка без проверок.
+     *
+     * @param currency номер валюты.
+     * @param delta    изменение остатка.
+     */
+    final void apply(final int currency, final long delta) {
+        balances().add(currency, delta);
+        changed(currency, delta);
+    }
+
+    /**
+     * Восстановление изменения остатка из журнала.
+     *
+     * @param currency номер валюты.
+     * @param delta    изменение остатка.
+     */
+    final void restoreDelta(final int currency, final long delta) {
+        balances().add(currency, delta);
+        MOD_COUNT.incrementAndGet(this);
+    }
+
+    /**
+     * Восстановление состояния счёта из журнала.
+     *
+     * @param pState состояние.
+     */
+    final void restoreState(final int pState) {
+        record.setState(pState);
+    }
+
+    /**
+     * @param pJournal журнал изменений счёта.
+     */
+    final void setJournal(final Journal pJournal) {
+        journal = pJournal;
+    }
+
+    /**
+     * @return подключён-ли журнал изменений.
+     */
+    final boolean hasJournal() {
+        return journal != null;
+    }
+
+    /**
+     * @return позиция последнего кадра журнала, изменившего счёт.
+     */
+    final long getJournalPosition() {
+        return record.journalPosition();
+    }
+
+    /**
+     * @param position позиция кадра журнала, изменившего счёт.
+     */
+    final void setJournalPosition(final long position) {
+        record.setJournalPosition(position);
+    }
+
+    /**
+     * Чтение счёта под его блокировкой, например для снимка.
+     *
+     * @param action действие.
+     * @param <T>    тип результата.
+     * @return результат действия.
+     */
+    final <T> T locked(final Supplier<T> action) {
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Учёт изменения остатка: сброс запомненных общих сумм и запись в
+     * журнал, если он подключён. Вызывается после изменения; если
+     * изменение не удалось записать, журнал отменяет его.
+     *
+     * @param currency номер валюты.
+     * @param delta    изменение остатка.
+     */
+    final void changed(final int currency, final long delta) {
+        MOD_COUNT.incrementAndGet(this);
+        Journal current = journal;
+        if (current != null) {
+            current.delta(this, currency, delta);
+        }
+    }
+
+    /**
+     * @return остатки счёта.
+     */
+    final Balances getBalances() {
+        return record.balances();
+    }
+
+    /**
+     * @return остатки записи счёта.
+     */
+    private Balances balances() {
+        return record.balances();
+    }
+
+    /**
+     * @return остатки изменяются без блокировки счёта: они атомарны и
+     * журнал не подключён.
+     */
+    private boolean isLockFree() {
+        return journal == null && balances().isAtomic();
+    }
+
+    /**
+     * Выполнение действия с захваченными блокировками счетов.
+     *
+     * @param accounts различные счета в порядке {@link #LOCK_ORDER}.
+     * @param action   действие.
+     * @param <T>      тип результата.
+     * @return результат действия.
+     */
+    static <T> T withLocks(final List<Account> accounts,
+                           final Supplier<T> action) {
+        for (int i = 1; i < accounts.size(); i++) {
+            if (LOCK_ORDER.compare(accounts.get(i - 1),
+                    accounts.get(i)) == 0) {
+                synchronized (TIE_LOCK) {
+                    return lockAndRun(accounts, action);
+                }
+            }
+        }
+        return lockAndRun(accounts, action);
+    }
+
+    /**
+     * @param accounts счета в порядке блокировки.
+     * @param action   действие.
+     * @param <T>      тип результата.
+     * @return результат действия.
+     */
+    private static <T> T lockAndRun(final List<Account> accounts,
+                                    final Supplier<T> action) {
+        int locked = 0;
+        try {
+            for (Account account : accounts) {
+                account.lock.lock();
+                locked++;
+            }
+            return action.get();
+        } finally {
+            for (int i = locked - 1; i >= 0; i--) {
+                accounts.get(i).lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * @return состояние счёта.
+     */
+    protected final int getState() {
+        return record.state();
+    }
+
+    /**
+     * Атомарная смена состояния счёта.
+     *
+     * @param expected ожидаемое состояние.
+     * @param update   новое состояние.
+     * @return было-ли состояние изменено.
+     */
+    protected final boolean compareAndSetState(final int expected,
+                                               final int update) {
+        if (!record.compareAndSetState(expected, update)) {
+            return false;
+        }
+        Journal current = journal;
+        if (current != null) {
+            current.state(this, expected, update);
+        }
+        return true;
+    }
+
     /**
      * Положить деньги на счёт.
      *
@@ -109,6 +628,16 @@ public class Account {
                        final String currencyCode) {
     }
 
+    /**
+     * Положить деньги на счёт в валюте с переданным номером.
+     *
+     * @param amount   сумма.
+     * @param currency номер валюты, см. {@link CurrencyId}.
+     */
+    public void credit(final BigDecimal amount,
+                       final int currency) {
+    }
+
     /**
      * Положить деньги на счёт в переданной валюте.
      *
@@ -119,6 +648,16 @@ public class Account {
                        final Currency currency) {
     }
 
+    /**
+     * Положить деньги на счёт.
+     * Операции со счётом выполняются через этот метод, поэтому наследникам
+     * следует переопределять его, а не варианты с {@link BigDecimal}.
+     *
+     * @param amount сумма.
+     */
+    public void credit(final Money amount) {
+    }
+
     /**
      * Снять деньги со счёта.
      *
@@ -129,6 +668,16 @@ public class Account {
                       final String currencyCode) {
     }
 
+    /**
+     * Снять деньги со счёта в валюте с переданным номером.
+     *
+     * @param amount   сумма.
+     * @param currency номер валюты, см. {@link CurrencyId}.
+     */
+    public void debit(final BigDecimal amount,
+                      final int currency) {
+    }
+
     /**
      * Снять деньги со счёта в переданной валюте.
      *
@@ -139,8 +688,21 @@ public class Account {
                       final Currency currency) {
     }
 
+    /**
+     * Снять деньги со счёта.
+     * Операции со счётом выполняются через этот метод, поэтому наследникам
+     * следует переопределять его, а не варианты с {@link BigDecimal}.
+     *
+     * @param amount сумма.
+     */
+    public void debit(final Money amount) {
+    }
+
     /**
      * Перевести деньги в валюте код которой был передан со счёта на счёт.
+     * Перевод выполняется целиком или не выполняется вовсе. Блокировки обоих
+     * счетов захватываются в порядке {@link #LOCK_ORDER}, поэтому встречные
+     * переводы не приводят к взаимной блокировке.
      *
      * @param amount       сумма.
      * @param currencyCode код валюты.
@@ -149,8 +711,78 @@ public class Account {
     public final void debit(final BigDecimal amount,
                             final String currencyCode,
                             final Account account) {
-        account.credit(amount, currencyCode);
-        debit(amount, currencyCode);
+        Account first = this;
+        Account second = account;
+        if (LOCK_ORDER.compare(this, account) > 0) {
+            first = account;
+            second = this;
+        }
+        if (first != second && LOCK_ORDER.compare(first, second) == 0) {
+            synchronized (TIE_LOCK) {
+                transferLocked(first, second, amount, currencyCode, account);
+            }
+        } else {
+            transferLocked(first, second, amount, currencyCode, account);
+        }
+    }
+
+    /**
+     * Перевод с захватом блокировок двух счетов в заданном порядке.
+     *
+     * @param first        счёт, блокируемый первым.
+     * @param second       счёт, блокируемый вторым.
+     * @param amount       сумма.
+     * @param currencyCode код валюты.
+     * @param account      счёт получателя.
+     */
+    private void transferLocked(final Account first,
+                                final Account second,
+                                final BigDecimal amount,
+                                final String currencyCode,
+                                final Account account) {
+        first.lock.lock();
+        try {
+            second.lock.lock();
+            try {
+                transfer(amount, currencyCode, account);
+            } finally {
+                second.lock.unlock();
+            }
+        } finally {
+            first.lock.unlock();
+        }
+    }
+
+    /**
+     * Перевод при исключительном доступе к обоим счетам: сначала
+     * списание, затем зачисление; если зачисление отклонено, списанное
+     * возвращается.
+     *
+     * @param amount       сумма.
+     * @param currencyCode код валюты.
+     * @param account      счёт получателя.
+     */
+    private void transfer(final BigDecimal amount,
+                          final String currencyCode,
+                          final Account account) {
+        Journal current = journal;
+        if (current != null) {
+            current.begin(Journal.Operation.TRANSFER);
+        }
+        try {
+            debit(amount, currencyCode);
+            try {
+                account.credit(amount, currencyCode);
+            } catch (RuntimeException ex) {
+                deposit(Money.of(amount,
+                        CurrencyId.currency(CurrencyId.of(currencyCode))));
+                throw ex;
+            }
+        } finally {
+            if (current != null) {
+                current.end();
+            }
+        }
     }
 
     /**
@@ -163,11 +795,56 @@ public class Account {
     public final void convert(final BigDecimal amount,
                               final String fromCurrencyCode,
                               final String toCurrencyCode) {
-        Currency fromCurrency = Currency.getInstance(fromCurrencyCode);
-        debit(Converter.getInstance().checkRange(amount), fromCurrency);
-        Currency toCurrency = Currency.getInstance(toCurrencyCode);
-        credit(Converter.getInstance()
-                .convert(Converter.getInstance().checkRange(amount),
-                        fromCurrency, toCurrency), toCurrency);
+        Converter converter = context.getConverter();
+        Money from = Money.of(converter.checkRange(amount),
+                CurrencyId.currency(CurrencyId.of(fromCurrencyCode)));
+        exclusive(Journal.Operation.CONVERSION, () -> {
+            debit(from);
+            credit(converter.convert(from,
+                    CurrencyId.currency(CurrencyId.of(toCurrencyCode))));
+        });
+    }
+
+    /**
+     * Запомненная общая сумма в валюте.
+     */
+    private static final class Total {
+        /**
+         * Номер валюты.
+         */
+        private final int currency;
+        /**
+         * Счётчик изменений остатков на момент подсчёта.
+         */
+        private final long modCount;
+        /**
+         * Версия курсов на момент подсчёта.
+         */
+        private final long rateVersion;
+        /**
+         * Общая сумма.
+         */
+        private final Money money;
+        /**
+         * Общая сумма в виде {@link BigDecimal}.
+         */
+        private final BigDecimal decimal;
+
+        /**
+         * @param pCurrency    номер валюты.
+         * @param pModCount    счётчик изменений остатков.
+         * @param pRateVersion версия курсов.
+         * @param pMoney       общая сумма.
+         */
+        Total(final int pCurrency,
+              final long pModCount,
+              final long pRateVersion,
+              final Money pMoney) {
+            currency = pCurrency;
+            modCount = pModCount;
+            rateVersion = pRateVersion;
+            money = pMoney;
+            decimal = pMoney.toBigDecimal();
+        }
     }
 }
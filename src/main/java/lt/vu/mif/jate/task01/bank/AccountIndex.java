@@ -0,0 +1,380 @@
+package lt.vu.mif.jate.task01.bank;
+
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+
+/**
+ * Индекс счетов по упакованным международным кодам {@link IbanKey}.
+ * Таблица с открытой адресацией хранит хеш ключа в примитивном массиве и
+ * счёт в ячейке с тем же номером; сам ключ хранится в счёте, объектов
+ * ключей и узлов на счёт нет. Поиск выполняется без блокировок и без
+ * хеширования и сравнения строк: счёт записывается в ячейку последним,
+ * поэтому прочитавший его поток видит и хеш. Счёт создаётся под
+ * блокировкой полосы по хешу кода, так что одинаковые коды создаются
+ * ровно один раз, а разные открываются параллельно; блокировка индекса
+ * берётся только на запись в таблицу. При заполнении на три четверти
+ * таблица перестраивается и публикуется целиком. Коды, которые нельзя
+ * упаковать, хранятся в обычном отображении.
+ */
+final class AccountIndex {
+    /**
+     * Начальная ёмкость таблицы.
+     */
+    private static final int INITIAL_CAPACITY = 64;
+    /**
+     * Числитель предельной заполненности таблицы.
+     */
+    private static final int LOAD_NUMERATOR = 3;
+    /**
+     * Знаменатель предельной заполненности таблицы.
+     */
+    private static final int LOAD_DENOMINATOR = 4;
+    /**
+     * Количество полос блокировок создания, степень двойки.
+     */
+    private static final int STRIPES = 64;
+    /**
+     * Текущая таблица.
+     */
+    private volatile Table table = new Table(INITIAL_CAPACITY);
+    /**
+     * Количество счетов в таблице.
+     */
+    private volatile int packed;
+    /**
+     * Счета с кодами, которые нельзя упаковать.
+     */
+    private final ConcurrentMap<String, Account> unpacked =
+            new ConcurrentHashMap<>();
+    /**
+     * Блокировки создания счетов по хешу кода.
+     */
+    private final Object[] stripes = new Object[STRIPES];
+
+    /**
+     * Пустой индекс.
+     */
+    AccountIndex() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Object();
+        }
+    }
+
+    /**
+     * @param iban обработанный международный код.
+     * @return счёт или null.
+     */
+    Account get(final String iban) {
+        return get(iban, IbanKey.of(iban));
+    }
+
+    /**
+     * Счёт по коду; отсутствующий счёт создаётся ровно один раз. Код
+     * упаковывается один раз: ключ используется и для поиска, и для выбора
+     * полосы, и для записи в таблицу. Создание выполняется под блокировкой
+     * полосы кода, а не всего индекса.
+     *
+     * @param iban    обработанный международный код.
+     * @param factory создание счёта.
+     * @return существующий или новый счёт.
+     */
+    Account computeIfAbsent(final String iban,
+                            final Function<String, Account> factory) {
+        IbanKey key = IbanKey.of(iban);
+        Account account = get(iban, key);
+        if (account != null) {
+            return account;
+        }
+        synchronized (stripe(iban, key)) {
+            account = get(iban, key);
+            if (account == null) {
+                account = factory.apply(iban);
+                put(iban, key, account);
+            }
+            return account;
+        }
+    }
+
+    /**
+     * Добавление счетов, отсутствующих в индексе.
+     *
+     * @param accounts счета по кодам.
+     */
+    void putAll(final Map<String, Account> accounts) {
+        for (Map.Entry<String, Account> entry : accounts.entrySet()) {
+            computeIfAbsent(entry.getKey(), iban -> entry.getValue());
+        }
+    }
+
+    /**
+     * @return количество счетов.
+     */
+    int size() {
+        return packed + unpacked.size();
+    }
+
+    /**
+     * @return отображение кодов на счета только для чтения.
+     */
+    Map<String, Account> asMap() {
+        return new View();
+    }
+
+    /**
+     * @param iban обработанный международный код.
+     * @param key  упакованный код или null.
+     * @return счёт или null.
+     */
+    private Account get(final String iban, final IbanKey key) {
+        if (key == null) {
+            return unpacked.get(iban);
+        }
+        return table.get(key);
+    }
+
+    /**
+     * @param iban обработанный международный код.
+     * @param key  упакованный код или null.
+     * @return блокировка создания счёта с этим кодом.
+     */
+    private Object stripe(final String iban, final IbanKey key) {
+        int hash;
+        if (key != null) {
+            hash = key.hashCode();
+        } else {
+            hash = iban.hashCode();
+        }
+        return stripes[hash & (STRIPES - 1)];
+    }
+
+    /**
+     * Добавление счёта под блокировкой индекса.
+     *
+     * @param iban    обработанный международный код.
+     * @param key     упакованный код или null.
+     * @param account счёт.
+     */
+    private void put(final String iban, final IbanKey key,
+                     final Account account) {
+        if (key == null) {
+            unpacked.put(iban, account);
+            return;
+        }
+        synchronized (this) {
+            Table current = table;
+            if ((current.size + 1) * LOAD_DENOMINATOR
+                    > current.capacity() * LOAD_NUMERATOR) {
+                current = current.grow();
+            }
+            current.put(key.hashCode(), account);
+            table = current;
+            packed = current.size;
+        }
+    }
+
+    /**
+     * Таблица с открытой адресацией и линейным пробированием.
+     */
+    private static final class Table {
+        /**
+         * Хеши ключей.
+         */
+        private final int[] hashes;
+        /**
+         * Счета; пустая ячейка завершает цепочку пробирования.
+         */
+        private final AtomicReferenceArray<Account> accounts;
+        /**
+         * Маска номера ячейки.
+         */
+        private final int mask;
+        /**
+         * Количество занятых ячеек; изменяется под блокировкой индекса.
+         */
+        private int size;
+
+        /**
+         * @param capacity ёмкость, степень двойки.
+         */
+        Table(final int capacity) {
+            hashes = new int[capacity];
+            accounts = new AtomicReferenceArray<>(capacity);
+            mask = capacity - 1;
+        }
+
+        /**
+         * @return ёмкость.
+         */
+        int capacity() {
+            return hashes.length;
+        }
+
+        /**
+         * @param key упакованный код.
+         * @return счёт или null.
+         */
+        Account get(final IbanKey key) {
+            int hash = key.hashCode();
+            for (int slot = hash & mask;; slot = (slot + 1) & mask) {
+                Account account = accounts.get(slot);
+                if (account == null) {
+                    return null;
+                }
+                if (hashes[slot] == hash && account.hasKey(key)) {
+                    return account;
+                }
+            }
+        }
+
+        /**
+         * Запись хеша и затем счёта в свободную ячейку.
+         *
+         * @param hash    хеш ключа счёта.
+         * @param account счёт.
+         */
+        void put(final int hash, final Account account) {
+            int slot = hash & mask;
+            while (accounts.get(slot) != null) {
+                slot = (slot + 1) & mask;
+            }
+            hashes[slot] = hash;
+            accounts.set(slot, account);
+            size++;
+        }
+
+        /**
+         * @return таблица двойной ёмкости с теми же счетами.
+         */
+        Table grow() {
+            Table grown = new Table(capacity() * 2);
+            for (int slot = 0; slot < capacity(); slot++) {
+                Account account = accounts.get(slot);
+                if (account != null) {
+                    grown.put(hashes[slot], account);
+                }
+            }
+            return grown;
+        }
+    }
+
+    /**
+     * Обход счетов по ячейкам таблицы, затем неупакованных, без
+     * распаковки кодов и без промежуточных коллекций.
+     */
+    private final class Accounts implements Iterator<Account> {
+        /**
+         * Таблица на момент начала обхода.
+         */
+        private final Table current = table;
+        /**
+         * Неупакованные счета.
+         */
+        private final Iterator<Account> rest = unpacked.values().iterator();
+        /**
+         * Следующая просматриваемая ячейка.
+         */
+        private int slot;
+        /**
+         * Следующий счёт или null.
+         */
+        private Account next;
+
+        @Override
+        public boolean hasNext() {
+            while (next == null && slot < current.capacity()) {
+                next = current.accounts.get(slot++);
+            }
+            return next != null || rest.hasNext();
+        }
+
+        @Override
+        public Account next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Account account = next;
+            if (account == null) {
+                return rest.next();
+            }
+            next = null;
+            return account;
+        }
+    }
+
+    /**
+     * Отображение кодов на счета только для чтения поверх индекса.
+     * Обход слабо согласован, как у {@link ConcurrentHashMap}.
+     */
+    private final class View extends AbstractMap<String, Account> {
+        @Override
+        public Account get(final Object key) {
+            if (key instanceof String) {
+                return AccountIndex.this.get((String) key);
+            }
+            return null;
+        }
+
+        @Override
+        public boolean containsKey(final Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public int size() {
+            return AccountIndex.this.size();
+        }
+
+        @Override
+        public Collection<Account> values() {
+            return new AbstractCollection<Account>() {
+                @Override
+                public Iterator<Account> iterator() {
+                    return new Accounts();
+                }
+
+                @Override
+                public int size() {
+                    return AccountIndex.this.size();
+                }
+            };
+        }
+
+        @Override
+        public Set<Map.Entry<String, Account>> entrySet() {
+            return new AbstractSet<Map.Entry<String, Account>>() {
+                @Override
+                public Iterator<Map.Entry<String, Account>> iterator() {
+                    Iterator<Account> accounts = new Accounts();
+                    return new Iterator<Map.Entry<String, Account>>() {
+                        @Override
+                        public boolean hasNext() {
+                            return accounts.hasNext();
+                        }
+
+                        @Override
+                        public Map.Entry<String, Account> next() {
+                            Account account = accounts.next();
+                            return new AbstractMap.SimpleImmutableEntry<>(
+                                    account.toString(), account);
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return AccountIndex.this.size();
+                }
+            };
+        }
+    }
+}
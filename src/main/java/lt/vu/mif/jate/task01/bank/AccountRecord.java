@@ -0,0 +1,94 @@
+package lt.vu.mif.jate.task01.bank;
+
+import java.math.BigInteger;
+
+/**
+ * Данные счёта: упакованный международный номер {@link IbanKey}, банк,
+ * номер, состояние, позиция журнала и остатки. Объект счёта хранит только
+ * ссылку на запись; где лежат данные, определяет {@link BalanceMode}.
+ */
+abstract class AccountRecord {
+    /**
+     * @param iban международный номер или null.
+     * @return упакованный номер или null, если номер хранится строкой.
+     */
+    static IbanKey key(final String iban) {
+        if (iban == null || iban.isEmpty()) {
+            return null;
+        }
+        return IbanKey.of(iban);
+    }
+
+    /**
+     * @param index номер числа упакованного номера, от 0 до
+     *              {@link IbanKey#WORDS} - 1.
+     * @return число упакованного номера или 0, если номер не упакован.
+     */
+    abstract long keyWord(int index);
+
+    /**
+     * @return международный номер, если его нельзя упаковать, иначе null.
+     */
+    abstract String unpackedIban();
+
+    /**
+     * @return банк счёта или null.
+     */
+    abstract Bank bank();
+
+    /**
+     * @return номер счёта в банке или null.
+     */
+    abstract BigInteger number();
+
+    /**
+     * @return состояние счёта.
+     */
+    abstract int state();
+
+    /**
+     * @param state состояние счёта.
+     */
+    abstract void setState(int state);
+
+    /**
+     * @param expected ожидаемое состояние.
+     * @param update   новое состояние.
+     * @return было-ли состояние изменено.
+     */
+    abstract boolean compareAndSetState(int expected, int update);
+
+    /**
+     * @return позиция последнего кадра журнала, изменившего счёт.
+     */
+    abstract long journalPosition();
+
+    /**
+     * @param position позиция кадра журнала, изменившего счёт.
+     */
+    abstract void setJournalPosition(long position);
+
+    /**
+     * @return остатки счёта.
+     */
+    abstract Balances balances();
+
+    /**
+     * @return международный номер.
+     */
+    final String iban() {
+        if (keyWord(0) == 0) {
+            return unpackedIban();
+        }
+        return IbanKey.unpack(keyWord(0), keyWord(1), keyWord(2));
+    }
+
+    /**
+     * @param key упакованный номер.
+     * @return международный номер счёта совпадает с упакованным.
+     */
+    final boolean hasKey(final IbanKey key) {
+        return keyWord(0) == key.high() && keyWord(1) == key.middle()
+                && keyWord(2) == key.low();
+    }
+}
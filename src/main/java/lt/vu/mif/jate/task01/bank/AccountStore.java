@@ -0,0 +1,311 @@
+package lt.vu.mif.jate.task01.bank;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Записи счетов вне кучи одного банка.
+ * Запись фиксированного размера в прямом буфере (плите) содержит
+ * упакованный международный номер, номер счёта, позицию журнала,
+ * состояние, номер банка в справочнике хранилища и
+ * {@link OffHeapRecord#INLINE_SLOTS} номеров валют и сумм. В куче остаются
+ * только банки, номера длиннее 63 бит и номера, которые нельзя упаковать.
+ * Плиты принадлежат банку {@link Banking}: после {@link #close()} ссылки
+ * на плиты сбрасываются, и обращение к записям завершается
+ * {@link IllegalStateException}. Прямую память плит возвращает сборщик
+ * мусора, когда на буферы не остаётся ссылок; до этого она учитывается в
+ * пределе -XX:MaxDirectMemorySize. Плита занимает 8 МБ прямой памяти.
+ */
+final class AccountStore {
+    /**
+     * Размер записи.
+     */
+    static final int RECORD_SIZE = 128;
+    /**
+     * Смещение числа 0 упакованного номера; числа идут подряд.
+     */
+    static final int KEY_OFFSET = 0;
+    /**
+     * Смещение номера счёта.
+     */
+    static final int NUMBER_OFFSET = 24;
+    /**
+     * Смещение позиции журнала.
+     */
+    static final int JOURNAL_OFFSET = 32;
+    /**
+     * Смещение состояния.
+     */
+    static final int STATE_OFFSET = 40;
+    /**
+     * Смещение номера банка в справочнике хранилища или -1.
+     */
+    static final int BANK_OFFSET = 44;
+    /**
+     * Смещение признаков записи.
+     */
+    static final int FLAGS_OFFSET = 48;
+    /**
+     * Смещение номеров валют.
+     */
+    static final int CURRENCIES_OFFSET = 52;
+    /**
+     * Смещение сумм.
+     */
+    static final int AMOUNTS_OFFSET = 72;
+    /**
+     * Признак: номер счёта хранится в записи.
+     */
+    private static final int NUMBER_INLINE = 1;
+    /**
+     * Признак: номер счёта хранится в куче.
+     */
+    private static final int NUMBER_HEAP = 2;
+    /**
+     * Граница длины номера счёта, хранимого в записи, в битах.
+     */
+    private static final int NUMBER_BITS = 63;
+    /**
+     * Двоичный логарифм количества записей в плите.
+     */
+    private static final int SLAB_SHIFT = 16;
+    /**
+     * Маска номера записи в плите.
+     */
+    private static final int SLAB_MASK = (1 << SLAB_SHIFT) - 1;
+    /**
+     * Атомарный доступ к числам int в плите.
+     */
+    private static final VarHandle INTS =
+            MethodHandles.byteBufferViewVarHandle(int[].class,
+                    ByteOrder.BIG_ENDIAN);
+    /**
+     * Плиты записей; при росте публикуются целиком.
+     */
+    private volatile AtomicReferenceArray<ByteBuffer> slabs =
+            new AtomicReferenceArray<>(1);
+    /**
+     * Количество выделенных записей; изменяется под блокировкой хранилища.
+     */
+    private int allocated;
+    /**
+     * Закрыто ли хранилище.
+     */
+    private boolean closed;
+    /**
+     * Банки записей по номерам.
+     */
+    private volatile AtomicReferenceArray<Bank> banks =
+            new AtomicReferenceArray<>(1);
+    /**
+     * Номера банков; изменяется под блокировкой хранилища.
+     */
+    private final Map<Bank, Integer> bankIds = new HashMap<>();
+    /**
+     * Номера счетов длиннее {@link #NUMBER_BITS} бит по записям.
+     */
+    private final ConcurrentMap<Integer, BigInteger> numbers =
+            new ConcurrentHashMap<>();
+    /**
+     * Международные номера, которые нельзя упаковать, по записям.
+     */
+    private final ConcurrentMap<Integer, String> ibans =
+            new ConcurrentHashMap<>();
+
+    /**
+     * Выделение и заполнение записи счёта.
+     *
+     * @param iban   международный номер.
+     * @param bank   банк или null.
+     * @param number номер счёта в банке или null.
+     * @return запись.
+     * @throws IllegalStateException хранилище закрыто.
+     */
+    OffHeapRecord allocate(final String iban,
+                           final Bank bank,
+                           final BigInteger number) {
+        int record;
+        int bankId = -1;
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("Banking is closed");
+            }
+            record = allocated;
+            int slab = record >>> SLAB_SHIFT;
+            AtomicReferenceArray<ByteBuffer> current = slabs;
+            if (slab == current.length()) {
+                AtomicReferenceArray<ByteBuffer> grown =
+                        new AtomicReferenceArray<>(slab * 2);
+                for (int i = 0; i < slab; i++) {
+                    grown.set(i, current.get(i));
+                }
+                current = grown;
+            }
+            if ((record & SLAB_MASK) == 0) {
+                current.set(slab, ByteBuffer.allocateDirect(
+                        (SLAB_MASK + 1) * RECORD_SIZE));
+            }
+            slabs = current;
+            allocated++;
+            if (bank != null) {
+                bankId = bankId(bank);
+            }
+        }
+        ByteBuffer slab = slab(record);
+        int at = offset(record);
+        IbanKey key = AccountRecord.key(iban);
+        if (key != null) {
+            slab.putLong(at + KEY_OFFSET, key.high());
+            slab.putLong(at + KEY_OFFSET + Long.BYTES, key.middle());
+            slab.putLong(at + KEY_OFFSET + 2 * Long.BYTES, key.low());
+        } else if (iban != null) {
+            ibans.put(record, iban);
+        }
+        int flags = 0;
+        if (number != null && number.bitLength() < NUMBER_BITS) {
+            slab.putLong(at + NUMBER_OFFSET, number.longValue());
+            flags = NUMBER_INLINE;
+        } else if (number != null) {
+            numbers.put(record, number);
+            flags = NUMBER_HEAP;
+        }
+        slab.putInt(at + FLAGS_OFFSET, flags);
+        slab.putInt(at + BANK_OFFSET, bankId);
+        return new OffHeapRecord(this, record);
+    }
+
+    /**
+     * Закрытие хранилища: ссылки на плиты сбрасываются, и записи
+     * становятся недоступны. Сами буферы освобождаются сборщиком мусора,
+     * когда на них не остаётся ссылок.
+     */
+    synchronized void close() {
+        closed = true;
+        slabs = new AtomicReferenceArray<>(0);
+        numbers.clear();
+        ibans.clear();
+    }
+
+    /**
+     * @param record номер записи.
+     * @return плита записи. Используется только абсолютный доступ, поэтому
+     * плита разделяется всеми записями.
+     * @throws IllegalStateException хранилище закрыто.
+     */
+    ByteBuffer slab(final int record) {
+        AtomicReferenceArray<ByteBuffer> current = slabs;
+        int slab = record >>> SLAB_SHIFT;
+        if (slab >= current.length()) {
+            throw new IllegalStateException("Banking is closed");
+        }
+        return current.get(slab);
+    }
+
+    /**
+     * @param record номер записи.
+     * @return смещение записи в плите.
+     */
+    static int offset(final int record) {
+        return (record & SLAB_MASK) * RECORD_SIZE;
+    }
+
+    /**
+     * @param record номер записи.
+     * @return банк или null.
+     */
+    Bank bank(final int record) {
+        int id = slab(record).getInt(offset(record) + BANK_OFFSET);
+        if (id < 0) {
+            return null;
+        }
+        return banks.get(id);
+    }
+
+    /**
+     * @param record номер записи.
+     * @return номер счёта или null.
+     */
+    BigInteger number(final int record) {
+        ByteBuffer slab = slab(record);
+        int at = offset(record);
+        int flags = slab.getInt(at + FLAGS_OFFSET);
+        if ((flags & NUMBER_INLINE) != 0) {
+            return BigInteger.valueOf(slab.getLong(at + NUMBER_OFFSET));
+        } else if ((flags & NUMBER_HEAP) != 0) {
+            return numbers.get(record);
+        }
+        return null;
+    }
+
+    /**
+     * @param record номер записи.
+     * @return международный номер, который нельзя упаковать, или null.
+     */
+    String unpackedIban(final int record) {
+        return ibans.get(record);
+    }
+
+    /**
+     * @param record номер записи.
+     * @return состояние счёта.
+     */
+    int state(final int record) {
+        return (int) INTS.getVolatile(slab(record),
+                offset(record) + STATE_OFFSET);
+    }
+
+    /**
+     * @param record номер записи.
+     * @param state  состояние счёта.
+     */
+    void setState(final int record, final int state) {
+        INTS.setVolatile(slab(record), offset(record) + STATE_OFFSET, state);
+    }
+
+    /**
+     * @param record   номер записи.
+     * @param expected ожидаемое состояние.
+     * @param update   новое состояние.
+     * @return было-ли состояние изменено.
+     */
+    boolean compareAndSetState(final int record,
+                               final int expected,
+                               final int update) {
+        return INTS.compareAndSet(slab(record),
+                offset(record) + STATE_OFFSET, expected, update);
+    }
+
+    /**
+     * Номер банка в справочнике хранилища; вызывается под его блокировкой.
+     *
+     * @param bank банк.
+     * @return номер банка.
+     */
+    private int bankId(final Bank bank) {
+        Integer id = bankIds.get(bank);
+        if (id == null) {
+            id = bankIds.size();
+            AtomicReferenceArray<Bank> current = banks;
+            if (id == current.length()) {
+                AtomicReferenceArray<Bank> grown =
+                        new AtomicReferenceArray<>(id * 2);
+                for (int i = 0; i < id; i++) {
+                    grown.set(i, current.get(i));
+                }
+                current = grown;
+            }
+            current.set(id, bank);
+            banks = current;
+            bankIds.put(bank, id);
+        }
+        return id;
+    }
+}
@@ -0,0 +1,269 @@
+package lt.vu.mif.jate.task01.bank;
+
+import lt.vu.mif.jate.task01.bank.exception.WrongAccountTypeException;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.math.BigInteger;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Тип счёта с фабрикой его создания.
+ * Типы регистрируются в общем реестре, через который {@link Banking}
+ * создаёт счета. Встроенные типы зарегистрированы заранее, новые типы
+ * регистрируются через {@link #register(Class, ContextFactory)} или
+ * {@link #register(Class, Factory)}. Для незарегистрированного типа
+ * фабрика строится один раз по конструктору
+ * (BankingContext, String, Bank, BigInteger) или, если его нет, по
+ * конструктору (String, Bank, BigInteger).
+ *
+ * @param <T> класс счёта.
+ */
+public final class AccountType<T extends Account> {
+    /**
+     * Реестр типов.
+     */
+    private static final ConcurrentMap<Class<?>, AccountType<?>> TYPES =
+            new ConcurrentHashMap<>();
+    /**
+     * Тип конструктора счёта с контекстом.
+     */
+    private static final MethodType CONTEXT_CONSTRUCTOR =
+            MethodType.methodType(void.class, BankingContext.class,
+                    String.class, Bank.class, BigInteger.class);
+    /**
+     * Тип конструктора счёта.
+     */
+    private static final MethodType CONSTRUCTOR = MethodType.methodType(
+            void.class, String.class, Bank.class, BigInteger.class);
+    /**
+     * Тип фабричного вызова конструктора.
+     */
+    private static final MethodType FACTORY = MethodType.methodType(
+            Account.class, BankingContext.class, String.class, Bank.class,
+            BigInteger.class);
+    /**
+     * Лицевой счёт.
+     */
+    public static final AccountType<CurrentAccount> CURRENT =
+            register(CurrentAccount.class,
+                    (context, iban, bank, number) ->
+                            new CurrentAccount(context, iban, bank, number));
+    /**
+     * Сберегательный счёт.
+     */
+    public static final AccountType<SavingsAccount> SAVINGS =
+            register(SavingsAccount.class,
+                    (context, iban, bank, number) ->
+                            new SavingsAccount(context, iban, bank, number));
+    /**
+     * Кредитный счёт.
+     */
+    public static final AccountType<CreditAccount> CREDIT =
+            register(CreditAccount.class,
+                    (context, iban, bank, number) ->
+                            new CreditAccount(context, iban, bank, number));
+    /**
+     * Класс счёта.
+     */
+    private final Class<T> accountClass;
+    /**
+     * Фабрика счёта.
+     */
+    private final ContextFactory<? extends T> factory;
+
+    /**
+     * @param pAccountClass класс счёта.
+     * @param pFactory      фабрика счёта.
+     */
+    private AccountType(final Class<T> pAccountClass,
+                        final ContextFactory<? extends T> pFactory) {
+        accountClass = pAccountClass;
+        factory = pFactory;
+    }
+
+    /**
+     * Регистрация типа счёта. Повторная регистрация заменяет фабрику.
+     *
+     * @param accountClass класс счёта.
+     * @param factory      фабрика счёта в контексте банка.
+     * @param <T>          класс счёта.
+     * @return тип счёта.
+     */
+    public static <T extends Account> AccountType<T> register(
+            final Class<T> accountClass,
+            final ContextFactory<? extends T> factory) {
+        AccountType<T> type = new AccountType<>(accountClass, factory);
+        TYPES.put(accountClass, type);
+        return type;
+    }
+
+    /**
+     * Регистрация типа счёта, фабрика которого не принимает контекст:
+     * такие счета создаются в контексте по умолчанию.
+     *
+     * @param accountClass класс счёта.
+     * @param factory      фабрика счёта.
+     * @param <T>          класс счёта.
+     * @return тип счёта.
+     */
+    public static <T extends Account> AccountType<T> register(
+            final Class<T> accountClass,
+            final Factory<? extends T> factory) {
+        return register(accountClass,
+                (context, iban, bank, number) ->
+                        factory.create(iban, bank, number));
+    }
+
+    /**
+     * Тип счёта по классу.
+     *
+     * @param accountClass класс счёта.
+     * @param <T>          класс счёта.
+     * @return зарегистрированный тип или тип с фабрикой по конструктору.
+     * @throws WrongAccountTypeException у класса нет подходящего
+     *                                   конструктора.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends Account> AccountType<T> of(
+            final Class<T> accountClass) throws WrongAccountTypeException {
+        AccountType<?> type = TYPES.get(accountClass);
+        if (type == null) {
+            MethodHandle constructor = constructor(accountClass);
+            type = TYPES.computeIfAbsent(accountClass,
+                    key -> new AccountType<>(accountClass,
+                            (context, iban, bank, number) ->
+                                    accountClass.cast(invoke(constructor,
+                                            context, iban, bank, number))));
+        }
+        return (AccountType<T>) type;
+    }
+
+    /**
+     * @param accountClass класс счёта.
+     * @return конструктор с контекстом или конструктор без контекста,
+     * игнорирующий переданный контекст.
+     * @throws WrongAccountTypeException у класса нет подходящего
+     *                                   конструктора.
+     */
+    private static MethodHandle constructor(
+            final Class<? extends Account> accountClass)
+            throws WrongAccountTypeException {
+        MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+        try {
+            return lookup.findConstructor(accountClass, CONTEXT_CONSTRUCTOR)
+                    .asType(FACTORY);
+        } catch (NoSuchMethodException | IllegalAccessException ignored) {
+        }
+        try {
+            return MethodHandles.dropArguments(lookup
+                    .findConstructor(accountClass, CONSTRUCTOR)
+                    .asType(FACTORY.dropParameterTypes(0, 1)),
+                    0, BankingContext.class);
+        } catch (NoSuchMethodException | IllegalAccessException ex) {
+            throw new WrongAccountTypeException(accountClass);
+        }
+    }
+
+    /**
+     * @param constructor конструктор счёта.
+     * @param context     контекст банка.
+     * @param iban        международный номер.
+     * @param bank        банк.
+     * @param number      номер счёта в банке.
+     * @return новый счёт.
+     */
+    private static Account invoke(final MethodHandle constructor,
+                                  final BankingContext context,
+                                  final String iban,
+                                  final Bank bank,
+                                  final BigInteger number) {
+        try {
+            return (Account) constructor.invokeExact(context, iban, bank,
+                    number);
+        } catch (RuntimeException | Error ex) {
+            throw ex;
+        } catch (Throwable ex) {
+            throw new UndeclaredThrowableException(ex);
+        }
+    }
+
+    /**
+     * @return класс счёта.
+     */
+    public Class<T> getAccountClass() {
+        return accountClass;
+    }
+
+    /**
+     * Создание счёта в контексте по умолчанию.
+     *
+     * @param iban   международный номер.
+     * @param bank   банк.
+     * @param number номер счёта в банке.
+     * @return новый счёт.
+     */
+    public T create(final String iban,
+                    final Bank bank,
+                    final BigInteger number) {
+        return create(BankingContext.getDefault(), iban, bank, number);
+    }
+
+    /**
+     * Создание счёта.
+     *
+     * @param context контекст банка.
+     * @param iban    международный номер.
+     * @param bank    банк.
+     * @param number  номер счёта в банке.
+     * @return новый счёт.
+     */
+    public T create(final BankingContext context,
+                    final String iban,
+                    final Bank bank,
+                    final BigInteger number) {
+        return factory.create(context, iban, bank, number);
+    }
+
+    @Override
+    public String toString() {
+        return accountClass.getSimpleName();
+    }
+
+    /**
+     * Фабрика счёта.
+     *
+     * @param <T> класс счёта.
+     */
+    @FunctionalInterface
+    public interface Factory<T extends Account> {
+        /**
+         * @param iban   международный номер.
+         * @param bank   банк.
+         * @param number номер счёта в банке.
+         * @return новый счёт.
+         */
+        T create(String iban, Bank bank, BigInteger number);
+    }
+
+    /**
+     * Фабрика счёта в контексте банка.
+     *
+     * @param <T> класс счёта.
+     */
+    @FunctionalInterface
+    public interface ContextFactory<T extends Account> {
+        /**
+         * @param context контекст банка.
+         * @param iban    международный номер.
+         * @param bank    банк.
+         * @param number  номер счёта в банке.
+         * @return новый счёт.
+         */
+        T create(BankingContext context, String iban, Bank bank,
+                 BigInteger number);
+    }
+}
@@ -0,0 +1,226 @@
+package lt.vu.mif.jate.task01.bank;
+
+/**
+ * Разбор текстовой суммы сразу в минимальные единицы без промежуточных
+ * объектов. Принимается тот же формат, что и у {@code new BigDecimal}
+ * с последующей проверкой {@link Converter#checkRange(java.math.BigDecimal)}:
+ * необязательный знак, цифры с необязательной дробной частью и
+ * необязательный порядок {@code e}/{@code E}. Сумма не может быть
+ * отрицательной и не может иметь больше двух значащих знаков после
+ * запятой.
+ */
+public final class AmountParser {
+    /**
+     * Основание системы счисления.
+     */
+    private static final int RADIX = 10;
+    /**
+     * Максимальная степень десяти, помещающаяся в long.
+     */
+    private static final int MAX_POWER = 18;
+    /**
+     * Наибольший допустимый порядок по модулю.
+     */
+    private static final long MAX_EXPONENT = Integer.MAX_VALUE;
+    /**
+     * Степени десяти.
+     */
+    private static final long[] POWERS_OF_TEN = new long[MAX_POWER + 1];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i <= MAX_POWER; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * RADIX;
+        }
+    }
+
+    /**
+     * Утилитарный класс.
+     */
+    private AmountParser() {
+    }
+
+    /**
+     * @param text текст суммы.
+     * @return сумма в минимальных единицах.
+     * @throws NumberFormatException неверный формат, отрицательная сумма
+     *                               или больше двух знаков после запятой.
+     * @throws ArithmeticException   сумма не помещается в long.
+     */
+    public static long parseMinor(final CharSequence text) {
+        return parse(null, text, 0, text.length());
+    }
+
+    /**
+     * @param text  текст.
+     * @param start начало суммы.
+     * @param end   конец суммы, не включая.
+     * @return сумма в минимальных единицах.
+     * @throws NumberFormatException неверный формат, отрицательная сумма
+     *                               или больше двух знаков после запятой.
+     * @throws ArithmeticException   сумма не помещается в long.
+     */
+    public static long parseMinor(final CharSequence text,
+                                  final int start,
+                                  final int end) {
+        return parse(null, text, start, end);
+    }
+
+    /**
+     * @param bytes текст в кодировке ASCII.
+     * @param start начало суммы.
+     * @param end   конец суммы, не включая.
+     * @return сумма в минимальных единицах.
+     * @throws NumberFormatException неверный формат, отрицательная сумма
+     *                               или больше двух знаков после запятой.
+     * @throws ArithmeticException   сумма не помещается в long.
+     */
+    public static long parseMinor(final byte[] bytes,
+                                  final int start,
+                                  final int end) {
+        return parse(bytes, null, start, end);
+    }
+
+    /**
+     * Разбор суммы из байтов или символов. Нули накапливаются отдельно и
+     * домножаются только перед следующей значащей цифрой, поэтому
+     * незначащие нули дробной части не переполняют мантиссу.
+     *
+     * @param bytes байты или {@code null}.
+     * @param chars символы, если байтов нет.
+     * @param start начало суммы.
+     * @param end   конец суммы, не включая.
+     * @return сумма в минимальных единицах.
+     */
+    private static long parse(final byte[] bytes,
+                              final CharSequence chars,
+                              final int start,
+                              final int end) {
+        if (start < 0 || end < start) {
+            throw new IndexOutOfBoundsException();
+        }
+        int i = start;
+        boolean negative = false;
+        if (i < end && (charAt(bytes, chars, i) == '-'
+                || charAt(bytes, chars, i) == '+')) {
+            negative = charAt(bytes, chars, i) == '-';
+            i++;
+        }
+        long unscaled = 0;
+        long zeros = 0;
+        long exponent = 0;
+        int digits = 0;
+        boolean fraction = false;
+        for (; i < end; i++) {
+            char c = charAt(bytes, chars, i);
+            if (c == '.' && !fraction) {
+                fraction = true;
+                continue;
+            }
+            if (c < '0' || c > '9') {
+                break;
+            }
+            digits++;
+            if (fraction) {
+                exponent--;
+            }
+            if (c == '0') {
+                zeros++;
+            } else if (unscaled == 0) {
+                unscaled = c - '0';
+                zeros = 0;
+            } else {
+                unscaled = Math.addExact(Math.multiplyExact(unscaled,
+                        power(zeros + 1)), c - '0');
+                zeros = 0;
+            }
+        }
+        if (digits == 0) {
+            throw new NumberFormatException();
+        }
+        if (i < end) {
+            exponent = Math.addExact(exponent,
+                    parseExponent(bytes, chars, i, end));
+        }
+        if (unscaled == 0) {
+            return 0;
+        }
+        if (negative) {
+            throw new NumberFormatException();
+        }
+        long shift = zeros + exponent + Money.SCALE;
+        if (shift < 0) {
+            throw new NumberFormatException();
+        }
+        return Math.multiplyExact(unscaled, power(shift));
+    }
+
+    /**
+     * @param bytes байты или {@code null}.
+     * @param chars символы, если байтов нет.
+     * @param start начало порядка, символ {@code e} или {@code E}.
+     * @param end   конец суммы, не включая.
+     * @return порядок.
+     */
+    private static long parseExponent(final byte[] bytes,
+                                      final CharSequence chars,
+                                      final int start,
+                                      final int end) {
+        char marker = charAt(bytes, chars, start);
+        if (marker != 'e' && marker != 'E') {
+            throw new NumberFormatException();
+        }
+        int i = start + 1;
+        boolean negative = false;
+        if (i < end && (charAt(bytes, chars, i) == '-'
+                || charAt(bytes, chars, i) == '+')) {
+            negative = charAt(bytes, chars, i) == '-';
+            i++;
+        }
+        if (i == end) {
+            throw new NumberFormatException();
+        }
+        long exponent = 0;
+        for (; i < end; i++) {
+            char c = charAt(bytes, chars, i);
+            if (c < '0' || c > '9') {
+                throw new NumberFormatException();
+            }
+            exponent = exponent * RADIX + (c - '0');
+            if (exponent > MAX_EXPONENT) {
+                throw new NumberFormatException();
+            }
+        }
+        if (negative) {
+            return -exponent;
+        }
+        return exponent;
+    }
+
+    /**
+     * @param bytes байты или {@code null}.
+     * @param chars символы, если байтов нет.
+     * @param index номер символа.
+     * @return символ.
+     */
+    private static char charAt(final byte[] bytes,
+                               final CharSequence chars,
+                               final int index) {
+        if (bytes == null) {
+            return chars.charAt(index);
+        }
+        return (char) Byte.toUnsignedInt(bytes[index]);
+    }
+
+    /**
+     * @param exponent степень.
+     * @return десять в степени.
+     * @throws ArithmeticException степень не помещается в long.
+     */
+    private static long power(final long exponent) {
+        if (exponent > MAX_POWER) {
+            throw new ArithmeticException();
+        }
+        return POWERS_OF_TEN[(int) exponent];
+    }
+}
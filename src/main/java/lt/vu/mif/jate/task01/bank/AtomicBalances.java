@@ -0,0 +1,85 @@
+package lt.vu.mif.jate.task01.bank;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * Потокобезопасное хранилище остатков без блокировок.
+ * Каждая валюта хранится в отдельной ячейке {@link AtomicLongArray},
+ * изменения выполняются через CAS. Массив создаётся при первом изменении.
+ */
+final class AtomicBalances implements Balances {
+    /**
+     * Атомарная инициализация массива ячеек.
+     */
+    private static final AtomicReferenceFieldUpdater<AtomicBalances,
+            AtomicLongArray> CELLS = AtomicReferenceFieldUpdater.newUpdater(
+            AtomicBalances.class, AtomicLongArray.class, "cells");
+    /**
+     * Остатки, индексированные номером валюты.
+     */
+    private volatile AtomicLongArray cells;
+
+    @Override
+    public long get(final int currency) {
+        AtomicLongArray current = cells;
+        if (current == null) {
+            return 0;
+        }
+        return current.get(currency);
+    }
+
+    @Override
+    public void add(final int currency, final long delta) {
+        AtomicLongArray current = cells();
+        long amount;
+        do {
+            amount = current.get(currency);
+        } while (!current.compareAndSet(currency, amount,
+                Math.addExact(amount, delta)));
+    }
+
+    @Override
+    public boolean compareAndSet(final int currency,
+                                 final long expected,
+                                 final long update) {
+        return cells().compareAndSet(currency, expected, update);
+    }
+
+    @Override
+    public int slots() {
+        AtomicLongArray current = cells;
+        if (current == null) {
+            return 0;
+        }
+        return current.length();
+    }
+
+    @Override
+    public int currencyAt(final int slot) {
+        return slot;
+    }
+
+    @Override
+    public long amountAt(final int slot) {
+        return cells.get(slot);
+    }
+
+    @Override
+    public boolean isAtomic() {
+        return true;
+    }
+
+    /**
+     * @return массив ячеек, созданный при необходимости.
+     */
+    private AtomicLongArray cells() {
+        AtomicLongArray current = cells;
+        if (current == null) {
+            CELLS.compareAndSet(this, null,
+                    new AtomicLongArray(CurrencyId.capacity()));
+            current = cells;
+        }
+        return current;
+    }
+}
@@ -0,0 +1,58 @@
+package lt.vu.mif.jate.task01.bank;
+
+import java.math.BigInteger;
+
+/**
+ * Способ хранения остатков счёта.
+ */
+public enum BalanceMode {
+    /**
+     * Компактное хранение для однопоточной работы. Остатки не атомарны,
+     * поэтому изменяются под блокировкой счёта.
+     */
+    COMPACT {
+        @Override
+        AccountRecord create(final Banking banking, final String iban,
+                             final Bank bank, final BigInteger number) {
+            return new HeapRecord(iban, bank, number, new CompactBalances());
+        }
+    },
+    /**
+     * Потокобезопасное хранение: зачисление и списание атомарны по каждой
+     * валюте и без журнала выполняются без блокировок; с журналом они
+     * берут блокировку счёта, чтобы снимок видел остатки вместе с позицией
+     * журнала.
+     */
+    ATOMIC {
+        @Override
+        AccountRecord create(final Banking banking, final String iban,
+                             final Bank bank, final BigInteger number) {
+            return new HeapRecord(iban, bank, number, new AtomicBalances());
+        }
+    },
+    /**
+     * Хранение вне кучи для десятков миллионов счетов: номер, банк,
+     * состояние и остатки счёта лежат в записи прямых буферов банка,
+     * объект счёта ссылается на свою запись. {@link Banking#close()}
+     * закрывает записи, а буферы освобождает сборщик мусора. Остатки не
+     * атомарны и изменяются под блокировкой счёта, как у
+     * {@link #COMPACT}.
+     */
+    OFF_HEAP {
+        @Override
+        AccountRecord create(final Banking banking, final String iban,
+                             final Bank bank, final BigInteger number) {
+            return banking.getAccountStore().allocate(iban, bank, number);
+        }
+    };
+
+    /**
+     * @param banking банк счёта.
+     * @param iban    международный номер.
+     * @param bank    банк или null.
+     * @param number  номер счёта в банке или null.
+     * @return данные нового счёта.
+     */
+    abstract AccountRecord create(Banking banking, String iban, Bank bank,
+                                  BigInteger number);
+}
@@ -0,0 +1,54 @@
+package lt.vu.mif.jate.task01.bank;
+
+/**
+ * Хранилище остатков счёта в минимальных единицах по номерам валют.
+ * Обход выполняется по ячейкам: {@code for (int i = 0; i < slots(); i++)},
+ * нулевые ячейки следует пропускать.
+ */
+interface Balances {
+    /**
+     * @param currency номер валюты.
+     * @return остаток в валюте, ноль если валюта не использовалась.
+     */
+    long get(int currency);
+
+    /**
+     * @param currency номер валюты.
+     * @param delta    изменение остатка.
+     * @throws ArithmeticException переполнение остатка.
+     */
+    void add(int currency, long delta);
+
+    /**
+     * Атомарная замена остатка, если он равен ожидаемому.
+     *
+     * @param currency номер валюты.
+     * @param expected ожидаемый остаток.
+     * @param update   новый остаток.
+     * @return был-ли остаток заменён.
+     */
+    boolean compareAndSet(int currency, long expected, long update);
+
+    /**
+     * @return количество ячеек для обхода.
+     */
+    int slots();
+
+    /**
+     * @param slot ячейка.
+     * @return номер валюты ячейки.
+     */
+    int currencyAt(int slot);
+
+    /**
+     * @param slot ячейка.
+     * @return остаток в ячейке.
+     */
+    long amountAt(int slot);
+
+    /**
+     * @return изменения и чтения остатка каждой валюты атомарны без
+     * внешней блокировки.
+     */
+    boolean isAtomic();
+}
@@ -5,20 +5,30 @@ import lt.vu.mif.jate.task01.bank.exception.IBANException;
 import lt.vu.mif.jate.task01.bank.exception.WrongAccountTypeException;
 
 import java.io.BufferedReader;
-import java.io.FileInputStream;
+import java.io.Closeable;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.lang.reflect.InvocationTargetException;
+import java.io.UncheckedIOException;
 import java.math.BigInteger;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * Основной клас финансовой бизнес-логики.
  */
-public class Banking {
+public class Banking implements Closeable {
     /**
      * Путь к ресурсам.
      */
@@ -40,47 +50,187 @@ public class Banking {
      */
     private static final int CODE_INDEX = 3;
     /**
-     * Синглтон банка.
+     * Ленивое создание контекста отдельного банка.
      */
-    private static Banking instance;
+    private static final AtomicReferenceFieldUpdater<Banking, BankingContext>
+            CONTEXT = AtomicReferenceFieldUpdater.newUpdater(Banking.class,
+            BankingContext.class, "context");
     /**
-     * Банки стран.
+     * Контекст банка; у отдельного банка создаётся при первом обращении,
+     * чтобы ссылка на банк не передавалась из конструктора.
      */
-    private Map<String, Map<Integer, Bank>> banks;
+    private volatile BankingContext context;
     /**
-     * Парсер международных кодов счета.
+     * Конвертер контекста банка.
      */
-    private Map<String, IBANParser> ibanParsers;
+    private final Converter converter;
     /**
-     * Банковские счета.
+     * Банки разобранных стран.
      */
-    private Map<String, Account> accounts;
+    private final ConcurrentMap<String, Map<Integer, Bank>> banks =
+            new ConcurrentHashMap<>();
+    /**
+     * Образ справочников, из которого разбираются банки и шаблоны, или
+     * null.
+     */
+    private final ReferenceImage image;
+    /**
+     * Парсеры международных кодов счета по номерам стран
+     * {@link IBANParser#countryIndex(CharSequence)}; из образа
+     * разбираются при первом обращении.
+     */
+    private final IBANParser[] ibanParsers =
+            new IBANParser[IBANParser.LETTERS * IBANParser.LETTERS];
+    /**
+     * Заполнены ли {@link #ibanParsers}.
+     */
+    private volatile boolean ibanParsersLoaded;
+    /**
+     * Банковские счета по упакованным международным кодам.
+     */
+    private final AccountIndex accounts = new AccountIndex();
+    /**
+     * Записи счетов вне кучи {@link BalanceMode#OFF_HEAP}.
+     */
+    private final AccountStore store = new AccountStore();
+    /**
+     * Способ хранения остатков новых счетов.
+     */
+    private volatile BalanceMode balanceMode = BalanceMode.COMPACT;
+    /**
+     * Проверять ли контрольные цифры международных кодов, которых ещё нет
+     * среди счетов.
+     */
+    private volatile boolean checkDigitsValidation = true;
+    /**
+     * Журнал изменений счетов или null.
+     */
+    private volatile Journal journal;
+    /**
+     * Открытие счетов: счета открываются под блокировкой чтения, снимок
+     * читает позицию журнала под блокировкой записи, чтобы все счета,
+     * открытые до этой позиции, уже были в реестре.
+     */
+    private final ReadWriteLock openings = new ReentrantReadWriteLock();
+    /**
+     * Позиция журнала восстановленного снимка.
+     */
+    private long restoredPosition;
+    /**
+     * Количество счетов восстановленного снимка или -1, если снимок не
+     * восстанавливался.
+     */
+    private int restoredCount = -1;
 
-    {
-        try (final BufferedReader banksBufferedReader = new BufferedReader(
-                new InputStreamReader(
-                        new FileInputStream(RESOURCES_PATH
-                                + "banks.txt"),
-                        StandardCharsets.UTF_8));
-             final BufferedReader ibanBufferedReader = new BufferedReader(
-                     new InputStreamReader(
-                             new FileInputStream(RESOURCES_PATH
-                                     + "iban.txt"),
-                             StandardCharsets.UTF_8))) {
-            banks = readBanks(banksBufferedReader);
-            ibanParsers = readIban(ibanBufferedReader);
+    /**
+     * Банк со справочниками из {@link #RESOURCES_PATH}.
+     */
+    public Banking() {
+        this(Paths.get(RESOURCES_PATH));
+    }
+
+    /**
+     * Отдельный банк со справочниками и собственным конвертером из
+     * каталога.
+     *
+     * @param resources каталог справочников.
+     */
+    public Banking(final Path resources) {
+        this(null, resources, ReferenceImage.open(resources));
+    }
+
+    /**
+     * Банк со справочниками из каталога: из скомпилированного образа
+     * {@link ReferenceImage}, если он есть и не устарел, иначе из текстовых
+     * файлов. Из образа справочники разбираются при первом обращении.
+     *
+     * @param pContext  контекст банка или null для отдельного банка с
+     *                  собственным конвертером.
+     * @param resources каталог справочников.
+     * @param pImage    образ справочников каталога или null.
+     */
+    Banking(final BankingContext pContext, final Path resources,
+            final ReferenceImage pImage) {
+        if (pContext == null) {
+            converter = new Converter(resources, pImage);
+        } else {
+            context = pContext;
+            converter = pContext.getConverter();
+        }
+        image = pImage;
+        if (pImage != null) {
+            return;
+        }
+        try (BufferedReader banksBufferedReader = Files.newBufferedReader(
+                resources.resolve(ReferenceImage.BANKS_FILE),
+                StandardCharsets.UTF_8);
+             BufferedReader ibanBufferedReader = Files.newBufferedReader(
+                     resources.resolve(ReferenceImage.IBAN_FILE),
+                     StandardCharsets.UTF_8)) {
+            banks.putAll(readBanks(banksBufferedReader));
+            index(readIban(ibanBufferedReader));
         } catch (IOException ignored) {
         }
+        ibanParsersLoaded = true;
+    }
+
+    /**
+     * @return банк контекста по умолчанию.
+     */
+    public static Banking getInstance() {
+        return BankingContext.getDefault().getBanking();
     }
 
     /**
-     * @return объект текущего класса.
+     * @param parsers парсеры международных кодов по странам.
      */
-    public static synchronized Banking getInstance() {
-        if (instance == null) {
-            instance = new Banking();
+    private void index(final Map<String, IBANParser> parsers) {
+        for (IBANParser parser : parsers.values()) {
+            int country = IBANParser.countryIndex(parser.getCountry());
+            if (country >= 0) {
+                ibanParsers[country] = parser;
+            }
         }
-        return instance;
+    }
+
+    /**
+     * @param iban международный код.
+     * @return парсер страны кода или null.
+     */
+    final IBANParser getIbanParser(final CharSequence iban) {
+        int country = IBANParser.countryIndex(iban);
+        if (country < 0) {
+            return null;
+        }
+        if (!ibanParsersLoaded) {
+            loadIbanParsers();
+        }
+        return ibanParsers[country];
+    }
+
+    /**
+     * Разбор шаблонов из образа при первом обращении.
+     */
+    private synchronized void loadIbanParsers() {
+        if (!ibanParsersLoaded) {
+            index(image.ibanParsers());
+            ibanParsersLoaded = true;
+        }
+    }
+
+    /**
+     * Банки страны; из образа разбираются при первом обращении.
+     *
+     * @param country страна.
+     * @return банки страны по кодам или null.
+     */
+    private Map<Integer, Bank> countryBanks(final String country) {
+        Map<Integer, Bank> countryBanks = banks.get(country);
+        if (countryBanks == null && image != null
+                && image.countries().contains(country)) {
+            countryBanks = banks.computeIfAbsent(country, image::banks);
+        }
+        return countryBanks;
     }
 
     /**
@@ -90,12 +240,13 @@ public class Banking {
      * @return прочтенные банки Латвии.
      * @throws IOException ошибка чтения.
      */
-    private static Map<String, Map<Integer, Bank>> readBanks(
+    static ConcurrentMap<String, Map<Integer, Bank>> readBanks(
             final BufferedReader banksBufferedReader)
             throws IOException {
-        Map<String, Map<Integer, Bank>> banks = new HashMap<>();
+        ConcurrentMap<String, Map<Integer, Bank>> banks =
+                new ConcurrentHashMap<>();
 
-        Map<Integer, Bank> ltBanks = new HashMap<>();
+        Map<Integer, Bank> ltBanks = new ConcurrentHashMap<>();
         banks.put("LT", ltBanks);
 
         String bankLine;
@@ -118,7 +269,7 @@ public class Banking {
      * @return банкоский счета.
      * @throws IOException ошибка чтения.
      */
-    private static Map<String, IBANParser> readIban(
+    static Map<String, IBANParser> readIban(
             final BufferedReader ibanBufferedReader)
             throws IOException {
         Map<String, IBANParser> ibanParsers = new HashMap<>();
@@ -138,6 +289,9 @@ public class Banking {
      * @return банки стран.
      */
     public final Map<String, Map<Integer, Bank>> getBanks() {
+        if (image != null) {
+            image.countries().forEach(this::countryBanks);
+        }
         Map<String, Map<Integer, Bank>> clone = new HashMap<>();
         banks.forEach((key, value) -> clone.put(key, new HashMap<>(value)));
         return clone;
@@ -168,11 +322,11 @@ public class Banking {
                               final int code,
                               final boolean produce)
             throws BankNotFoundException {
-        Map<Integer, Bank> countryBanks = banks.get(country);
+        Map<Integer, Bank> countryBanks = countryBanks(country);
         if (countryBanks == null) {
             if (produce) {
-                countryBanks = new HashMap<>();
-                banks.put(country, countryBanks);
+                countryBanks = banks.computeIfAbsent(country,
+                        key -> new ConcurrentHashMap<>());
             } else {
                 throw new BankNotFoundException(country, code);
             }
@@ -180,8 +334,8 @@ public class Banking {
         Bank bank = countryBanks.get(code);
         if (bank == null) {
             if (produce) {
-                bank = new Bank(country, code);
-                countryBanks.put(code, bank);
+                bank = countryBanks.computeIfAbsent(code,
+                        key -> new Bank(country, key));
             } else {
                 throw new BankNotFoundException(country, code);
             }
@@ -190,56 +344,136 @@ public class Banking {
     }
 
     /**
-     * @return банкоские счета.
+     * Поиск банка без создания и без исключений.
+     *
+     * @param country страна.
+     * @param code    код.
+     * @return банк или null.
      */
-    public final Map<String, Account> getAccounts() {
-        if (accounts == null) {
-            accounts = new HashMap<>();
+    final Bank findBank(final String country, final int code) {
+        Map<Integer, Bank> countryBanks = countryBanks(country);
+        if (countryBanks == null) {
+            return null;
         }
-        return accounts;
+        return countryBanks.get(code);
+    }
+
+    /**
+     * @return банкоские счета. Потокобезопасное отображение только для
+     * чтения; счета добавляются {@link #getAccount(String, Class)}.
+     */
+    public final Map<String, Account> getAccounts() {
+        return accounts.asMap();
     }
 
     /**
      * Счёт по международному коду.
+     * Существующий счёт находится без блокировок. Если счёта нет, код
+     * разбирается и проверяется, в том числе контрольные цифры, до
+     * создания счёта и банка и вне блокировок создания; затем счёт
+     * создаётся ровно один раз, даже если его одновременно запрашивают
+     * несколько потоков. Счета создаются фабриками {@link AccountType}.
      *
      * @param iban         междунарожный счёт.
      * @param accountClass тип счёта.
      * @return счёт соответствующий коду.
      * @throws IBANException             ошибка форма кода.
-     * @throws WrongAccountTypeException неверный тип счёта.
+     * @throws WrongAccountTypeException неверный тип счёта или у типа нет
+     *                                   фабрики.
      */
     public final Account getAccount(final String iban,
                               final Class<? extends Account> accountClass)
             throws IBANException, WrongAccountTypeException {
-        String country = iban.substring(0, 2);
-        IBANParser ibanPattern = ibanParsers.get(country);
-        if (ibanPattern == null) {
-            throw new IBANException(country, iban);
-        }
-        Bank bank = ibanPattern.parseBank(iban);
-        BigInteger number = ibanPattern.parseNumber(iban);
+        return getAccount(iban, accountClass, checkDigitsValidation);
+    }
+
+    /**
+     * Счёт по международному коду, записанному в журнал: код был принят
+     * при открытии счёта, поэтому контрольные цифры не проверяются.
+     *
+     * @param iban         междунарожный счёт.
+     * @param accountClass тип счёта.
+     * @return счёт соответствующий коду.
+     * @throws IBANException             ошибка форма кода.
+     * @throws WrongAccountTypeException неверный тип счёта.
+     */
+    final Account restoreAccount(final String iban,
+                                 final Class<? extends Account> accountClass)
+            throws IBANException, WrongAccountTypeException {
+        return getAccount(iban, accountClass, false);
+    }
 
-        Account account = getAccounts().get(iban);
+    /**
+     * @param iban         междунарожный счёт.
+     * @param accountClass тип счёта.
+     * @param checkDigits  проверять ли контрольные цифры нового кода.
+     * @return счёт соответствующий коду.
+     * @throws IBANException             ошибка форма кода.
+     * @throws WrongAccountTypeException неверный тип счёта.
+     */
+    private Account getAccount(final String iban,
+                               final Class<? extends Account> accountClass,
+                               final boolean checkDigits)
+            throws IBANException, WrongAccountTypeException {
+        Account account = accounts.get(iban);
         if (account == null) {
+            AccountType<?> type = AccountType.of(accountClass);
+            IBANParser ibanPattern = getIbanParser(iban);
+            if (ibanPattern == null) {
+                throw new IBANException(
+                        iban.substring(0, Math.min(2, iban.length())), iban);
+            }
+            ibanPattern.checkLength(iban);
+            int code = ibanPattern.bankCode(iban);
+            BigInteger number = ibanPattern.number(iban);
+            if (checkDigits) {
+                ibanPattern.checkDigits(iban);
+            }
+            openings.readLock().lock();
             try {
-                account = accountClass
-                        .getDeclaredConstructor(String.class,
-                                Bank.class,
-                                BigInteger.class)
-                        .newInstance(iban,
-                                bank,
-                                number);
-            } catch (InstantiationException | IllegalAccessException
-                    | NoSuchMethodException | InvocationTargetException e) {
-                e.printStackTrace();
+                account = accounts.computeIfAbsent(iban,
+                        key -> createAccount(key, ibanPattern.getCountry(),
+                                code, number, type));
+            } finally {
+                openings.readLock().unlock();
             }
-            getAccounts().put(iban, account);
-        } else if (!accountClass.isInstance(account)) {
+        }
+        if (!accountClass.isInstance(account)) {
             throw new WrongAccountTypeException(account.getClass());
         }
         return account;
     }
 
+    /**
+     * Создание счёта по проверенному коду.
+     *
+     * @param iban    междунарожный счёт.
+     * @param country код страны.
+     * @param code    код банка.
+     * @param number  номер счёта в банке.
+     * @param type    тип счёта.
+     * @return новый счёт.
+     */
+    private Account createAccount(final String iban,
+                                  final String country,
+                                  final int code,
+                                  final BigInteger number,
+                                  final AccountType<?> type) {
+        Bank bank;
+        try {
+            bank = getBank(country, code, true);
+        } catch (BankNotFoundException ex) {
+            throw new IllegalStateException(ex);
+        }
+        Account account = type.create(getContext(), iban, bank, number);
+        Journal current = journal;
+        if (current != null) {
+            account.setJournal(current);
+            current.open(account);
+        }
+        return account;
+    }
+
     /**
      * Получить лицевой счёт.
      *
@@ -283,20 +517,242 @@ public class Banking {
     }
 
     /**
-     * Метод предварительной обработки международного кода счёта.
+     * Метод предварительной обработки международного кода счёта: удаление
+     * пробелов и перевод в верхний регистр за один проход. Уже
+     * обработанный код возвращается без копирования.
      *
      * @param iban междунарожный код.
      * @return обработанный междунарожный код.
      */
-    private String formatIban(final String iban) {
-        return iban.replaceAll(" ", "")
-                .toUpperCase(Locale.getDefault());
+    private static String formatIban(final String iban) {
+        int length = iban.length();
+        int i = 0;
+        while (i < length && isFormatted(iban.charAt(i))) {
+            i++;
+        }
+        if (i == length) {
+            return iban;
+        }
+        char[] chars = new char[length];
+        iban.getChars(0, i, chars, 0);
+        int size = i;
+        for (; i < length; i++) {
+            char c = iban.charAt(i);
+            if (c >= 'a' && c <= 'z') {
+                chars[size++] = (char) (c - 'a' + 'A');
+            } else if (c > '~') {
+                return iban.replaceAll(" ", "")
+                        .toUpperCase(Locale.getDefault());
+            } else if (c != ' ') {
+                chars[size++] = c;
+            }
+        }
+        return new String(chars, 0, size);
+    }
+
+    /**
+     * @param c символ кода.
+     * @return символ не требует обработки.
+     */
+    private static boolean isFormatted(final char c) {
+        return c != ' ' && (c < 'a' || c > 'z') && c <= '~';
+    }
+
+    /**
+     * Пакетное выполнение переводов.
+     * Каждый счёт блокируется один раз, изменения остатков сводятся по
+     * счетам и валютам, и пакет применяется целиком. Отклонённые переводы
+     * не влияют на остальные и возвращаются с причиной отказа. Правила
+     * счетов проверяются через {@link Account#checkDebit(Money, long)} и
+     * {@link Account#checkCredit(Money, PendingState)}; состояния счетов
+     * меняются только при применении пакета.
+     *
+     * @param transfers переводы.
+     * @return результаты в порядке переводов.
+     */
+    public final List<TransferResult> applyTransfers(
+            final Collection<Transfer> transfers) {
+        return new TransferBatch(transfers, journal).apply();
+    }
+
+    /**
+     * Подключение журнала изменений счетов.
+     * Счета и их остатки восстанавливаются из журнала, после чего в него
+     * записываются открытия счетов и все операции с ними. Журнал
+     * подключается до открытия первого счёта или сразу после
+     * {@link #restore(Path)}; тогда применяются только кадры после позиции
+     * журнала, записанной в снимке.
+     *
+     * @param pJournal журнал.
+     * @throws IOException ошибка чтения журнала.
+     */
+    public final synchronized void openJournal(final Journal pJournal)
+            throws IOException {
+        int size = getAccounts().size();
+        if (journal != null || size != Math.max(restoredCount, 0)) {
+            throw new IllegalStateException(
+                    "Journal must be opened before any account");
+        }
+        pJournal.replay(this, restoredPosition);
+        getAccounts().values().forEach(a -> a.setJournal(pJournal));
+        journal = pJournal;
+    }
+
+    /**
+     * Запись двоичного снимка всех счетов: номеров, типов, банков,
+     * состояний и ненулевых остатков.
+     * С журналом счета копируются по одному под своими блокировками,
+     * операции с остальными счетами не ожидают снимка; в снимок
+     * записывается позиция журнала, с которой его нужно применять после
+     * восстановления, и сегменты журнала до неё удаляются. Без журнала
+     * согласовать снимок нечем, поэтому на всё время записи открытие
+     * счетов запрещается и захватываются блокировки всех счетов: переводы,
+     * пакеты и изменения неатомарных остатков ожидают снимка, а атомарные
+     * остатки {@link BalanceMode#ATOMIC} меняются по одной валюте и
+     * читаются целиком.
+     *
+     * @param path файл снимка.
+     * @throws IOException ошибка записи.
+     */
+    public final void snapshot(final Path path) throws IOException {
+        Journal current;
+        long position = 0;
+        openings.writeLock().lock();
+        try {
+            current = journal;
+            if (current == null) {
+                snapshotLocked(path);
+                return;
+            }
+            position = current.position();
+        } finally {
+            openings.writeLock().unlock();
+        }
+        Snapshot.write(getAccounts().values(), position, path);
+        current.truncate(position);
+    }
+
+    /**
+     * Запись снимка без журнала под блокировками всех счетов.
+     *
+     * @param path файл снимка.
+     * @throws IOException ошибка записи.
+     */
+    private void snapshotLocked(final Path path) throws IOException {
+        List<Account> all = new ArrayList<>(getAccounts().values());
+        all.sort(Account.LOCK_ORDER);
+        try {
+            Account.withLocks(all, () -> {
+                try {
+                    Snapshot.write(all, 0, path);
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+                return null;
+            });
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    /**
+     * Восстановление счетов из снимка, записанного
+     * {@link #snapshot(Path)}. Счета создаются напрямую, без разбора
+     * международных номеров и без операций зачисления, поэтому
+     * восстановление выполняется до открытия первого счёта и до
+     * подключения журнала. Журнал, с которым записан снимок, можно
+     * подключить сразу после восстановления.
+     *
+     * @param path файл снимка.
+     * @throws IOException ошибка чтения или повреждённый снимок.
+     */
+    public final synchronized void restore(final Path path)
+            throws IOException {
+        if (journal != null || !getAccounts().isEmpty()) {
+            throw new IllegalStateException(
+                    "Snapshot must be restored before any account");
+        }
+        Map<String, Account> restored = new HashMap<>();
+        restoredPosition = Snapshot.read(path, this, restored);
+        accounts.putAll(restored);
+        restoredCount = restored.size();
+    }
+
+    /**
+     * @return записи счетов вне кучи.
+     */
+    final AccountStore getAccountStore() {
+        return store;
+    }
+
+    /**
+     * Закрытие записей счетов вне кучи {@link BalanceMode#OFF_HEAP}.
+     * Обращение к таким счетам и открытие новых после закрытия завершается
+     * {@link IllegalStateException}; счета в куче продолжают работать.
+     * Прямую память записей освобождает сборщик мусора.
+     */
+    @Override
+    public final void close() {
+        store.close();
+    }
+
+    /**
+     * @return способ хранения остатков новых счетов.
+     */
+    public final BalanceMode getBalanceMode() {
+        return balanceMode;
+    }
+
+    /**
+     * Выбор способа хранения остатков для счетов, создаваемых после вызова.
+     * {@link BalanceMode#ATOMIC} позволяет вызывать зачисление и списание
+     * из нескольких потоков.
+     *
+     * @param pBalanceMode способ хранения остатков.
+     */
+    public final void setBalanceMode(final BalanceMode pBalanceMode) {
+        balanceMode = pBalanceMode;
+    }
+
+    /**
+     * @return проверяются ли контрольные цифры международных кодов, которых
+     * ещё нет среди счетов.
+     */
+    public final boolean isCheckDigitsValidation() {
+        return checkDigitsValidation;
+    }
+
+    /**
+     * Проверка контрольных цифр ISO 13616 для международных кодов, которых
+     * ещё нет среди счетов. Код с неверными цифрами отклоняется
+     * {@link IBANException} до создания счёта и банка. По умолчанию
+     * проверка включена; выключать её стоит только для кодов без верных
+     * контрольных цифр, например учебных. Уже открытые счета находятся
+     * без проверки.
+     *
+     * @param validation проверять ли контрольные цифры.
+     */
+    public final void setCheckDigitsValidation(final boolean validation) {
+        checkDigitsValidation = validation;
     }
 
     /**
-     * @return объект конвертера.
+     * @return конвертер контекста банка.
      */
     public final Converter getConverter() {
-        return Converter.getInstance();
+        return converter;
+    }
+
+    /**
+     * @return контекст банка.
+     */
+    public final BankingContext getContext() {
+        BankingContext current = context;
+        if (current == null) {
+            CONTEXT.compareAndSet(this, null,
+                    new BankingContext(this, converter));
+            current = context;
+        }
+        return current;
     }
 }
@@ -0,0 +1,209 @@
+package lt.vu.mif.jate.task01.bank;
+
+import java.io.Closeable;
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Асинхронный фасад {@link Banking}.
+ * Каждая операция выполняется в отдельном виртуальном потоке и
+ * возвращает {@link CompletableFuture}, поэтому вызывающий поток не
+ * блокируется, а незавершённые операции почти ничего не стоят. Ошибка
+ * операции, в том числе проверяемая или {@link Error}, передаётся в
+ * результат как есть, поэтому результат завершается всегда.
+ * Счета, с которыми одновременно работают несколько операций, должны
+ * создаваться в режиме {@link BalanceMode#ATOMIC}.
+ */
+public final class BankingAsync implements Closeable {
+    /**
+     * Банк.
+     */
+    private final Banking banking;
+    /**
+     * Исполнитель операций.
+     */
+    private final ExecutorService executor;
+
+    /**
+     * Фасад с исполнителем на виртуальных потоках.
+     *
+     * @param pBanking банк.
+     */
+    public BankingAsync(final Banking pBanking) {
+        this(pBanking, Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    /**
+     * @param pBanking  банк.
+     * @param pExecutor исполнитель операций; закрывается вместе с фасадом.
+     */
+    public BankingAsync(final Banking pBanking,
+                        final ExecutorService pExecutor) {
+        banking = pBanking;
+        executor = pExecutor;
+    }
+
+    /**
+     * @param iban международный код.
+     * @return лицевой счёт.
+     */
+    public CompletableFuture<CurrentAccount> getCurrentAccount(
+            final String iban) {
+        return supply(() -> banking.getCurrentAccount(iban));
+    }
+
+    /**
+     * @param iban международный код.
+     * @return сберегательный счёт.
+     */
+    public CompletableFuture<SavingsAccount> getSavingsAccount(
+            final String iban) {
+        return supply(() -> banking.getSavingsAccount(iban));
+    }
+
+    /**
+     * @param iban международный код.
+     * @return кредитный счёт.
+     */
+    public CompletableFuture<CreditAccount> getCreditAccount(
+            final String iban) {
+        return supply(() -> banking.getCreditAccount(iban));
+    }
+
+    /**
+     * Положить деньги на счёт.
+     *
+     * @param account      счёт.
+     * @param amount       сумма.
+     * @param currencyCode код валюты.
+     * @return завершение операции.
+     */
+    public CompletableFuture<Void> credit(final Account account,
+                                          final BigDecimal amount,
+                                          final String currencyCode) {
+        return run(() -> account.credit(amount, currencyCode));
+    }
+
+    /**
+     * Снять деньги со счёта.
+     *
+     * @param account      счёт.
+     * @param amount       сумма.
+     * @param currencyCode код валюты.
+     * @return завершение операции.
+     */
+    public CompletableFuture<Void> debit(final Account account,
+                                         final BigDecimal amount,
+                                         final String currencyCode) {
+        return run(() -> account.debit(amount, currencyCode));
+    }
+
+    /**
+     * Перевести деньги со счёта на счёт.
+     *
+     * @param from         счёт отправителя.
+     * @param to           счёт получателя.
+     * @param amount       сумма.
+     * @param currencyCode код валюты.
+     * @return завершение перевода.
+     */
+    public CompletableFuture<Void> transfer(final Account from,
+                                            final Account to,
+                                            final BigDecimal amount,
+                                            final String currencyCode) {
+        return run(() -> from.debit(amount, currencyCode, to));
+    }
+
+    /**
+     * Сконвертировать деньги на счёте в другую валюту.
+     *
+     * @param account          счёт.
+     * @param amount           сумма.
+     * @param fromCurrencyCode код валюты из которой выполняется конвертация.
+     * @param toCurrencyCode   код валюты в которую выполняется конвертация.
+     * @return завершение операции.
+     */
+    public CompletableFuture<Void> convert(final Account account,
+                                           final BigDecimal amount,
+                                           final String fromCurrencyCode,
+                                           final String toCurrencyCode) {
+        return run(() -> account.convert(amount, fromCurrencyCode,
+                toCurrencyCode));
+    }
+
+    /**
+     * @param account      счёт.
+     * @param currencyCode код валюты.
+     * @return остаток счёта в валюте.
+     */
+    public CompletableFuture<BigDecimal> balance(final Account account,
+                                                 final String currencyCode) {
+        return supply(() -> account.balance(currencyCode));
+    }
+
+    /**
+     * Пакетное выполнение переводов, см.
+     * {@link Banking#applyTransfers(Collection)}.
+     *
+     * @param transfers переводы.
+     * @return результаты в порядке переводов.
+     */
+    public CompletableFuture<List<TransferResult>> applyTransfers(
+            final Collection<Transfer> transfers) {
+        return supply(() -> banking.applyTransfers(transfers));
+    }
+
+    /**
+     * Завершение приёма операций и ожидание выполнения принятых.
+     */
+    @Override
+    public void close() {
+        executor.close();
+    }
+
+    /**
+     * @param operation операция.
+     * @return завершение операции.
+     */
+    private CompletableFuture<Void> run(final Runnable operation) {
+        return supply(() -> {
+            operation.run();
+            return null;
+        });
+    }
+
+    /**
+     * @param operation операция.
+     * @param <T>       тип результата.
+     * @return результат операции.
+     */
+    private <T> CompletableFuture<T> supply(final Operation<T> operation) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        executor.execute(() -> {
+            try {
+                result.complete(operation.call());
+            } catch (Throwable ex) {
+                result.completeExceptionally(ex);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Операция, которая может завершиться проверяемым исключением.
+     *
+     * @param <T> тип результата.
+     */
+    @FunctionalInterface
+    private interface Operation<T> {
+        /**
+         * @return результат операции.
+         * @throws Exception ошибка операции.
+         */
+        T call() throws Exception;
+    }
+}
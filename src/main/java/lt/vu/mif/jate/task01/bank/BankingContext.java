@@ -0,0 +1,90 @@
+package lt.vu.mif.jate.task01.bank;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Контекст банка: банк, конвертер и справочники, из которых они построены.
+ * Контекст передаётся счетам при создании, поэтому операции со счётом не
+ * обращаются к синглтонам и не захватывают общих блокировок. Контексты не
+ * зависят друг от друга, в одной JVM их может быть несколько; контекст по
+ * умолчанию возвращают {@link Banking#getInstance()} и
+ * {@link Converter#getInstance()}.
+ */
+public final class BankingContext {
+    /**
+     * Конвертер.
+     */
+    private final Converter converter;
+    /**
+     * Банк.
+     */
+    private final Banking banking;
+
+    /**
+     * Контекст со справочниками из {@link Banking#RESOURCES_PATH}.
+     */
+    public BankingContext() {
+        this(Paths.get(Banking.RESOURCES_PATH));
+    }
+
+    /**
+     * Контекст со справочниками из каталога. Образ справочников
+     * отображается один раз и используется и банком, и конвертером.
+     *
+     * @param resources каталог справочников.
+     */
+    public BankingContext(final Path resources) {
+        ReferenceImage image = ReferenceImage.open(resources);
+        converter = new Converter(resources, image);
+        banking = new Banking(this, resources, image);
+    }
+
+    /**
+     * Контекст отдельно созданного банка и его конвертера.
+     *
+     * @param pBanking   банк.
+     * @param pConverter конвертер.
+     */
+    BankingContext(final Banking pBanking, final Converter pConverter) {
+        banking = pBanking;
+        converter = pConverter;
+    }
+
+    /**
+     * @return контекст по умолчанию, создаётся при первом обращении.
+     */
+    public static BankingContext getDefault() {
+        return Default.CONTEXT;
+    }
+
+    /**
+     * @return банк.
+     */
+    public Banking getBanking() {
+        return banking;
+    }
+
+    /**
+     * @return конвертер.
+     */
+    public Converter getConverter() {
+        return converter;
+    }
+
+    /**
+     * Ленивая инициализация контекста по умолчанию загрузкой класса.
+     */
+    private static final class Default {
+        /**
+         * Контекст по умолчанию.
+         */
+        private static final BankingContext CONTEXT = new BankingContext();
+
+        /**
+         * Держатель контекста.
+         */
+        private Default() {
+        }
+    }
+}
@@ -0,0 +1,315 @@
+package lt.vu.mif.jate.task01.bank;
+
+import java.io.Closeable;
+import java.math.BigDecimal;
+import java.util.Currency;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Выполнение операций со счетами в однопоточных сегментах.
+ * Счета распределяются по сегментам по коду банка (или по международному
+ * номеру, если банка нет). Каждый сегмент выполняет команды своих счетов
+ * по очереди в собственном потоке. Без журнала зачисление, списание и
+ * перевод внутри сегмента для счетов {@link BalanceMode#ATOMIC} не берут
+ * блокировок счетов: перевод выполняется списанием и зачислением подряд в
+ * потоке сегмента, а отклонённое зачисление возвращается отправителю.
+ * Неатомарные остатки и остатки с журналом изменяются под блокировкой
+ * счёта, чтобы снимок не видел их частично изменёнными; с журналом
+ * перевод внутри сегмента пишется одним кадром под блокировками обоих
+ * счетов. В сегменте эти блокировки не соперничают. Принадлежность счетов
+ * сегментам не проверяется: счета, обслуживаемые сегментами, должны
+ * изменяться только через них.
+ * Перевод между сегментами выполняется в два шага: списание в сегменте
+ * отправителя и зачисление в сегменте получателя; если зачисление
+ * отклонено, третьим шагом сумма возвращается отправителю. Между шагами
+ * сумма находится в пути и не видна ни на одном из счетов. Если не
+ * удался и возврат, перевод завершается {@link IllegalStateException}
+ * с исходным отказом в качестве причины и ошибкой возврата среди его
+ * подавленных исключений.
+ */
+public final class BankingShards implements Closeable {
+    /**
+     * Время ожидания завершения команд при закрытии, в секундах.
+     */
+    private static final long CLOSE_TIMEOUT = 60;
+    /**
+     * Множитель перемешивания ключа сегмента: близкие коды банков
+     * попадают в разные сегменты.
+     */
+    private static final int HASH_MULTIPLIER = 0x9E3779B9;
+    /**
+     * Сдвиг перемешивания ключа сегмента.
+     */
+    private static final int HASH_SHIFT = 16;
+    /**
+     * Потоки сегментов.
+     */
+    private final ExecutorService[] shards;
+    /**
+     * Количество незавершённых переводов между сегментами.
+     */
+    private final AtomicInteger transfers = new AtomicInteger();
+    /**
+     * Монитор ожидания завершения переводов.
+     */
+    private final Object transfersDone = new Object();
+
+    /**
+     * @param pShards количество сегментов.
+     */
+    public BankingShards(final int pShards) {
+        if (pShards < 1) {
+            throw new IllegalArgumentException();
+        }
+        shards = new ExecutorService[pShards];
+        for (int i = 0; i < pShards; i++) {
+            String name = "banking-shard-" + i;
+            shards[i] = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, name);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * @param account счёт.
+     * @return номер сегмента счёта.
+     */
+    public int shardOf(final Account account) {
+        Bank bank = account.getBank();
+        int key;
+        if (bank == null) {
+            key = account.toString().hashCode();
+        } else {
+            key = bank.getCode();
+        }
+        return Math.floorMod(Integer.rotateLeft(key * HASH_MULTIPLIER,
+                HASH_SHIFT), shards.length);
+    }
+
+    /**
+     * Положить деньги на счёт.
+     *
+     * @param account      счёт.
+     * @param amount       сумма.
+     * @param currencyCode код валюты.
+     * @return завершение операции.
+     */
+    public CompletableFuture<Void> credit(final Account account,
+                                          final BigDecimal amount,
+                                          final String currencyCode) {
+        return run(shardOf(account),
+                () -> account.credit(amount, currencyCode));
+    }
+
+    /**
+     * Снять деньги со счёта.
+     *
+     * @param account      счёт.
+     * @param amount       сумма.
+     * @param currencyCode код валюты.
+     * @return завершение операции.
+     */
+    public CompletableFuture<Void> debit(final Account account,
+                                         final BigDecimal amount,
+                                         final String currencyCode) {
+        return run(shardOf(account),
+                () -> account.debit(amount, currencyCode));
+    }
+
+    /**
+     * Остаток счёта, прочитанный в его сегменте.
+     *
+     * @param account      счёт.
+     * @param currencyCode код валюты.
+     * @return остаток.
+     */
+    public CompletableFuture<BigDecimal> balance(final Account account,
+                                                 final String currencyCode) {
+        return supply(shardOf(account),
+                () -> account.balance(currencyCode));
+    }
+
+    /**
+     * Перевести деньги со счёта на счёт.
+     *
+     * @param from         счёт отправителя.
+     * @param to           счёт получателя.
+     * @param amount       сумма.
+     * @param currencyCode код валюты.
+     * @return завершение перевода; при отказе завершается исключением
+     * отказа, а списанная сумма возвращается отправителю, при неудачном
+     * возврате завершается {@link IllegalStateException}.
+     */
+    public CompletableFuture<Void> transfer(final Account from,
+                                            final Account to,
+                                            final BigDecimal amount,
+                                            final String currencyCode) {
+        int source = shardOf(from);
+        int target = shardOf(to);
+        if (source == target && from.hasJournal()) {
+            return run(source,
+                    () -> from.debit(amount, currencyCode, to));
+        } else if (source == target) {
+            return run(source, () -> move(from, to, amount, currencyCode));
+        }
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        transfers.incrementAndGet();
+        result.whenComplete((ignored, error) -> {
+            if (transfers.decrementAndGet() == 0) {
+                synchronized (transfersDone) {
+                    transfersDone.notifyAll();
+                }
+            }
+        });
+        run(source, () -> from.debit(amount, currencyCode))
+                .whenComplete((ignored, error) -> {
+                    if (error == null) {
+                        creditOrRefund(from, to, amount, currencyCode,
+                                result);
+                    } else {
+                        result.completeExceptionally(error);
+                    }
+                });
+        return result;
+    }
+
+    /**
+     * Перевод внутри сегмента без общей блокировки счетов: списание и
+     * зачисление подряд в потоке сегмента; отклонённое зачисление
+     * возвращается отправителю.
+     *
+     * @param from         счёт отправителя.
+     * @param to           счёт получателя.
+     * @param amount       сумма.
+     * @param currencyCode код валюты.
+     */
+    private static void move(final Account from,
+                             final Account to,
+                             final BigDecimal amount,
+                             final String currencyCode) {
+        from.debit(amount, currencyCode);
+        try {
+            to.credit(amount, currencyCode);
+        } catch (RuntimeException ex) {
+            from.deposit(Money.of(amount,
+                    Currency.getInstance(currencyCode)));
+            throw ex;
+        }
+    }
+
+    /**
+     * Второй шаг перевода между сегментами: зачисление получателю или,
+     * при отказе, возврат суммы отправителю.
+     *
+     * @param from         счёт отправителя.
+     * @param to           счёт получателя.
+     * @param amount       сумма.
+     * @param currencyCode код валюты.
+     * @param result       завершение перевода.
+     */
+    private void creditOrRefund(final Account from,
+                                final Account to,
+                                final BigDecimal amount,
+                                final String currencyCode,
+                                final CompletableFuture<Void> result) {
+        run(shardOf(to), () -> to.credit(amount, currencyCode))
+                .whenComplete((ignored, error) -> {
+                    if (error == null) {
+                        result.complete(null);
+                        return;
+                    }
+                    run(shardOf(from), () -> from.deposit(Money.of(amount,
+                            Currency.getInstance(currencyCode))))
+                            .whenComplete((refunded, refundError) -> {
+                                if (refundError == null) {
+                                    result.completeExceptionally(error);
+                                    return;
+                                }
+                                error.addSuppressed(refundError);
+                                result.completeExceptionally(
+                                        new IllegalStateException(
+                                                "Refund to " + from
+                                                + " failed, transfer lost",
+                                                error));
+                            });
+                });
+    }
+
+    /**
+     * Ожидание незавершённых переводов, завершение приёма команд и
+     * ожидание выполнения принятых; каждое ожидание ограничено
+     * {@value #CLOSE_TIMEOUT} секундами.
+     */
+    @Override
+    public void close() {
+        try {
+            long deadline = System.nanoTime()
+                    + TimeUnit.SECONDS.toNanos(CLOSE_TIMEOUT);
+            synchronized (transfersDone) {
+                long left = deadline - System.nanoTime();
+                while (transfers.get() > 0 && left > 0) {
+                    TimeUnit.NANOSECONDS.timedWait(transfersDone, left);
+                    left = deadline - System.nanoTime();
+                }
+            }
+            for (ExecutorService shard : shards) {
+                shard.shutdown();
+            }
+            for (ExecutorService shard : shards) {
+                shard.awaitTermination(CLOSE_TIMEOUT, TimeUnit.SECONDS);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @param shard   сегмент.
+     * @param command команда.
+     * @return завершение команды.
+     */
+    private CompletableFuture<Void> run(final int shard,
+                                        final Runnable command) {
+        return supply(shard, () -> {
+            command.run();
+            return null;
+        });
+    }
+
+    /**
+     * Выполнение команды в сегменте. В отличие от
+     * {@link CompletableFuture#supplyAsync}, ошибка команды передаётся в
+     * результат как есть, без обёртки {@code CompletionException}. Если
+     * сегмент не принял команду, например после {@link #close()}, результат
+     * завершается исключением отказа.
+     *
+     * @param shard   сегмент.
+     * @param command команда.
+     * @param <T>     тип результата.
+     * @return результат команды.
+     */
+    private <T> CompletableFuture<T> supply(final int shard,
+                                            final Supplier<T> command) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        try {
+            shards[shard].execute(() -> {
+                try {
+                    result.complete(command.get());
+                } catch (Throwable ex) {
+                    result.completeExceptionally(ex);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            result.completeExceptionally(ex);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,162 @@
+package lt.vu.mif.jate.task01.bank;
+
+import java.util.Arrays;
+
+/**
+ * Компактное хранилище остатков.
+ * Пока на счёте немного валют, остатки хранятся в коротких массивах пар
+ * валюта-сумма. При превышении {@link #SPARSE_LIMIT} хранилище переходит
+ * на плотный массив, индексированный номером валюты.
+ * Не потокобезопасно.
+ */
+final class CompactBalances implements Balances {
+    /**
+     * Начальный размер разреженных массивов.
+     */
+    private static final int INITIAL_SIZE = 2;
+    /**
+     * Максимальное количество валют в разреженном виде.
+     */
+    private static final int SPARSE_LIMIT = 8;
+    /**
+     * Номера валют в разреженном виде.
+     */
+    private short[] currencies;
+    /**
+     * Остатки в разреженном виде.
+     */
+    private long[] amounts;
+    /**
+     * Количество занятых ячеек в разреженном виде.
+     */
+    private int size;
+    /**
+     * Остатки в плотном виде.
+     */
+    private long[] dense;
+
+    @Override
+    public long get(final int currency) {
+        if (dense != null) {
+            return dense[currency];
+        }
+        int slot = find(currency);
+        if (slot < 0) {
+            return 0;
+        }
+        return amounts[slot];
+    }
+
+    @Override
+    public void add(final int currency, final long delta) {
+        if (dense != null) {
+            dense[currency] = Math.addExact(dense[currency], delta);
+            return;
+        }
+        int slot = find(currency);
+        if (slot >= 0) {
+            long amount = Math.addExact(amounts[slot], delta);
+            if (amount == 0) {
+                remove(slot);
+            } else {
+                amounts[slot] = amount;
+            }
+        } else if (delta != 0) {
+            insert(currency, delta);
+        }
+    }
+
+    @Override
+    public boolean compareAndSet(final int currency,
+                                 final long expected,
+                                 final long update) {
+        if (get(currency) != expected) {
+            return false;
+        }
+        add(currency, update - expected);
+        return true;
+    }
+
+    @Override
+    public int slots() {
+        if (dense != null) {
+            return dense.length;
+        }
+        return size;
+    }
+
+    @Override
+    public int currencyAt(final int slot) {
+        if (dense != null) {
+            return slot;
+        }
+        return currencies[slot];
+    }
+
+    @Override
+    public long amountAt(final int slot) {
+        if (dense != null) {
+            return dense[slot];
+        }
+        return amounts[slot];
+    }
+
+    @Override
+    public boolean isAtomic() {
+        return false;
+    }
+
+    /**
+     * @param currency номер валюты.
+     * @return ячейка валюты в разреженном виде или -1.
+     */
+    private int find(final int currency) {
+        for (int i = 0; i < size; i++) {
+            if (currencies[i] == currency) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Добавление валюты, с переходом на плотный вид при необходимости.
+     *
+     * @param currency номер валюты.
+     * @param amount   остаток.
+     */
+    private void insert(final int currency, final long amount) {
+        if (size == SPARSE_LIMIT) {
+            dense = new long[CurrencyId.capacity()];
+            for (int i = 0; i < size; i++) {
+                dense[currencies[i]] = amounts[i];
+            }
+            dense[currency] = amount;
+            currencies = null;
+            amounts = null;
+            size = 0;
+            return;
+        }
+        if (currencies == null) {
+            currencies = new short[INITIAL_SIZE];
+            amounts = new long[INITIAL_SIZE];
+        } else if (size == currencies.length) {
+            currencies = Arrays.copyOf(currencies, size * 2);
+            amounts = Arrays.copyOf(amounts, size * 2);
+        }
+        currencies[size] = (short) currency;
+        amounts[size] = amount;
+        size++;
+    }
+
+    /**
+     * Удаление ячейки разреженного вида.
+     *
+     * @param slot ячейка.
+     */
+    private void remove(final int slot) {
+        size--;
+        currencies[slot] = currencies[size];
+        amounts[slot] = amounts[size];
+    }
+}
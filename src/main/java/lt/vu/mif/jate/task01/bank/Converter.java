@@ -1,15 +1,21 @@
 package lt.vu.mif.jate.task01.bank;
 
 import java.io.BufferedReader;
-import java.io.FileInputStream;
+import java.io.Closeable;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Instant;
 import java.util.Currency;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.Set;
 
 import static lt.vu.mif.jate.task01.bank.Banking.RESOURCES_PATH;
@@ -21,65 +27,263 @@ public class Converter {
     /**
      * Режим округдения.
      */
-    private static final int SCALE = 2;
+    private static final int SCALE = Money.SCALE;
     /**
-     * Синглтон конвертера.
+     * Максимальная степень десяти, помещающаяся в long.
      */
-    private static Converter instance;
+    private static final int MAX_POWER = 18;
+    /**
+     * Основание системы счисления.
+     */
+    private static final int RADIX = 10;
+    /**
+     * Степени десяти.
+     */
+    private static final long[] POWERS_OF_TEN = new long[MAX_POWER + 1];
+    /**
+     * Сдвиг знакового бита произведения в старшее слово.
+     */
+    private static final int BITS_SHIFT = 63;
+    /**
+     * Каталог справочников.
+     */
+    private final Path resources;
     /**
      * Базовая валюта.
      */
     private Currency baseCurrency;
     /**
-     * Курсы валют.
+     * Текущий набор курсов валют или null, пока курсы не разобраны из
+     * образа.
+     */
+    private volatile RateSnapshot rates = RateSnapshot.empty();
+    /**
+     * Образ, курсы из которого ещё не разобраны, или null.
+     */
+    private ReferenceImage image;
+    /**
+     * История курсов валют.
      */
-    private Map<Currency, Rate> rates;
+    private volatile RateHistory history = RateHistory.empty();
 
-    {
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i <= MAX_POWER; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * RADIX;
+        }
+    }
+
+    /**
+     * Конвертер с курсами из {@link Banking#RESOURCES_PATH}.
+     */
+    public Converter() {
+        this(Paths.get(RESOURCES_PATH));
+    }
+
+    /**
+     * Конвертер с курсами из каталога: из скомпилированного образа
+     * {@link ReferenceImage}, если он есть и не устарел, иначе из текстового
+     * файла.
+     *
+     * @param pResources каталог справочников.
+     */
+    public Converter(final Path pResources) {
+        this(pResources, ReferenceImage.open(pResources));
+    }
+
+    /**
+     * Конвертер с курсами из уже открытого образа; курсы из образа
+     * разбираются при первом обращении.
+     *
+     * @param pResources каталог справочников.
+     * @param pImage     образ справочников каталога или null.
+     */
+    Converter(final Path pResources, final ReferenceImage pImage) {
+        resources = pResources;
         baseCurrency = Currency.getInstance("EUR");
-        try (BufferedReader ratesBufferedReader = new BufferedReader(
-                new InputStreamReader(
-                        new FileInputStream(RESOURCES_PATH + "rates.txt"),
-                        StandardCharsets.UTF_8));) {
-            rates = readRates(ratesBufferedReader);
+        if (pImage != null) {
+            image = pImage;
+            rates = null;
+            return;
+        }
+        try {
+            updateRates(pResources.resolve(ReferenceImage.RATES_FILE));
         } catch (IOException ignored) {
         }
     }
 
     /**
-     * @return объект конвертера.
+     * @return текущий набор курсов.
+     */
+    private RateSnapshot rates() {
+        RateSnapshot current = rates;
+        if (current == null) {
+            current = loadImageRates();
+        }
+        return current;
+    }
+
+    /**
+     * Разбор курсов из образа при первом обращении.
+     *
+     * @return текущий набор курсов.
+     */
+    private synchronized RateSnapshot loadImageRates() {
+        if (rates == null) {
+            rates = image.rates(1);
+            image = null;
+        }
+        return rates;
+    }
+
+    /**
+     * @return конвертер контекста по умолчанию.
      */
-    public static synchronized Converter getInstance() {
-        if (instance == null) {
-            instance = new Converter();
+    public static Converter getInstance() {
+        return BankingContext.getDefault().getConverter();
+    }
+
+    /**
+     * Загрузка курсов валют из файла, см. {@link #updateRates(BufferedReader)}.
+     *
+     * @param file файл курсов.
+     * @throws IOException ошибка чтения, курсы не изменяются.
+     */
+    public final void updateRates(final Path file) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file,
+                StandardCharsets.UTF_8)) {
+            updateRates(reader);
         }
-        return instance;
     }
 
     /**
-     * Метод чтения курсов валют из файла.
+     * Замена курсов валют. Новые курсы становятся видны все сразу под
+     * следующим номером версии; начатые конвертации завершаются по старым.
      *
-     * @param ratesBufferedReader ридер файла.
-     * @return курсы валют.
-     * @throws IOException ошибка чтения.
+     * @param reader ридер курсов в формате
+     *               {@code КОД:в базовую:из базовой}.
+     * @throws IOException ошибка чтения, курсы не изменяются.
      */
-    private Map<Currency, Rate> readRates(
-            final BufferedReader ratesBufferedReader)
+    public final synchronized void updateRates(final BufferedReader reader)
             throws IOException {
-        Map<Currency, Rate> newRates = new HashMap<>();
-        String rateString;
-        while ((rateString = ratesBufferedReader.readLine()) != null) {
-            String[] rateAttributes = rateString.split(":");
-            String currencyCode = rateAttributes[0];
-            try {
-                Currency currency = Currency.getInstance(currencyCode);
-                BigDecimal to = new BigDecimal(rateAttributes[1]);
-                BigDecimal from = new BigDecimal(rateAttributes[2]);
-                newRates.put(currency, new Rate(to, from));
-            } catch (IllegalArgumentException ignored) {
+        rates = RateSnapshot.read(rates().getVersion() + 1, reader);
+    }
+
+    /**
+     * Загрузка истории курсов из файла, см.
+     * {@link #loadRateHistory(BufferedReader)}.
+     *
+     * @param file файл истории курсов.
+     * @throws IOException ошибка чтения, история не изменяется.
+     */
+    public final void loadRateHistory(final Path file) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file,
+                StandardCharsets.UTF_8)) {
+            loadRateHistory(reader);
+        }
+    }
+
+    /**
+     * Замена истории курсов валют.
+     *
+     * @param reader ридер истории в формате
+     *               {@code ГГГГ-ММ-ДД:КОД:в базовую:из базовой}; курс
+     *               действует с начала дня по UTC до следующего курса.
+     * @throws IOException ошибка чтения, история не изменяется.
+     */
+    public final void loadRateHistory(final BufferedReader reader)
+            throws IOException {
+        history = RateHistory.read(reader, baseCurrency);
+    }
+
+    /**
+     * Повторная загрузка изменившегося файла курсов. Файл без единого
+     * курса, например ещё не дописанный, пропускается.
+     *
+     * @param file файл курсов.
+     */
+    private synchronized void reloadRates(final Path file) {
+        try (BufferedReader reader = Files.newBufferedReader(file,
+                StandardCharsets.UTF_8)) {
+            RateSnapshot loaded = RateSnapshot.read(rates().getVersion() + 1,
+                    reader);
+            if (!loaded.getCurrencies().isEmpty()) {
+                rates = loaded;
+            }
+        } catch (IOException ignored) {
+        }
+    }
+
+    /**
+     * Отслеживание изменений файла курсов по умолчанию.
+     *
+     * @return наблюдатель; закрытие прекращает отслеживание.
+     * @throws IOException ошибка подписки на изменения.
+     */
+    public final Closeable watchRates() throws IOException {
+        return watchRates(resources.resolve(ReferenceImage.RATES_FILE));
+    }
+
+    /**
+     * Отслеживание изменений файла курсов: после каждого изменения курсы
+     * загружаются заново в фоновом потоке. Если файл не читается, остаются
+     * прежние курсы. Файл лучше заменять целиком (запись во временный файл
+     * и переименование), чтобы не прочитать его наполовину записанным.
+     *
+     * @param file файл курсов.
+     * @return наблюдатель; закрытие прекращает отслеживание.
+     * @throws IOException ошибка подписки на изменения.
+     */
+    public final Closeable watchRates(final Path file) throws IOException {
+        Path absolute = file.toAbsolutePath();
+        Path directory = absolute.getParent();
+        Path name = absolute.getFileName();
+        if (directory == null || name == null) {
+            throw new IllegalArgumentException(file.toString());
+        }
+        WatchService watcher = directory.getFileSystem().newWatchService();
+        try {
+            directory.register(watcher,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException ex) {
+            watcher.close();
+            throw ex;
+        }
+        Thread thread = new Thread(() -> watch(watcher, absolute, name),
+                "rates-watcher");
+        thread.setDaemon(true);
+        thread.start();
+        return watcher;
+    }
+
+    /**
+     * Цикл отслеживания изменений файла курсов.
+     *
+     * @param watcher наблюдатель.
+     * @param file    файл курсов.
+     * @param name    имя файла курсов.
+     */
+    private void watch(final WatchService watcher,
+                       final Path file,
+                       final Path name) {
+        try {
+            while (true) {
+                WatchKey key = watcher.take();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    changed |= name.equals(event.context());
+                }
+                if (changed) {
+                    reloadRates(file);
+                }
+                if (!key.reset()) {
+                    return;
+                }
             }
+        } catch (InterruptedException | ClosedWatchServiceException ex) {
+            return;
         }
-        return newRates;
     }
 
     /**
@@ -89,11 +293,20 @@ public class Converter {
         return baseCurrency;
     }
 
+    /**
+     * Версия курсов для проверки актуальности сконвертированных сумм.
+     *
+     * @return версия курсов.
+     */
+    public final long getRateVersion() {
+        return rates().getVersion();
+    }
+
     /**
      * @return валюты.
      */
     public final Set<Currency> getCurrencies() {
-        return rates.keySet();
+        return rates().getCurrencies();
     }
 
     /**
@@ -101,7 +314,7 @@ public class Converter {
      * @return курс валюта относительно базовой.
      */
     public final BigDecimal getRateToBase(final String currencyCode) {
-        return getRateToBase(Currency.getInstance(currencyCode));
+        return getRateToBase(currency(currencyCode));
     }
 
     /**
@@ -109,7 +322,7 @@ public class Converter {
      * @return курс валюта относительно базовой.
      */
     public final BigDecimal getRateToBase(final Currency currency) {
-        return rates.get(currency).to;
+        return rates().getRateToBase(currency);
     }
 
     /**
@@ -117,7 +330,7 @@ public class Converter {
      * @return курс базовой относительно валюты.
      */
     public final BigDecimal getRateFromBase(final String currencyCode) {
-        return getRateFromBase(Currency.getInstance(currencyCode));
+        return getRateFromBase(currency(currencyCode));
     }
 
     /**
@@ -125,7 +338,7 @@ public class Converter {
      * @return курс базовой относительно валюты.
      */
     public final BigDecimal getRateFromBase(final Currency currency) {
-        return rates.get(currency).from;
+        return rates().getRateFromBase(currency);
     }
 
     /**
@@ -136,8 +349,8 @@ public class Converter {
      */
     public final BigDecimal toBase(final String amountString,
                                    final String currencyCode) {
-        return toBase(parseBigDecimal(amountString),
-                Currency.getInstance(currencyCode))
+        return toBase(parseAmount(amountString),
+                currency(currencyCode))
                 .setScale(SCALE, RoundingMode.HALF_UP);
     }
 
@@ -160,8 +373,8 @@ public class Converter {
      */
     public final BigDecimal fromBase(final String amountString,
                                      final String currencyCode) {
-        return fromBase(parseBigDecimal(amountString),
-                Currency.getInstance(currencyCode))
+        return fromBase(parseAmount(amountString),
+                currency(currencyCode))
                 .setScale(SCALE, RoundingMode.HALF_UP);
     }
 
@@ -186,10 +399,24 @@ public class Converter {
     public final BigDecimal convert(final String amountString,
                                     final String toCurrencyCode,
                                     final String fromCurrencyCode) {
-        return convert(parseBigDecimal(amountString),
-                Currency.getInstance(toCurrencyCode),
-                Currency.getInstance(fromCurrencyCode))
-                .setScale(SCALE, RoundingMode.HALF_UP);
+        long minorUnits;
+        try {
+            minorUnits = AmountParser.parseMinor(amountString);
+        } catch (ArithmeticException ex) {
+            return convert(parseBigDecimal(amountString),
+                    currency(toCurrencyCode),
+                    currency(fromCurrencyCode))
+                    .setScale(SCALE, RoundingMode.HALF_UP);
+        }
+        int from = CurrencyId.of(toCurrencyCode);
+        int to = CurrencyId.of(fromCurrencyCode);
+        try {
+            return BigDecimal.valueOf(convertMinor(minorUnits, from, to),
+                    SCALE);
+        } catch (ArithmeticException ex) {
+            return convertExact(BigDecimal.valueOf(minorUnits, SCALE),
+                    CurrencyId.currency(from), CurrencyId.currency(to));
+        }
     }
 
     /**
@@ -205,10 +432,264 @@ public class Converter {
         if (toCurrency.equals(fromCurrency)) {
             return amount;
         }
-        return toBase(fromBase(checkRange(amount), fromCurrency), toCurrency)
+        checkRange(amount);
+        try {
+            return convert(Money.of(amount, toCurrency), fromCurrency)
+                    .toBigDecimal();
+        } catch (ArithmeticException ex) {
+            return convertExact(amount, toCurrency, fromCurrency);
+        }
+    }
+
+    /**
+     * Конвертация из валюты в валюту по курсам, действовавшим в момент
+     * времени.
+     * @param amount сумма.
+     * @param from валюта из которой выполняется конвертация.
+     * @param to валюта в которую выполняется конвертация.
+     * @param asOf момент времени.
+     * @return сконвертированная сумма.
+     * @throws IllegalArgumentException в истории нет курса на момент.
+     */
+    public final BigDecimal convert(final BigDecimal amount,
+                                    final Currency from,
+                                    final Currency to,
+                                    final Instant asOf) {
+        if (from.equals(to)) {
+            return amount;
+        }
+        return convertAsOf(checkRange(amount), from, to, asOf);
+    }
+
+    /**
+     * Конвертация из валюты в валюту по истории курсов.
+     * @param amount сумма.
+     * @param from валюта из которой выполняется конвертация.
+     * @param to валюта в которую выполняется конвертация.
+     * @param asOf момент времени.
+     * @return сконвертированная сумма.
+     */
+    private BigDecimal convertAsOf(final BigDecimal amount,
+                                   final Currency from,
+                                   final Currency to,
+                                   final Instant asOf) {
+        RateHistory current = history;
+        long time = asOf.toEpochMilli();
+        return amount
+                .multiply(current.getRateFromBase(CurrencyId.of(to), time))
+                .multiply(current.getRateToBase(CurrencyId.of(from), time))
                 .setScale(SCALE, RoundingMode.HALF_UP);
     }
 
+    /**
+     * Конвертация суммы в другую валюту по курсам, действовавшим в момент
+     * времени.
+     * @param amount сумма.
+     * @param currency валюта в которую выполняется конвертация.
+     * @param asOf момент времени.
+     * @return сконвертированная сумма.
+     * @throws IllegalArgumentException в истории нет курса на момент.
+     */
+    public final Money convert(final Money amount,
+                               final Currency currency,
+                               final Instant asOf) {
+        if (amount.getCurrency().equals(currency)) {
+            return amount;
+        }
+        return Money.of(convertAsOf(amount.toBigDecimal(),
+                amount.getCurrency(), currency, asOf), currency);
+    }
+
+    /**
+     * Конвертация суммы в другую валюту.
+     * @param amount сумма.
+     * @param currency валюта в которую выполняется конвертация.
+     * @return сконвертированная сумма.
+     * @throws ArithmeticException сумма не помещается в long.
+     */
+    public final Money convert(final Money amount,
+                               final Currency currency) {
+        if (amount.getCurrency().equals(currency)) {
+            return amount;
+        }
+        return Money.ofMinor(convertMinor(amount.getMinorUnits(),
+                amount.getCurrency(), currency), currency);
+    }
+
+    /**
+     * Конвертация суммы в минимальных единицах.
+     * @param minorUnits сумма в минимальных единицах.
+     * @param from валюта из которой выполняется конвертация.
+     * @param to валюта в которую выполняется конвертация.
+     * @return сконвертированная сумма в минимальных единицах.
+     * @throws ArithmeticException сумма не помещается в long.
+     */
+    final long convertMinor(final long minorUnits,
+                            final Currency from,
+                            final Currency to) {
+        if (from.equals(to)) {
+            return minorUnits;
+        }
+        return convertMinor(minorUnits, CurrencyId.of(from),
+                CurrencyId.of(to));
+    }
+
+    /**
+     * Конвертация суммы в минимальных единицах по номерам валют.
+     * Номера валют разрешаются один раз через {@link CurrencyId}, после
+     * чего конвертация обходится без поиска валют по кодам.
+     * @param minorUnits сумма в минимальных единицах.
+     * @param from номер валюты из которой выполняется конвертация.
+     * @param to номер валюты в которую выполняется конвертация.
+     * @return сконвертированная сумма в минимальных единицах.
+     * @throws ArithmeticException сумма не помещается в long.
+     */
+    public final long convertMinor(final long minorUnits,
+                                   final int from,
+                                   final int to) {
+        if (from == to) {
+            return minorUnits;
+        }
+        return convertMinor(rates(), minorUnits, from, to);
+    }
+
+    /**
+     * Конвертация суммы в минимальных единицах по заданному набору курсов.
+     * @param current набор курсов.
+     * @param minorUnits сумма в минимальных единицах.
+     * @param from номер валюты из которой выполняется конвертация.
+     * @param to номер валюты в которую выполняется конвертация.
+     * @return сконвертированная сумма в минимальных единицах.
+     * @throws ArithmeticException сумма не помещается в long.
+     */
+    private static long convertMinor(final RateSnapshot current,
+                                     final long minorUnits,
+                                     final int from,
+                                     final int to) {
+        int cell = current.cell(from, to);
+        int scale = current.crossScale(cell);
+        if (scale != RateSnapshot.INEXACT) {
+            try {
+                return divideHalfUp(Math.multiplyExact(minorUnits,
+                        current.crossUnscaled(cell)), POWERS_OF_TEN[scale]);
+            } catch (ArithmeticException ignored) {
+            }
+        }
+        return Money.of(BigDecimal.valueOf(minorUnits, SCALE)
+                .multiply(current.crossRate(cell))
+                .setScale(SCALE, RoundingMode.HALF_UP),
+                CurrencyId.currency(to)).getMinorUnits();
+    }
+
+    /**
+     * Пакетная конвертация сумм в одну валюту, результат совпадает с
+     * поэлементной конвертацией. Кросс-курсы к валюте выбираются один раз,
+     * после чего каждая сумма - умножение и деление в long; суммы, которые
+     * не помещаются в long, конвертируются через {@link BigDecimal}. Весь
+     * пакет конвертируется по одному набору курсов.
+     * @param minorUnits суммы в минимальных единицах.
+     * @param currencies номера валют сумм, см. {@link CurrencyId}.
+     * @param currency валюта в которую выполняется конвертация.
+     * @param result сконвертированные суммы в минимальных единицах, может
+     *               совпадать с {@code minorUnits}.
+     * @throws ArithmeticException сумма не помещается в long.
+     * @throws IllegalArgumentException длины массивов различаются или
+     *                                  для валюты нет курса.
+     */
+    public final void convertMinor(final long[] minorUnits,
+                                   final int[] currencies,
+                                   final Currency currency,
+                                   final long[] result) {
+        if (minorUnits.length != currencies.length
+                || minorUnits.length != result.length) {
+            throw new IllegalArgumentException("Array lengths differ");
+        }
+        RateSnapshot current = rates();
+        int to = CurrencyId.of(currency);
+        long[] unscaled = new long[CurrencyId.capacity()];
+        int[] scales = new int[CurrencyId.capacity()];
+        current.column(to, unscaled, scales);
+        for (int i = 0; i < minorUnits.length; i++) {
+            int from = currencies[i];
+            long amount = minorUnits[i];
+            int scale = scales[from];
+            long product = amount * unscaled[from];
+            if (scale == RateSnapshot.INEXACT
+                    || Math.multiplyHigh(amount, unscaled[from])
+                    != product >> BITS_SHIFT) {
+                result[i] = convertMinor(current, amount, from, to);
+            } else {
+                result[i] = divideHalfUp(product, POWERS_OF_TEN[scale]);
+            }
+        }
+    }
+
+    /**
+     * Номер валюты для пакетной конвертации, см. {@link CurrencyId}.
+     * @param currency валюта.
+     * @return номер валюты.
+     */
+    public final int getCurrencyId(final Currency currency) {
+        return CurrencyId.of(currency);
+    }
+
+    /**
+     * Конвертация из валюты в валюту без ограничений разрядности.
+     * @param amount сумма.
+     * @param from валюта из которой выполняется конвертация.
+     * @param to валюта в которую выполняется конвертация.
+     * @return скновертированная сумма.
+     */
+    private BigDecimal convertExact(final BigDecimal amount,
+                                    final Currency from,
+                                    final Currency to) {
+        RateSnapshot current = rates();
+        return amount.multiply(current.crossRate(current.cell(
+                CurrencyId.of(from), CurrencyId.of(to))))
+                .setScale(SCALE, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Деление с округлением половины от нуля.
+     * @param value делимое.
+     * @param divisor положительный делитель.
+     * @return частное.
+     */
+    private static long divideHalfUp(final long value,
+                                     final long divisor) {
+        long quotient = value / divisor;
+        long remainder = Math.abs(value % divisor);
+        if (remainder >= divisor - remainder) {
+            quotient += Long.signum(value);
+        }
+        return quotient;
+    }
+
+    /**
+     * Валюта по коду через реестр номеров валют.
+     * @param currencyCode код валюты.
+     * @return валюта.
+     * @throws IllegalArgumentException неизвестный код валюты.
+     */
+    private static Currency currency(final String currencyCode) {
+        return CurrencyId.currency(CurrencyId.of(currencyCode));
+    }
+
+    /**
+     * Получение суммы из строки разбором в минимальные единицы; суммы, не
+     * помещающиеся в long, разбираются через {@link BigDecimal}.
+     * @param amountString строка.
+     * @return сумма.
+     */
+    private BigDecimal parseAmount(final String amountString) {
+        try {
+            return BigDecimal.valueOf(AmountParser.parseMinor(amountString),
+                    SCALE);
+        } catch (ArithmeticException ex) {
+            return parseBigDecimal(amountString);
+        }
+    }
+
     /**
      * Получение числа из строки.
      * @param amountString строка.
@@ -224,34 +705,22 @@ public class Converter {
      * @return число.
      */
     public final BigDecimal checkRange(final BigDecimal amount) {
-        if (amount.stripTrailingZeros().scale() > SCALE
-                || amount.compareTo(BigDecimal.ZERO) < 0) {
+        if (amount.signum() < 0 || amount.scale() > SCALE
+                && amount.stripTrailingZeros().scale() > SCALE) {
             throw new NumberFormatException();
         }
         return amount;
     }
 
     /**
-     * Класс курса валюты.
+     * Проверка знака суммы.
+     * @param amount сумма.
+     * @return сумма.
      */
-    private static class Rate {
-        /**
-         * Курс перевода в базовую валюту.
-         */
-        private final BigDecimal to;
-        /**
-         * Курс перевода из базовой валюты.
-         */
-        private final BigDecimal from;
-
-        /**
-         * @param pTo курс перевода в базовую валюту.
-         * @param pFrom курс перевода из базовой валюты.
-         */
-        Rate(final BigDecimal pTo,
-             final BigDecimal pFrom) {
-            to = pTo;
-            from = pFrom;
+    public final Money checkRange(final Money amount) {
+        if (amount.signum() < 0) {
+            throw new NumberFormatException();
         }
+        return amount;
     }
 }
@@ -11,11 +11,13 @@ import java.util.Currency;
  */
 public class CreditAccount extends Account {
     /**
-     * Брался-ли кредит.
+     * Состояние счёта после зачисления кредита.
      */
-    private boolean isCredit;
+    private static final int CREDITED = 1;
 
     /**
+     * Счёт контекста по умолчанию.
+     *
      * @param iban международный код.
      * @param bank банк.
      * @param number номер.
@@ -24,38 +26,92 @@ public class CreditAccount extends Account {
                          final Bank bank,
                          final BigInteger number) {
         super(iban, bank, number);
-        isCredit = false;
+    }
+
+    /**
+     * @param context контекст банка.
+     * @param iban международный код.
+     * @param bank банк.
+     * @param number номер.
+     */
+    public CreditAccount(final BankingContext context,
+                         final String iban,
+                         final Bank bank,
+                         final BigInteger number) {
+        super(context, iban, bank, number);
     }
 
     @Override
     public final void credit(final BigDecimal amount,
                              final String currencyCode) {
-        if (isCredit) {
-            throw new AccountActionException();
-        }
-        isCredit = true;
-        credit(Converter.getInstance().checkRange(amount),
-                Currency.getInstance(currencyCode));
+        firstCredit(money(amount, CurrencyId.of(currencyCode)));
+    }
+
+    @Override
+    public final void credit(final BigDecimal amount,
+                             final int currency) {
+        firstCredit(money(amount, currency));
+    }
+
+    /**
+     * Единственное разрешённое зачисление. Проверка и смена состояния
+     * выполняются под блокировкой счёта, как и в пакетах переводов, а
+     * смена состояния и зачисление записываются в журнал одним кадром.
+     *
+     * @param amount сумма.
+     */
+    private void firstCredit(final Money amount) {
+        exclusive(Journal.Operation.CREDIT, () -> {
+            int state = getState();
+            PendingState pending = new PendingState(state);
+            checkCredit(amount, pending);
+            if (!compareAndSetState(state, pending.get())) {
+                throw new AccountActionException();
+            }
+            credit(amount);
+        });
     }
 
     @Override
     public final void credit(final BigDecimal amount,
                              final Currency currency) {
-        getBalance().put(currency,
-                getBalance().get(currency).add(amount));
+        credit(Money.of(amount, currency));
+    }
+
+    @Override
+    public final void credit(final Money amount) {
+        deposit(amount);
+    }
+
+    @Override
+    protected final void checkCredit(final Money amount,
+                                     final PendingState pending) {
+        if (pending.get() != 0) {
+            throw new AccountActionException();
+        }
+        pending.set(CREDITED);
     }
 
     @Override
     public final void debit(final BigDecimal amount,
                             final String currencyCode) {
-        debit(Converter.getInstance().checkRange(amount),
-                Currency.getInstance(currencyCode));
+        debit(money(amount, CurrencyId.of(currencyCode)));
+    }
+
+    @Override
+    public final void debit(final BigDecimal amount,
+                            final int currency) {
+        debit(money(amount, currency));
     }
 
     @Override
     public final void debit(final BigDecimal amount,
                             final Currency currency) {
-        getBalance().put(currency,
-                getBalance().get(currency).subtract(amount));
+        debit(Money.of(amount, currency));
+    }
+
+    @Override
+    public final void debit(final Money amount) {
+        withdraw(amount);
     }
 }
@@ -0,0 +1,139 @@
+package lt.vu.mif.jate.task01.bank;
+
+import java.util.Currency;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Реестр порядковых номеров валют.
+ * Номера выдаются подряд начиная с нуля и не меняются, поэтому по ним
+ * можно индексировать массивы. Валюты курсов регистрируются при их
+ * загрузке. Номер по трёхбуквенному коду находится в таблице,
+ * индексированной самим кодом, без {@link Currency#getInstance(String)} и
+ * хеширования; код можно разрешить один раз и дальше передавать номер.
+ */
+public final class CurrencyId {
+    /**
+     * Количество букв в коде валюты.
+     */
+    private static final int CODE_LENGTH = 3;
+    /**
+     * Количество возможных букв кода.
+     */
+    private static final int LETTERS = 26;
+    /**
+     * Максимальное количество валют.
+     */
+    private static final int CAPACITY =
+            Currency.getAvailableCurrencies().size();
+    /**
+     * Номера валют.
+     */
+    private static final Map<Currency, Integer> IDS =
+            new ConcurrentHashMap<>();
+    /**
+     * Валюты по номерам.
+     */
+    private static final Currency[] CURRENCIES = new Currency[CAPACITY];
+    /**
+     * Номера валют плюс один по упакованным кодам, ноль - код не
+     * зарегистрирован.
+     */
+    private static final AtomicIntegerArray BY_CODE =
+            new AtomicIntegerArray(LETTERS * LETTERS * LETTERS);
+
+    /**
+     * Утилитарный класс.
+     */
+    private CurrencyId() {
+    }
+
+    /**
+     * @param currency валюта.
+     * @return порядковый номер валюты.
+     */
+    public static int of(final Currency currency) {
+        Integer id = IDS.get(currency);
+        if (id == null) {
+            return register(currency);
+        }
+        return id;
+    }
+
+    /**
+     * @param currencyCode код валюты.
+     * @return порядковый номер валюты.
+     * @throws IllegalArgumentException неизвестный код валюты.
+     */
+    public static int of(final String currencyCode) {
+        int packed = pack(currencyCode);
+        if (packed >= 0) {
+            int id = BY_CODE.get(packed);
+            if (id != 0) {
+                return id - 1;
+            }
+        }
+        return of(Currency.getInstance(currencyCode));
+    }
+
+    /**
+     * @param id порядковый номер.
+     * @return валюта.
+     */
+    public static Currency currency(final int id) {
+        return CURRENCIES[id];
+    }
+
+    /**
+     * @return максимальное количество валют.
+     */
+    static int capacity() {
+        return CAPACITY;
+    }
+
+    /**
+     * Упаковка кода из трёх заглавных латинских букв в число.
+     *
+     * @param currencyCode код валюты.
+     * @return упакованный код или -1, если код не из трёх заглавных букв.
+     */
+    private static int pack(final String currencyCode) {
+        if (currencyCode.length() != CODE_LENGTH) {
+            return -1;
+        }
+        int packed = 0;
+        for (int i = 0; i < CODE_LENGTH; i++) {
+            int letter = currencyCode.charAt(i) - 'A';
+            if (letter < 0 || letter >= LETTERS) {
+                return -1;
+            }
+            packed = packed * LETTERS + letter;
+        }
+        return packed;
+    }
+
+    /**
+     * Выдача номера новой валюте.
+     *
+     * @param currency валюта.
+     * @return порядковый номер валюты.
+     */
+    private static synchronized int register(final Currency currency) {
+        Integer id = IDS.get(currency);
+        if (id != null) {
+            return id;
+        }
+        int next = IDS.size();
+        if (next == CAPACITY) {
+            throw new IllegalStateException("Too many currencies");
+        }
+        CURRENCIES[next] = currency;
+        IDS.put(currency, next);
+        int packed = pack(currency.getCurrencyCode());
+        if (packed >= 0) {
+            BY_CODE.set(packed, next + 1);
+        }
+        return next;
+    }
+}
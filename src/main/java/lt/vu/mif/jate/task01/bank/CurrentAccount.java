@@ -11,6 +11,8 @@ import java.util.Currency;
  */
 public class CurrentAccount extends Account {
     /**
+     * Счёт контекста по умолчанию.
+     *
      * @param iban международный код.
      * @param bank банк.
      * @param number номер.
@@ -21,34 +23,70 @@ public class CurrentAccount extends Account {
         super(iban, bank, number);
     }
 
+    /**
+     * @param context контекст банка.
+     * @param iban международный код.
+     * @param bank банк.
+     * @param number номер.
+     */
+    public CurrentAccount(final BankingContext context,
+                          final String iban,
+                          final Bank bank,
+                          final BigInteger number) {
+        super(context, iban, bank, number);
+    }
+
     @Override
     public final void credit(final BigDecimal amount,
                              final String currencyCode) {
-        credit(Converter.getInstance().checkRange(amount),
-                Currency.getInstance(currencyCode));
+        credit(money(amount, CurrencyId.of(currencyCode)));
+    }
+
+    @Override
+    public final void credit(final BigDecimal amount,
+                             final int currency) {
+        credit(money(amount, currency));
     }
 
     @Override
     public final void credit(final BigDecimal amount,
                              final Currency currency) {
-        getBalance().put(currency,
-                getBalance().get(currency).add(amount));
+        credit(Money.of(amount, currency));
+    }
+
+    @Override
+    public final void credit(final Money amount) {
+        deposit(amount);
     }
 
     @Override
     public final void debit(final BigDecimal amount,
                             final String currencyCode) {
-        debit(Converter.getInstance().checkRange(amount),
-                Currency.getInstance(currencyCode));
+        debit(money(amount, CurrencyId.of(currencyCode)));
+    }
+
+    @Override
+    public final void debit(final BigDecimal amount,
+                            final int currency) {
+        debit(money(amount, currency));
     }
 
     @Override
     public final void debit(final BigDecimal amount,
                             final Currency currency) {
-        if (getBalance().get(currency).compareTo(amount) < 0) {
+        debit(Money.of(amount, currency));
+    }
+
+    @Override
+    public final void debit(final Money amount) {
+        withdrawChecked(amount);
+    }
+
+    @Override
+    protected final void checkDebit(final Money amount,
+                                    final long available) {
+        if (available < amount.getMinorUnits()) {
             throw new NoFundsException();
         }
-        getBalance().put(currency,
-                getBalance().get(currency).subtract(amount));
     }
 }
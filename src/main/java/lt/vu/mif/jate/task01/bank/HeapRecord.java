@@ -0,0 +1,134 @@
+package lt.vu.mif.jate.task01.bank;
+
+import java.math.BigInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * Данные счёта в куче; остатки хранятся в {@link CompactBalances} или
+ * {@link AtomicBalances}.
+ */
+final class HeapRecord extends AccountRecord {
+    /**
+     * Атомарное изменение состояния счёта.
+     */
+    private static final AtomicIntegerFieldUpdater<HeapRecord> STATE =
+            AtomicIntegerFieldUpdater.newUpdater(HeapRecord.class, "state");
+    /**
+     * Символы 0-11 упакованного международного номера.
+     */
+    private final long keyHigh;
+    /**
+     * Символы 12-23 упакованного международного номера.
+     */
+    private final long keyMiddle;
+    /**
+     * Символы 24-35 упакованного международного номера.
+     */
+    private final long keyLow;
+    /**
+     * Международный номер, если его нельзя упаковать, иначе null.
+     */
+    private final String iban;
+    /**
+     * Банк.
+     */
+    private final Bank bank;
+    /**
+     * Номер счёта.
+     */
+    private final BigInteger number;
+    /**
+     * Остатки.
+     */
+    private final Balances balances;
+    /**
+     * Состояние счёта.
+     */
+    private volatile int state;
+    /**
+     * Позиция последнего кадра журнала, изменившего счёт.
+     */
+    private long journalPosition;
+
+    /**
+     * @param pIban     международный номер.
+     * @param pBank     банк.
+     * @param pNumber   номер счёта в банке.
+     * @param pBalances остатки.
+     */
+    HeapRecord(final String pIban,
+               final Bank pBank,
+               final BigInteger pNumber,
+               final Balances pBalances) {
+        IbanKey key = key(pIban);
+        if (key != null) {
+            keyHigh = key.high();
+            keyMiddle = key.middle();
+            keyLow = key.low();
+            iban = null;
+        } else {
+            keyHigh = 0;
+            keyMiddle = 0;
+            keyLow = 0;
+            iban = pIban;
+        }
+        bank = pBank;
+        number = pNumber;
+        balances = pBalances;
+    }
+
+    @Override
+    long keyWord(final int index) {
+        if (index == 0) {
+            return keyHigh;
+        } else if (index == 1) {
+            return keyMiddle;
+        }
+        return keyLow;
+    }
+
+    @Override
+    String unpackedIban() {
+        return iban;
+    }
+
+    @Override
+    Bank bank() {
+        return bank;
+    }
+
+    @Override
+    BigInteger number() {
+        return number;
+    }
+
+    @Override
+    int state() {
+        return state;
+    }
+
+    @Override
+    void setState(final int pState) {
+        state = pState;
+    }
+
+    @Override
+    boolean compareAndSetState(final int expected, final int update) {
+        return STATE.compareAndSet(this, expected, update);
+    }
+
+    @Override
+    long journalPosition() {
+        return journalPosition;
+    }
+
+    @Override
+    void setJournalPosition(final long position) {
+        journalPosition = position;
+    }
+
+    @Override
+    Balances balances() {
+        return balances;
+    }
+}
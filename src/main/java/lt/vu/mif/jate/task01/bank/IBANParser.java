@@ -4,9 +4,13 @@ import lt.vu.mif.jate.task01.bank.exception.BankNotFoundException;
 import lt.vu.mif.jate.task01.bank.exception.IBANException;
 
 import java.math.BigInteger;
+import java.util.Arrays;
 
 /**
  * Парсер международного кода.
+ * Шаблон страны компилируется один раз в отрезки позиций кода банка и
+ * номера счёта, которые затем читаются из кода напрямую, без промежуточных
+ * строк.
  */
 public class IBANParser {
     /**
@@ -17,6 +21,44 @@ public class IBANParser {
      * Символ кода счёта.
      */
     private static final char NUMBER_CHAR = 'c';
+    /**
+     * Количество возможных букв кода страны.
+     */
+    static final int LETTERS = 26;
+    /**
+     * Основание системы счисления.
+     */
+    private static final int RADIX = 10;
+    /**
+     * Признак неверного кода банка.
+     */
+    static final int INVALID = -1;
+    /**
+     * Модуль контрольных цифр ISO 13616.
+     */
+    private static final int MODULUS = 97;
+    /**
+     * Сумма остатка и контрольных цифр верного кода.
+     */
+    private static final int CHECK_BASE = 98;
+    /**
+     * Порог приведения остатка: пока значение меньше порога, следующая
+     * буква (два разряда) не переполняет int, поэтому деление выполняется
+     * раз в несколько символов, а не на каждом.
+     */
+    private static final int REDUCE_THRESHOLD = 20_000_000;
+    /**
+     * Длина кода страны и контрольных цифр.
+     */
+    private static final int HEADER_LENGTH = 4;
+    /**
+     * Числовое значение буквы A при проверке контрольных цифр.
+     */
+    private static final int LETTER_BASE = 10;
+    /**
+     * Максимальное количество цифр, помещающееся в long.
+     */
+    private static final int MAX_DIGITS = 18;
     /**
      * Страна.
      */
@@ -25,6 +67,14 @@ public class IBANParser {
      * Паттерн международного кода.
      */
     private final String patternString;
+    /**
+     * Отрезки позиций кода банка: начало и конец, не включая.
+     */
+    private final int[] bankSpans;
+    /**
+     * Отрезки позиций номера счёта: начало и конец, не включая.
+     */
+    private final int[] numberSpans;
 
     /**
      * @param pCountry страна.
@@ -34,6 +84,48 @@ public class IBANParser {
                       final String pPatternString) {
         country = pCountry;
         patternString = pPatternString;
+        bankSpans = spans(pPatternString, BANK_CHAR);
+        numberSpans = spans(pPatternString, NUMBER_CHAR);
+    }
+
+    /**
+     * @return страна.
+     */
+    final String getCountry() {
+        return country;
+    }
+
+    /**
+     * @return паттерн международного кода.
+     */
+    final String getPatternString() {
+        return patternString;
+    }
+
+    /**
+     * @return длина международного кода страны.
+     */
+    final int getLength() {
+        return patternString.length();
+    }
+
+    /**
+     * Номер страны по первым двум символам кода.
+     *
+     * @param iban международный код.
+     * @return номер из двух заглавных латинских букв или -1.
+     */
+    static int countryIndex(final CharSequence iban) {
+        if (iban.length() < 2) {
+            return -1;
+        }
+        int first = iban.charAt(0) - 'A';
+        int second = iban.charAt(1) - 'A';
+        if (first < 0 || first >= LETTERS
+                || second < 0 || second >= LETTERS) {
+            return -1;
+        }
+        return first * LETTERS + second;
     }
 
     /**
@@ -44,9 +136,24 @@ public class IBANParser {
      */
     public final Bank parseBank(final String iban)
             throws IBANException {
-        int code = Integer.parseInt(parseByChar(BANK_CHAR, iban));
+        return parseBank(Banking.getInstance(), iban);
+    }
+
+    /**
+     * Метод получения банка из междурадного кода.
+     * @param banking банк, в справочнике которого ищется банк счёта.
+     * @param iban международнй код.
+     * @return банк.
+     * @throws IBANException ошибка формата кода.
+     */
+    public final Bank parseBank(final Banking banking, final String iban)
+            throws IBANException {
+        checkLength(iban);
+        if (banking.isCheckDigitsValidation()) {
+            checkDigits(iban);
+        }
+        int code = bankCode(iban);
         Bank bank = null;
-        Banking banking = Banking.getInstance();
         try {
             bank = banking.getBank(country, code, true);
         } catch (BankNotFoundException ignored) {
@@ -62,32 +169,209 @@ public class IBANParser {
      */
     public final BigInteger parseNumber(final String iban)
             throws IBANException {
-        try {
-            return new BigInteger(parseByChar(NUMBER_CHAR, iban));
-        } catch (NumberFormatException ex) {
-            throw new IBANException(iban);
-        }
+        checkLength(iban);
+        return number(iban);
     }
 
     /**
-     * Метод получения строки по маске символа.
-     * @param c символ.
      * @param iban международный код.
-     * @return полученная строка.
-     * @throws IBANException ошибка формата кода.
+     * @throws IBANException длина кода не соответствует шаблону.
      */
-    private String parseByChar(final char c, final String iban)
-            throws IBANException {
+    final void checkLength(final String iban) throws IBANException {
         if (iban.length() != patternString.length()) {
             throw new IBANException(patternString.length(),
                     iban.length(), iban);
         }
-        StringBuilder result = new StringBuilder();
-        for (int i = 0; i < patternString.length(); i++) {
-            if (patternString.charAt(i) == c) {
-                result.append(iban.charAt(i));
+    }
+
+    /**
+     * Проверка контрольных цифр по ISO 13616.
+     *
+     * @param iban международный код проверенной длины.
+     * @throws IBANException неверные контрольные цифры или символы.
+     */
+    final void checkDigits(final String iban) throws IBANException {
+        int expected = expectedCheckDigits(iban);
+        int first = iban.charAt(2) - '0';
+        int second = iban.charAt(2 + 1) - '0';
+        if (expected < 0 || first < 0 || first >= RADIX
+                || second < 0 || second >= RADIX) {
+            throw new IBANException(iban);
+        }
+        if (first * RADIX + second != expected) {
+            throw new IBANException(expected, iban);
+        }
+    }
+
+    /**
+     * Контрольные цифры, которые должен иметь код. Остаток от деления на
+     * {@value #MODULUS} считается потоково по символам в порядке ISO 13616:
+     * сначала номер после контрольных цифр, затем код страны и два нуля
+     * вместо контрольных цифр. Буква даёт два десятичных разряда;
+     * промежуточное значение приводится по модулю, как только достигает
+     * {@value #REDUCE_THRESHOLD}, и поэтому всегда помещается в int;
+     * перестановки строки и {@link BigInteger} не нужны.
+     *
+     * @param iban международный код.
+     * @return контрольные цифры или -1, если в коде есть символ, отличный
+     * от цифры и заглавной латинской буквы.
+     */
+    static int expectedCheckDigits(final CharSequence iban) {
+        int length = iban.length();
+        if (length < HEADER_LENGTH) {
+            return -1;
+        }
+        int remainder = 0;
+        for (int i = HEADER_LENGTH; i < length + 2; i++) {
+            int c = iban.charAt(i % length);
+            if (c >= '0' && c <= '9') {
+                remainder = remainder * RADIX + c - '0';
+            } else if (c >= 'A' && c <= 'Z') {
+                remainder = remainder * RADIX * RADIX + c - 'A'
+                        + LETTER_BASE;
+            } else {
+                return -1;
+            }
+            if (remainder >= REDUCE_THRESHOLD) {
+                remainder %= MODULUS;
+            }
+        }
+        return CHECK_BASE - remainder * RADIX * RADIX % MODULUS;
+    }
+
+    /**
+     * Код банка из кода проверенной длины.
+     *
+     * @param iban международный код.
+     * @return код банка.
+     * @throws IBANException в коде банка не цифра.
+     */
+    final int bankCode(final String iban) throws IBANException {
+        int code = scanBankCode(iban);
+        if (code == INVALID) {
+            throw new IBANException(iban);
+        }
+        return code;
+    }
+
+    /**
+     * Код банка из кода проверенной длины без исключений.
+     *
+     * @param iban международный код.
+     * @return код банка или {@link #INVALID}, если в коде банка не цифра.
+     */
+    final int scanBankCode(final CharSequence iban) {
+        int code = 0;
+        for (int s = 0; s < bankSpans.length; s += 2) {
+            for (int i = bankSpans[s]; i < bankSpans[s + 1]; i++) {
+                int digit = iban.charAt(i) - '0';
+                if (digit < 0 || digit >= RADIX) {
+                    return INVALID;
+                }
+                code = code * RADIX + digit;
+            }
+        }
+        return code;
+    }
+
+    /**
+     * @param iban международный код проверенной длины.
+     * @return номер счёта не пуст и состоит из цифр.
+     */
+    final boolean isNumber(final CharSequence iban) {
+        for (int s = 0; s < numberSpans.length; s += 2) {
+            for (int i = numberSpans[s]; i < numberSpans[s + 1]; i++) {
+                int digit = iban.charAt(i) - '0';
+                if (digit < 0 || digit >= RADIX) {
+                    return false;
+                }
+            }
+        }
+        return numberSpans.length > 0;
+    }
+
+    /**
+     * Номер счёта из кода проверенной длины. Цифры накапливаются в long,
+     * {@link BigInteger} собирается из готовых частей только для номеров
+     * длиннее {@value #MAX_DIGITS} цифр.
+     *
+     * @param iban международный код.
+     * @return номер счёта.
+     * @throws IBANException в номере счёта не цифра.
+     */
+    final BigInteger number(final String iban) throws IBANException {
+        BigInteger number = null;
+        long part = 0;
+        int digits = 0;
+        for (int s = 0; s < numberSpans.length; s += 2) {
+            for (int i = numberSpans[s]; i < numberSpans[s + 1]; i++) {
+                if (digits == MAX_DIGITS) {
+                    number = append(number, part, digits);
+                    part = 0;
+                    digits = 0;
+                }
+                part = part * RADIX + digit(iban, i);
+                digits++;
+            }
+        }
+        if (digits == 0 && number == null) {
+            throw new IBANException(iban);
+        }
+        return append(number, part, digits);
+    }
+
+    /**
+     * @param iban  международный код.
+     * @param index позиция.
+     * @return цифра в позиции.
+     * @throws IBANException в позиции не цифра.
+     */
+    private static int digit(final String iban, final int index)
+            throws IBANException {
+        int digit = iban.charAt(index) - '0';
+        if (digit < 0 || digit >= RADIX) {
+            throw new IBANException(iban);
+        }
+        return digit;
+    }
+
+    /**
+     * @param number старшие цифры или null.
+     * @param part   младшие цифры.
+     * @param digits количество младших цифр.
+     * @return число из старших и младших цифр.
+     */
+    private static BigInteger append(final BigInteger number,
+                                     final long part,
+                                     final int digits) {
+        if (number == null) {
+            return BigInteger.valueOf(part);
+        }
+        return number.multiply(BigInteger.TEN.pow(digits))
+                .add(BigInteger.valueOf(part));
+    }
+
+    /**
+     * Компиляция позиций символа шаблона в отрезки.
+     *
+     * @param pattern шаблон.
+     * @param c       символ.
+     * @return начала и концы отрезков подряд.
+     */
+    private static int[] spans(final String pattern, final char c) {
+        int[] spans = new int[pattern.length() + 1];
+        int size = 0;
+        for (int i = 0; i < pattern.length(); i++) {
+            if (pattern.charAt(i) != c) {
+                continue;
+            }
+            if (size > 0 && spans[size - 1] == i) {
+                spans[size - 1] = i + 1;
+            } else {
+                spans[size++] = i;
+                spans[size++] = i + 1;
             }
         }
-        return result.toString();
+        return Arrays.copyOf(spans, size);
     }
 }
@@ -0,0 +1,558 @@
+package lt.vu.mif.jate.task01.bank;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Пакетная проверка файлов международных кодов, по одному коду в строке.
+ * Файл отображается в память и делится на части (по умолчанию
+ * {@value #CHUNK_SIZE} байт), которые проверяются параллельно в
+ * {@link ForkJoinPool}. Часть обрабатывает строки, которые в ней
+ * начинаются, поэтому границы частей не обязаны совпадать с границами
+ * строк. Строка нормализуется (пробелы удаляются, латинские буквы
+ * переводятся в верхний регистр) в буфер части, без создания строк, и
+ * проверяется шаблоном страны {@link IBANParser}. Строки с символами вне
+ * ASCII относятся к {@link Category#BAD_FORMAT}. Пустые строки
+ * пропускаются.
+ * <p>
+ * Отклонённые строки можно записать в файл в виде
+ * {@code КАТЕГОРИЯ:строка} в порядке входного файла. Каждая часть
+ * собирает свои отклонённые строки в собственный буфер, который
+ * записывается, как только записаны все предыдущие части.
+ */
+public final class IBANValidator {
+    /**
+     * Размер части файла по умолчанию.
+     */
+    public static final int CHUNK_SIZE = 16_777_216;
+    /**
+     * Сколько байт после конца части просматривается для дочитывания
+     * последней строки; более длинные строки проверяются по началу.
+     */
+    private static final int TAIL_SIZE = 65_536;
+    /**
+     * Размер буфера нормализованной строки, больше длины любого кода.
+     */
+    private static final int LINE_SIZE = 64;
+    /**
+     * Маска байта.
+     */
+    private static final int BYTE_MASK = 0xFF;
+    /**
+     * Последний символ ASCII.
+     */
+    private static final int ASCII_MAX = 0x7F;
+    /**
+     * Основание системы счисления.
+     */
+    private static final int RADIX = 10;
+    /**
+     * Имена категорий с разделителем для файла отклонённых строк.
+     */
+    private static final byte[][] PREFIXES = prefixes();
+    /**
+     * Банк, справочники которого используются.
+     */
+    private final Banking banking;
+    /**
+     * Размер части файла.
+     */
+    private final int chunkSize;
+
+    /**
+     * @param pBanking банк, справочники которого используются.
+     */
+    public IBANValidator(final Banking pBanking) {
+        this(pBanking, CHUNK_SIZE);
+    }
+
+    /**
+     * @param pBanking   банк, справочники которого используются.
+     * @param pChunkSize размер части файла.
+     * @throws IllegalArgumentException размер части не положителен или
+     *                                  слишком велик для отображения.
+     */
+    public IBANValidator(final Banking pBanking, final int pChunkSize) {
+        if (pChunkSize <= 0 || pChunkSize > Integer.MAX_VALUE - TAIL_SIZE) {
+            throw new IllegalArgumentException("Chunk size " + pChunkSize);
+        }
+        banking = pBanking;
+        chunkSize = pChunkSize;
+    }
+
+    /**
+     * Категория международного кода.
+     */
+    public enum Category {
+        /**
+         * Верный код известного банка.
+         */
+        VALID,
+        /**
+         * Неизвестная страна.
+         */
+        UNKNOWN_COUNTRY,
+        /**
+         * Длина не соответствует шаблону страны.
+         */
+        WRONG_LENGTH,
+        /**
+         * Недопустимые символы или не цифры в коде банка и номере счёта.
+         */
+        BAD_FORMAT,
+        /**
+         * Неверные контрольные цифры.
+         */
+        BAD_CHECKSUM,
+        /**
+         * Банк не найден в справочнике.
+         */
+        UNKNOWN_BANK
+    }
+
+    /**
+     * Проверка одного кода.
+     *
+     * @param iban международный код.
+     * @return категория кода.
+     */
+    public Category classify(final CharSequence iban) {
+        Line line = new Line();
+        for (int i = 0; i < iban.length(); i++) {
+            line.append(iban.charAt(i));
+        }
+        return classify(line);
+    }
+
+    /**
+     * Проверка файла без записи отклонённых строк.
+     *
+     * @param input файл кодов.
+     * @return количество строк по категориям.
+     * @throws IOException ошибка чтения.
+     */
+    public Report validate(final Path input) throws IOException {
+        return validate(input, null);
+    }
+
+    /**
+     * Проверка файла.
+     *
+     * @param input   файл кодов.
+     * @param rejects файл отклонённых строк или null.
+     * @return количество строк по категориям.
+     * @throws IOException ошибка чтения или записи.
+     */
+    public Report validate(final Path input, final Path rejects)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(input,
+                StandardOpenOption.READ);
+             FileChannel out = openRejects(rejects)) {
+            long size = channel.size();
+            int chunks = (int) ((size + chunkSize - 1) / chunkSize);
+            Scan scan = new Scan(channel, size, out, chunks);
+            Chunk result = ForkJoinPool.commonPool().invoke(
+                    ForkJoinTask.adapt(() -> scan.range(0, chunks)));
+            return new Report(result.counts);
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    /**
+     * @param rejects файл отклонённых строк или null.
+     * @return канал записи отклонённых строк или null.
+     * @throws IOException ошибка открытия.
+     */
+    private static FileChannel openRejects(final Path rejects)
+            throws IOException {
+        if (rejects == null) {
+            return null;
+        }
+        return FileChannel.open(rejects, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    /**
+     * @return имена категорий с разделителем по порядковым номерам.
+     */
+    private static byte[][] prefixes() {
+        Category[] categories = Category.values();
+        byte[][] prefixes = new byte[categories.length][];
+        for (Category category : categories) {
+            prefixes[category.ordinal()] = (category.name() + ':')
+                    .getBytes(StandardCharsets.US_ASCII);
+        }
+        return prefixes;
+    }
+
+    /**
+     * @param line нормализованная строка.
+     * @return категория кода.
+     */
+    private Category classify(final Line line) {
+        if (line.foreign) {
+            return Category.BAD_FORMAT;
+        }
+        IBANParser parser = banking.getIbanParser(line);
+        if (parser == null) {
+            return Category.UNKNOWN_COUNTRY;
+        }
+        if (line.length() != parser.getLength()) {
+            return Category.WRONG_LENGTH;
+        }
+        int expected = IBANParser.expectedCheckDigits(line);
+        int first = line.charAt(2) - '0';
+        int second = line.charAt(2 + 1) - '0';
+        int code = parser.scanBankCode(line);
+        if (expected < 0 || first < 0 || first >= RADIX || second < 0
+                || second >= RADIX || code == IBANParser.INVALID
+                || !parser.isNumber(line)) {
+            return Category.BAD_FORMAT;
+        }
+        if (first * RADIX + second != expected) {
+            return Category.BAD_CHECKSUM;
+        }
+        if (banking.findBank(parser.getCountry(), code) == null) {
+            return Category.UNKNOWN_BANK;
+        }
+        return Category.VALID;
+    }
+
+    /**
+     * Количество строк по категориям.
+     */
+    public static final class Report {
+        /**
+         * Количество по порядковым номерам категорий.
+         */
+        private final long[] counts;
+
+        /**
+         * @param pCounts количество по порядковым номерам категорий.
+         */
+        Report(final long[] pCounts) {
+            counts = pCounts.clone();
+        }
+
+        /**
+         * @param category категория.
+         * @return количество строк категории.
+         */
+        public long count(final Category category) {
+            return counts[category.ordinal()];
+        }
+
+        /**
+         * @return количество проверенных строк.
+         */
+        public long total() {
+            long total = 0;
+            for (long count : counts) {
+                total += count;
+            }
+            return total;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder result = new StringBuilder();
+            for (Category category : Category.values()) {
+                if (result.length() > 0) {
+                    result.append(", ");
+                }
+                result.append(category).append('=')
+                        .append(counts[category.ordinal()]);
+            }
+            return result.toString();
+        }
+    }
+
+    /**
+     * Нормализованная строка в изменяемом буфере: хранит до
+     * {@value #LINE_SIZE} символов и полную длину.
+     */
+    private static final class Line implements CharSequence {
+        /**
+         * Символы в кодировке ASCII.
+         */
+        private final byte[] bytes = new byte[LINE_SIZE];
+        /**
+         * Длина нормализованной строки.
+         */
+        private int length;
+        /**
+         * Встретился ли символ вне ASCII.
+         */
+        private boolean foreign;
+
+        /**
+         * Добавление символа с нормализацией. Символ вне ASCII
+         * сохраняется нулём и отмечается, чтобы после усечения до байта
+         * он не совпал с символом ASCII.
+         *
+         * @param c символ исходной строки.
+         */
+        void append(final int c) {
+            if (c == ' ') {
+                return;
+            }
+            int normalized = c;
+            if (c >= 'a' && c <= 'z') {
+                normalized = c - 'a' + 'A';
+            } else if (c > ASCII_MAX) {
+                normalized = 0;
+                foreign = true;
+            }
+            if (length < LINE_SIZE) {
+                bytes[length] = (byte) normalized;
+            }
+            length++;
+        }
+
+        /**
+         * Очистка строки.
+         */
+        void clear() {
+            length = 0;
+            foreign = false;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(final int index) {
+            return (char) (bytes[index] & BYTE_MASK);
+        }
+
+        @Override
+        public CharSequence subSequence(final int start, final int end) {
+            return toString().subSequence(start, end);
+        }
+
+        @Override
+        public String toString() {
+            return new String(bytes, 0, Math.min(length, LINE_SIZE),
+                    StandardCharsets.ISO_8859_1);
+        }
+    }
+
+    /**
+     * Результат проверки частей файла.
+     */
+    private static final class Chunk {
+        /**
+         * Количество по порядковым номерам категорий.
+         */
+        private final long[] counts = new long[Category.values().length];
+        /**
+         * Отклонённые строки.
+         */
+        private byte[] rejects = new byte[0];
+        /**
+         * Длина отклонённых строк.
+         */
+        private int rejectsSize;
+
+        /**
+         * @param bytes байты.
+         * @param start начало.
+         * @param end   конец, не включая.
+         */
+        void reject(final byte[] bytes, final int start, final int end) {
+            int length = end - start;
+            if (rejectsSize + length > rejects.length) {
+                rejects = Arrays.copyOf(rejects, Math.max(
+                        rejects.length * 2, rejectsSize + length));
+            }
+            System.arraycopy(bytes, start, rejects, rejectsSize, length);
+            rejectsSize += length;
+        }
+
+        /**
+         * Присоединение количеств следующих частей; их отклонённые
+         * строки к этому времени уже переданы на запись.
+         *
+         * @param next результат следующих частей.
+         * @return объединённый результат.
+         */
+        Chunk merge(final Chunk next) {
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] += next.counts[i];
+            }
+            return this;
+        }
+    }
+
+    /**
+     * Проверка частей файла.
+     */
+    private final class Scan {
+        /**
+         * Канал файла.
+         */
+        private final FileChannel channel;
+        /**
+         * Размер файла.
+         */
+        private final long size;
+        /**
+         * Канал записи отклонённых строк или null.
+         */
+        private final FileChannel out;
+        /**
+         * Отклонённые строки проверенных частей, ожидающие записи
+         * предыдущих.
+         */
+        private final Chunk[] waiting;
+        /**
+         * Номер следующей записываемой части.
+         */
+        private int next;
+
+        /**
+         * @param pChannel канал файла.
+         * @param pSize    размер файла.
+         * @param pOut     канал записи отклонённых строк или null.
+         * @param pChunks  количество частей.
+         */
+        Scan(final FileChannel pChannel, final long pSize,
+             final FileChannel pOut, final int pChunks) {
+            channel = pChannel;
+            size = pSize;
+            out = pOut;
+            if (pOut == null) {
+                waiting = null;
+            } else {
+                waiting = new Chunk[pChunks];
+            }
+        }
+
+        /**
+         * Запись отклонённых строк части и всех ожидавших её частей.
+         * Буферы записанных частей освобождаются.
+         *
+         * @param index номер части.
+         * @param chunk результат части.
+         * @throws IOException ошибка записи.
+         */
+        private synchronized void write(final int index, final Chunk chunk)
+                throws IOException {
+            waiting[index] = chunk;
+            while (next < waiting.length && waiting[next] != null) {
+                Chunk ready = waiting[next];
+                ByteBuffer buffer = ByteBuffer.wrap(ready.rejects, 0,
+                        ready.rejectsSize);
+                while (buffer.hasRemaining()) {
+                    out.write(buffer);
+                }
+                ready.rejects = null;
+                waiting[next] = null;
+                next++;
+            }
+        }
+
+        /**
+         * Проверка диапазона частей: правая половина отдаётся другим
+         * потокам пула, левая проверяется в текущем.
+         *
+         * @param from первая часть.
+         * @param to   часть после последней.
+         * @return результат частей.
+         */
+        Chunk range(final int from, final int to) {
+            if (to - from <= 1) {
+                if (from == to) {
+                    return new Chunk();
+                }
+                try {
+                    Chunk chunk = scan((long) from * chunkSize);
+                    if (out != null) {
+                        write(from, chunk);
+                    }
+                    return chunk;
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            }
+            int middle = (from + to) >>> 1;
+            ForkJoinTask<Chunk> right =
+                    ForkJoinTask.adapt(() -> range(middle, to)).fork();
+            return range(from, middle).merge(right.join());
+        }
+
+        /**
+         * Проверка строк, начинающихся в части.
+         *
+         * @param start начало части.
+         * @return результат части.
+         * @throws IOException ошибка отображения.
+         */
+        private Chunk scan(final long start) throws IOException {
+            long end = Math.min(size, start + chunkSize);
+            long mapStart = Math.max(0, start - 1);
+            long mapEnd = Math.min(size, end + TAIL_SIZE);
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY,
+                    mapStart, mapEnd - mapStart);
+            int limit = (int) (end - mapStart);
+            int position = (int) (start - mapStart);
+            if (start > 0) {
+                position = 0;
+                while (position < limit && map.get(position) != '\n') {
+                    position++;
+                }
+                position++;
+            }
+            Chunk chunk = new Chunk();
+            Line line = new Line();
+            byte[] raw = new byte[0];
+            int capacity = map.limit();
+            while (position < limit) {
+                int lineStart = position;
+                line.clear();
+                while (position < capacity && map.get(position) != '\n') {
+                    line.append(map.get(position) & BYTE_MASK);
+                    position++;
+                }
+                int lineEnd = position;
+                position++;
+                if (lineEnd > lineStart
+                        && map.get(lineEnd - 1) == '\r') {
+                    lineEnd--;
+                    line.length--;
+                }
+                if (line.length() == 0) {
+                    continue;
+                }
+                Category category = classify(line);
+                chunk.counts[category.ordinal()]++;
+                if (out != null && category != Category.VALID) {
+                    byte[] prefix = PREFIXES[category.ordinal()];
+                    int length = lineEnd - lineStart;
+                    int total = prefix.length + length + 1;
+                    if (raw.length < total) {
+                        raw = new byte[total * 2];
+                    }
+                    System.arraycopy(prefix, 0, raw, 0, prefix.length);
+                    map.get(lineStart, raw, prefix.length, length);
+                    raw[total - 1] = '\n';
+                    chunk.reject(raw, 0, total);
+                }
+            }
+            return chunk;
+        }
+    }
+}
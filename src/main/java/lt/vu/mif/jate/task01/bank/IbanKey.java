@@ -0,0 +1,213 @@
+package lt.vu.mif.jate.task01.bank;
+
+/**
+ * Упакованный международный код: до {@value #MAX_LENGTH} цифр и заглавных
+ * латинских букв в трёх числах long с заранее подсчитанным хешем.
+ * Символ кодируется числом от 1 до {@value #BASE} - 1 (ноль - пустая
+ * позиция), по {@value #CHARS_PER_WORD} символов в числе, поэтому коды
+ * разной длины не совпадают. Сравнение и хеширование не обращаются к
+ * символам строки. Индекс счетов упаковывает код один раз на поиск и
+ * использует числа и хеш ключа для выбора полосы, ячейки и сравнения.
+ */
+public final class IbanKey {
+    /**
+     * Основание упаковки: цифры, буквы и пустая позиция.
+     */
+    static final int BASE = 37;
+    /**
+     * Символов в одном числе: 37 в степени 12 меньше Long.MAX_VALUE.
+     */
+    static final int CHARS_PER_WORD = 12;
+    /**
+     * Количество чисел ключа.
+     */
+    static final int WORDS = 3;
+    /**
+     * Максимальная длина кода.
+     */
+    public static final int MAX_LENGTH = CHARS_PER_WORD * WORDS;
+    /**
+     * Значение первой буквы.
+     */
+    private static final int LETTER_BASE = 11;
+    /**
+     * Множитель перемешивания хеша.
+     */
+    private static final long MIX = 0x9E3779B97F4A7C15L;
+    /**
+     * Сдвиг перемешивания хеша.
+     */
+    private static final int MIX_SHIFT = 32;
+    /**
+     * Символы 0-11.
+     */
+    private final long high;
+    /**
+     * Символы 12-23.
+     */
+    private final long middle;
+    /**
+     * Символы 24-35.
+     */
+    private final long low;
+    /**
+     * Хеш.
+     */
+    private final int hash;
+
+    /**
+     * @param pHigh   символы 0-11.
+     * @param pMiddle символы 12-23.
+     * @param pLow    символы 24-35.
+     */
+    private IbanKey(final long pHigh, final long pMiddle, final long pLow) {
+        high = pHigh;
+        middle = pMiddle;
+        low = pLow;
+        hash = hash(pHigh, pMiddle, pLow);
+    }
+
+    /**
+     * Упаковка кода за один проход по символам.
+     *
+     * @param iban обработанный международный код.
+     * @return ключ или null, если код длиннее {@value #MAX_LENGTH}
+     * символов или содержит не цифры и не заглавные латинские буквы.
+     */
+    public static IbanKey of(final CharSequence iban) {
+        int length = iban.length();
+        if (length > MAX_LENGTH) {
+            return null;
+        }
+        long pHigh = 0;
+        long pMiddle = 0;
+        long pLow = 0;
+        for (int i = 0; i < MAX_LENGTH; i++) {
+            int value = 0;
+            if (i < length) {
+                value = value(iban.charAt(i));
+                if (value == 0) {
+                    return null;
+                }
+            }
+            if (i < CHARS_PER_WORD) {
+                pHigh = pHigh * BASE + value;
+            } else if (i < 2 * CHARS_PER_WORD) {
+                pMiddle = pMiddle * BASE + value;
+            } else {
+                pLow = pLow * BASE + value;
+            }
+        }
+        return new IbanKey(pHigh, pMiddle, pLow);
+    }
+
+    /**
+     * @return символы 0-11.
+     */
+    long high() {
+        return high;
+    }
+
+    /**
+     * @return символы 12-23.
+     */
+    long middle() {
+        return middle;
+    }
+
+    /**
+     * @return символы 24-35.
+     */
+    long low() {
+        return low;
+    }
+
+    /**
+     * @param pHigh   символы 0-11.
+     * @param pMiddle символы 12-23.
+     * @param pLow    символы 24-35.
+     * @return хеш ключа.
+     */
+    private static int hash(final long pHigh, final long pMiddle,
+                            final long pLow) {
+        long mixed = ((pHigh * MIX + pMiddle) * MIX + pLow) * MIX;
+        return (int) (mixed ^ (mixed >>> MIX_SHIFT));
+    }
+
+    /**
+     * @param pHigh   символы 0-11.
+     * @param pMiddle символы 12-23.
+     * @param pLow    символы 24-35.
+     * @return распакованный код.
+     */
+    static String unpack(final long pHigh, final long pMiddle,
+                         final long pLow) {
+        StringBuilder result = new StringBuilder(MAX_LENGTH);
+        unpack(pHigh, result);
+        unpack(pMiddle, result);
+        unpack(pLow, result);
+        return result.toString();
+    }
+
+    /**
+     * @param c символ.
+     * @return значение символа или 0 для недопустимого символа.
+     */
+    private static int value(final char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0' + 1;
+        }
+        if (c >= 'A' && c <= 'Z') {
+            return c - 'A' + LETTER_BASE;
+        }
+        return 0;
+    }
+
+    /**
+     * @param word число.
+     * @param out  строка, в которую добавляются символы.
+     */
+    private static void unpack(final long word, final StringBuilder out) {
+        char[] chars = new char[CHARS_PER_WORD];
+        long rest = word;
+        for (int i = CHARS_PER_WORD - 1; i >= 0; i--) {
+            int value = (int) (rest % BASE);
+            rest /= BASE;
+            if (value == 0) {
+                chars[i] = 0;
+            } else if (value < LETTER_BASE) {
+                chars[i] = (char) ('0' + value - 1);
+            } else {
+                chars[i] = (char) ('A' + value - LETTER_BASE);
+            }
+        }
+        for (char c : chars) {
+            if (c != 0) {
+                out.append(c);
+            }
+        }
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof IbanKey)) {
+            return false;
+        }
+        IbanKey other = (IbanKey) o;
+        return high == other.high && middle == other.middle
+                && low == other.low;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return unpack(high, middle, low);
+    }
+}
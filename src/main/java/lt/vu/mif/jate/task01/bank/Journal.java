@@ -0,0 +1,867 @@
+package lt.vu.mif.jate.task01.bank;
+
+import lt.vu.mif.jate.task01.bank.exception.IBANException;
+import lt.vu.mif.jate.task01.bank.exception.WrongAccountTypeException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Currency;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * Журнал предзаписи изменений счетов.
+ * Журнал состоит из сегментов фиксированного размера, отображённых в
+ * память. Каждая операция (зачисление, списание, перевод, конвертация,
+ * пакет переводов) записывается одним кадром с контрольной суммой, кадр
+ * содержит изменения остатков и состояний затронутых счетов.
+ * Сброс на диск выполняется группами: после {@code syncBatchSize} кадров
+ * или не реже чем раз в {@code syncIntervalMillis} миллисекунд.
+ * Изменения остатков в кадре складываются, поэтому порядок кадров от
+ * разных потоков при восстановлении не важен.
+ * <p>
+ * Изменения счетов выполняются до записи кадра. Если кадр записать не
+ * удалось, изменения, попавшие в него, отменяются в обратном порядке, и
+ * ошибка передаётся операции: в памяти не остаётся изменений, которых
+ * нет в журнале.
+ * <p>
+ * Позиция кадра — номер сегмента в старших 32 битах и смещение кадра в
+ * младших. Кадр записывается под блокировками изменённых им счетов, и
+ * каждый счёт запоминает позицию последнего своего кадра, поэтому снимок,
+ * копирующий счёт под его блокировкой, знает, какие кадры уже учтены в
+ * копии. Восстановление после снимка применяет только кадры после
+ * позиции, записанной в снимке, и к каждому счёту — только кадры после
+ * его собственной позиции.
+ */
+public final class Journal implements Closeable {
+    /**
+     * Размер сегмента по умолчанию: 64 МБ.
+     */
+    public static final int DEFAULT_SEGMENT_SIZE = 67_108_864;
+    /**
+     * Размер заголовка кадра: длина и контрольная сумма.
+     */
+    private static final int HEADER_SIZE = Integer.BYTES * 2;
+    /**
+     * Начальный размер буфера кадра.
+     */
+    private static final int INITIAL_FRAME_SIZE = 256;
+    /**
+     * Длина кода валюты.
+     */
+    private static final int CURRENCY_CODE_LENGTH = 3;
+    /**
+     * Начальный размер журнала отмены кадра.
+     */
+    private static final int INITIAL_UNDO_SIZE = 8;
+    /**
+     * Префикс имени файла сегмента.
+     */
+    private static final String SEGMENT_PREFIX = "journal-";
+    /**
+     * Суффикс имени файла сегмента.
+     */
+    private static final String SEGMENT_SUFFIX = ".log";
+    /**
+     * Формат имени файла сегмента.
+     */
+    private static final String SEGMENT_FORMAT =
+            SEGMENT_PREFIX + "%016d" + SEGMENT_SUFFIX;
+    /**
+     * Изменение: открытие счёта.
+     */
+    private static final byte EFFECT_OPEN = 1;
+    /**
+     * Изменение: изменение остатка.
+     */
+    private static final byte EFFECT_DELTA = 2;
+    /**
+     * Изменение: смена состояния счёта.
+     */
+    private static final byte EFFECT_STATE = 3;
+    /**
+     * Номер валюты в журнале отмены, обозначающий смену состояния.
+     */
+    private static final int STATE_UNDO = -1;
+    /**
+     * Сдвиг номера сегмента в позиции кадра.
+     */
+    private static final int SEGMENT_SHIFT = 32;
+    /**
+     * Каталог сегментов.
+     */
+    private final Path directory;
+    /**
+     * Размер сегмента.
+     */
+    private final int segmentSize;
+    /**
+     * Количество кадров, после которого выполняется сброс на диск.
+     */
+    private final int syncBatchSize;
+    /**
+     * Блокировка записи кадров.
+     */
+    private final ReentrantLock appendLock = new ReentrantLock();
+    /**
+     * Блокировка сброса на диск.
+     */
+    private final Object syncLock = new Object();
+    /**
+     * Кадры потоков.
+     */
+    private final ThreadLocal<Frame> frames =
+            ThreadLocal.withInitial(Frame::new);
+    /**
+     * Периодический сброс на диск.
+     */
+    private final ScheduledExecutorService syncer;
+    /**
+     * Номер текущего сегмента.
+     */
+    private long segmentNumber;
+    /**
+     * Текущий сегмент.
+     */
+    private MappedByteBuffer segment;
+    /**
+     * Количество кадров, не сброшенных на диск.
+     */
+    private int pending;
+
+    /**
+     * @param pDirectory          каталог сегментов.
+     * @param pSyncBatchSize      количество кадров в группе сброса на диск.
+     * @param pSyncIntervalMillis максимальный интервал сброса на диск.
+     * @throws IOException ошибка открытия журнала.
+     */
+    public Journal(final Path pDirectory,
+                   final int pSyncBatchSize,
+                   final long pSyncIntervalMillis) throws IOException {
+        this(pDirectory, pSyncBatchSize, pSyncIntervalMillis,
+                DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * @param pDirectory          каталог сегментов.
+     * @param pSyncBatchSize      количество кадров в группе сброса на диск.
+     * @param pSyncIntervalMillis максимальный интервал сброса на диск.
+     * @param pSegmentSize        размер сегмента.
+     * @throws IOException ошибка открытия журнала.
+     */
+    public Journal(final Path pDirectory,
+                   final int pSyncBatchSize,
+                   final long pSyncIntervalMillis,
+                   final int pSegmentSize) throws IOException {
+        if (pSyncBatchSize < 1 || pSyncIntervalMillis < 1
+                || pSegmentSize <= HEADER_SIZE) {
+            throw new IllegalArgumentException();
+        }
+        directory = pDirectory;
+        syncBatchSize = pSyncBatchSize;
+        segmentSize = pSegmentSize;
+        Files.createDirectories(directory);
+        List<Path> segments = segments();
+        if (segments.isEmpty()) {
+            segmentNumber = 1;
+            segment = map(segmentNumber, segmentSize);
+        } else {
+            Path last = segments.get(segments.size() - 1);
+            segmentNumber = number(last);
+            segment = map(segmentNumber,
+                    (int) Math.max(segmentSize, Files.size(last)));
+            segment.position(scan(segment, null));
+        }
+        syncer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "journal-sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        syncer.scheduleWithFixedDelay(this::syncPending,
+                pSyncIntervalMillis, pSyncIntervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Восстановление счетов из журнала. Кадры до позиции {@code from}
+     * пропускаются, остальные применяются к счёту, только если они
+     * записаны после позиции счёта.
+     *
+     * @param banking банк, в котором создаются счета.
+     * @param from    позиция, с которой применяются кадры; 0 — с начала.
+     * @throws IOException ошибка чтения или повреждённый журнал.
+     */
+    void replay(final Banking banking, final long from) throws IOException {
+        for (Path path : segments()) {
+            long number = number(path);
+            if (number < from >>> SEGMENT_SHIFT) {
+                continue;
+            }
+            try (FileChannel channel = FileChannel.open(path,
+                    StandardOpenOption.READ)) {
+                scan(channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                        channel.size()), new Replay(banking, number, from));
+            }
+        }
+    }
+
+    /**
+     * @return позиция, с которой будет записан следующий кадр.
+     */
+    long position() {
+        appendLock.lock();
+        try {
+            return position(segmentNumber, segment.position());
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Удаление сегментов, все кадры которых записаны до позиции, например
+     * после снимка с этой позицией. Текущий сегмент не удаляется.
+     *
+     * @param position позиция.
+     * @throws IOException ошибка удаления.
+     */
+    void truncate(final long position) throws IOException {
+        long current;
+        appendLock.lock();
+        try {
+            current = segmentNumber;
+        } finally {
+            appendLock.unlock();
+        }
+        long first = Math.min(current, position >>> SEGMENT_SHIFT);
+        for (Path path : segments()) {
+            if (number(path) < first) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    /**
+     * @param number номер сегмента.
+     * @param offset смещение в сегменте.
+     * @return позиция кадра.
+     */
+    private static long position(final long number, final int offset) {
+        return number << SEGMENT_SHIFT | offset;
+    }
+
+    /**
+     * Начало операции: изменения до парного {@link #end()} записываются
+     * одним кадром.
+     *
+     * @param operation операция.
+     */
+    void begin(final Operation operation) {
+        Frame frame = frames.get();
+        if (frame.depth == 0) {
+            frame.reset(operation);
+        }
+        frame.depth++;
+    }
+
+    /**
+     * Конец операции, начатой {@link #begin(Operation)}. Если кадр не
+     * записан, изменения кадра отменяются.
+     */
+    void end() {
+        Frame frame = frames.get();
+        frame.depth--;
+        if (frame.depth == 0 && frame.effects > 0) {
+            try {
+                frame.written(write(frame));
+            } catch (RuntimeException ex) {
+                frame.undo();
+                throw ex;
+            } finally {
+                frame.release();
+            }
+        }
+    }
+
+    /**
+     * Запись открытия счёта.
+     *
+     * @param account счёт.
+     */
+    void open(final Account account) {
+        begin(Operation.OPEN);
+        try {
+            Frame frame = effect(EFFECT_OPEN, account);
+            byte[] type = account.getClass().getName()
+                    .getBytes(StandardCharsets.UTF_8);
+            frame.putShort(type.length);
+            frame.put(type, 0, type.length);
+        } finally {
+            end();
+        }
+    }
+
+    /**
+     * Запись изменения остатка.
+     *
+     * @param account  счёт.
+     * @param currency номер валюты.
+     * @param delta    изменение остатка.
+     */
+    void delta(final Account account,
+               final int currency,
+               final long delta) {
+        Operation operation = Operation.CREDIT;
+        if (delta < 0) {
+            operation = Operation.DEBIT;
+        }
+        begin(operation);
+        try {
+            Frame frame = effect(EFFECT_DELTA, account);
+            frame.undoable(account, currency, delta);
+            String code = CurrencyId.currency(currency).getCurrencyCode();
+            for (int i = 0; i < CURRENCY_CODE_LENGTH; i++) {
+                frame.put((byte) code.charAt(i));
+            }
+            frame.putLong(delta);
+        } finally {
+            end();
+        }
+    }
+
+    /**
+     * Запись смены состояния счёта.
+     *
+     * @param account  счёт.
+     * @param previous прежнее состояние, восстанавливаемое при отмене.
+     * @param state    новое состояние.
+     */
+    void state(final Account account, final int previous, final int state) {
+        begin(Operation.STATE);
+        try {
+            Frame frame = effect(EFFECT_STATE, account);
+            frame.undoable(account, STATE_UNDO, previous);
+            frame.putInt(state);
+        } finally {
+            end();
+        }
+    }
+
+    /**
+     * Сброс записанных кадров на диск.
+     */
+    public void sync() {
+        MappedByteBuffer current;
+        appendLock.lock();
+        try {
+            current = segment;
+            pending = 0;
+        } finally {
+            appendLock.unlock();
+        }
+        synchronized (syncLock) {
+            current.force();
+        }
+    }
+
+    @Override
+    public void close() {
+        syncer.shutdown();
+        sync();
+    }
+
+    /**
+     * Сброс на диск, если есть несброшенные кадры.
+     */
+    private void syncPending() {
+        boolean hasPending;
+        appendLock.lock();
+        try {
+            hasPending = pending > 0;
+        } finally {
+            appendLock.unlock();
+        }
+        if (hasPending) {
+            sync();
+        }
+    }
+
+    /**
+     * Начало записи изменения счёта в кадр потока.
+     *
+     * @param type    тип изменения.
+     * @param account счёт.
+     * @return кадр потока.
+     */
+    private Frame effect(final byte type, final Account account) {
+        Frame frame = frames.get();
+        frame.effects++;
+        frame.put(type);
+        String iban = account.toString();
+        frame.put((byte) iban.length());
+        for (int i = 0; i < iban.length(); i++) {
+            frame.put((byte) iban.charAt(i));
+        }
+        return frame;
+    }
+
+    /**
+     * Запись кадра в текущий сегмент.
+     *
+     * @param frame кадр.
+     * @return позиция кадра.
+     */
+    private long write(final Frame frame) {
+        frame.crc.reset();
+        frame.crc.update(frame.bytes, 0, frame.size);
+        int checksum = (int) frame.crc.getValue();
+        boolean flush;
+        long position;
+        appendLock.lock();
+        try {
+            if (segment.remaining() < HEADER_SIZE + frame.size) {
+                roll(HEADER_SIZE + frame.size);
+            }
+            position = position(segmentNumber, segment.position());
+            segment.putInt(frame.size);
+            segment.putInt(checksum);
+            segment.put(frame.bytes, 0, frame.size);
+            pending++;
+            flush = pending >= syncBatchSize;
+        } finally {
+            appendLock.unlock();
+        }
+        if (flush) {
+            sync();
+        }
+        return position;
+    }
+
+    /**
+     * Переход на следующий сегмент.
+     *
+     * @param required требуемое место.
+     */
+    private void roll(final int required) {
+        MappedByteBuffer previous = segment;
+        try {
+            segment = map(segmentNumber + 1, Math.max(segmentSize, required));
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        segmentNumber++;
+        synchronized (syncLock) {
+            previous.force();
+        }
+    }
+
+    /**
+     * @param number номер сегмента.
+     * @param size   размер сегмента.
+     * @return отображённый в память сегмент.
+     * @throws IOException ошибка открытия файла.
+     */
+    private MappedByteBuffer map(final long number,
+                                 final int size) throws IOException {
+        Path path = directory.resolve(String.format(SEGMENT_FORMAT, number));
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    /**
+     * @return файлы сегментов по возрастанию номеров.
+     * @throws IOException ошибка чтения каталога.
+     */
+    private List<Path> segments() throws IOException {
+        List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(
+                directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            stream.forEach(segments::add);
+        }
+        Collections.sort(segments);
+        return segments;
+    }
+
+    /**
+     * @param path файл сегмента.
+     * @return номер сегмента.
+     */
+    private static long number(final Path path) {
+        String name = String.valueOf(path.getFileName());
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(),
+                name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    /**
+     * Чтение кадров сегмента до первого пустого или повреждённого кадра.
+     *
+     * @param buffer сегмент.
+     * @param replay восстановление, применяющее изменения, или null.
+     * @return позиция после последнего целого кадра.
+     * @throws IOException повреждённый журнал.
+     */
+    private static int scan(final ByteBuffer buffer,
+                            final Replay replay) throws IOException {
+        CRC32 crc = new CRC32();
+        byte[] bytes = new byte[INITIAL_FRAME_SIZE];
+        int position = 0;
+        while (position + HEADER_SIZE <= buffer.limit()) {
+            int size = buffer.getInt(position);
+            int checksum = buffer.getInt(position + Integer.BYTES);
+            if (size <= 0
+                    || size > buffer.limit() - position - HEADER_SIZE) {
+                break;
+            }
+            if (bytes.length < size) {
+                bytes = new byte[size];
+            }
+            ByteBuffer frame = buffer.duplicate();
+            frame.position(position + HEADER_SIZE);
+            frame.get(bytes, 0, size);
+            crc.reset();
+            crc.update(bytes, 0, size);
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+            if (replay != null) {
+                replay.apply(ByteBuffer.wrap(bytes, 0, size), position);
+            }
+            position += HEADER_SIZE + size;
+        }
+        return position;
+    }
+
+    /**
+     * Восстановление открытия счёта.
+     *
+     * @param banking  банк.
+     * @param iban     международный номер.
+     * @param typeName имя класса счёта.
+     * @throws IOException неизвестный тип или номер счёта.
+     */
+    private static void open(final Banking banking,
+                             final String iban,
+                             final String typeName) throws IOException {
+        try {
+            banking.restoreAccount(iban,
+                    Class.forName(typeName).asSubclass(Account.class));
+        } catch (ClassNotFoundException | IBANException
+                | WrongAccountTypeException ex) {
+            throw new IOException("Can not restore account " + iban, ex);
+        }
+    }
+
+    /**
+     * Операции, записываемые в журнал.
+     */
+    enum Operation {
+        /**
+         * Открытие счёта.
+         */
+        OPEN,
+        /**
+         * Зачисление.
+         */
+        CREDIT,
+        /**
+         * Списание.
+         */
+        DEBIT,
+        /**
+         * Смена состояния счёта.
+         */
+        STATE,
+        /**
+         * Перевод.
+         */
+        TRANSFER,
+        /**
+         * Конвертация.
+         */
+        CONVERSION,
+        /**
+         * Пакет переводов.
+         */
+        BATCH
+    }
+
+    /**
+     * Применение кадров одного сегмента к счетам банка.
+     */
+    private static final class Replay {
+        /**
+         * Банк.
+         */
+        private final Banking banking;
+        /**
+         * Номер сегмента.
+         */
+        private final long number;
+        /**
+         * Позиция, с которой применяются кадры.
+         */
+        private final long from;
+        /**
+         * Счета, изменённые текущим кадром.
+         */
+        private final Set<Account> touched = new HashSet<>();
+
+        /**
+         * @param pBanking банк.
+         * @param pNumber  номер сегмента.
+         * @param pFrom    позиция, с которой применяются кадры.
+         */
+        Replay(final Banking pBanking, final long pNumber, final long pFrom) {
+            banking = pBanking;
+            number = pNumber;
+            from = pFrom;
+        }
+
+        /**
+         * Применение изменений кадра. Изменение счёта применяется, только
+         * если кадр записан после позиции счёта; позиции изменённых счетов
+         * сдвигаются после всего кадра.
+         *
+         * @param frame  кадр.
+         * @param offset смещение кадра в сегменте.
+         * @throws IOException повреждённый журнал.
+         */
+        void apply(final ByteBuffer frame,
+                   final int offset) throws IOException {
+            long position = position(number, offset);
+            if (position < from) {
+                return;
+            }
+            frame.get();
+            while (frame.hasRemaining()) {
+                byte type = frame.get();
+                byte[] ibanBytes = new byte[frame.get()];
+                frame.get(ibanBytes);
+                String iban = new String(ibanBytes,
+                        StandardCharsets.US_ASCII);
+                if (type == EFFECT_OPEN) {
+                    byte[] typeBytes = new byte[frame.getShort()];
+                    frame.get(typeBytes);
+                    open(banking, iban,
+                            new String(typeBytes, StandardCharsets.UTF_8));
+                    continue;
+                }
+                Account account = banking.getAccounts().get(iban);
+                if (account == null) {
+                    throw new IOException(
+                            "Journal refers to unknown account " + iban);
+                }
+                boolean applies = account.getJournalPosition() < position;
+                if (applies) {
+                    touched.add(account);
+                }
+                if (type == EFFECT_DELTA) {
+                    byte[] code = new byte[CURRENCY_CODE_LENGTH];
+                    frame.get(code);
+                    long delta = frame.getLong();
+                    if (applies) {
+                        account.restoreDelta(CurrencyId.of(
+                                Currency.getInstance(new String(code,
+                                        StandardCharsets.US_ASCII))),
+                                delta);
+                    }
+                } else if (type == EFFECT_STATE) {
+                    int state = frame.getInt();
+                    if (applies) {
+                        account.restoreState(state);
+                    }
+                } else {
+                    throw new IOException("Unknown journal record " + type);
+                }
+            }
+            for (Account account : touched) {
+                account.setJournalPosition(position);
+            }
+            touched.clear();
+        }
+    }
+
+    /**
+     * Кадр журнала, собираемый потоком.
+     */
+    private static final class Frame {
+        /**
+         * Содержимое кадра.
+         */
+        private byte[] bytes = new byte[INITIAL_FRAME_SIZE];
+        /**
+         * Размер содержимого.
+         */
+        private int size;
+        /**
+         * Вложенность операций.
+         */
+        private int depth;
+        /**
+         * Количество изменений.
+         */
+        private int effects;
+        /**
+         * Контрольная сумма.
+         */
+        private final CRC32 crc = new CRC32();
+        /**
+         * Счета изменений для отмены.
+         */
+        private Account[] undoAccounts = new Account[INITIAL_UNDO_SIZE];
+        /**
+         * Номера валют изменений для отмены или {@link #STATE_UNDO}.
+         */
+        private int[] undoCurrencies = new int[INITIAL_UNDO_SIZE];
+        /**
+         * Изменения остатков или прежние состояния.
+         */
+        private long[] undoValues = new long[INITIAL_UNDO_SIZE];
+        /**
+         * Количество изменений для отмены.
+         */
+        private int undoSize;
+
+        /**
+         * Начало нового кадра.
+         *
+         * @param operation операция.
+         */
+        void reset(final Operation operation) {
+            size = 0;
+            effects = 0;
+            put((byte) operation.ordinal());
+        }
+
+        /**
+         * Запоминание изменения для отмены.
+         *
+         * @param account  счёт.
+         * @param currency номер валюты или {@link #STATE_UNDO}.
+         * @param value    изменение остатка или прежнее состояние.
+         */
+        void undoable(final Account account,
+                      final int currency,
+                      final long value) {
+            if (undoSize == undoAccounts.length) {
+                undoAccounts = Arrays.copyOf(undoAccounts, undoSize * 2);
+                undoCurrencies = Arrays.copyOf(undoCurrencies, undoSize * 2);
+                undoValues = Arrays.copyOf(undoValues, undoSize * 2);
+            }
+            undoAccounts[undoSize] = account;
+            undoCurrencies[undoSize] = currency;
+            undoValues[undoSize] = value;
+            undoSize++;
+        }
+
+        /**
+         * Отмена изменений кадра в обратном порядке.
+         */
+        void undo() {
+            for (int i = undoSize - 1; i >= 0; i--) {
+                if (undoCurrencies[i] == STATE_UNDO) {
+                    undoAccounts[i].restoreState((int) undoValues[i]);
+                } else {
+                    undoAccounts[i].restoreDelta(undoCurrencies[i],
+                            -undoValues[i]);
+                }
+            }
+        }
+
+        /**
+         * Запоминание позиции записанного кадра в изменённых им счетах.
+         * Вызывается под блокировками этих счетов.
+         *
+         * @param position позиция кадра.
+         */
+        void written(final long position) {
+            for (int i = 0; i < undoSize; i++) {
+                undoAccounts[i].setJournalPosition(position);
+            }
+        }
+
+        /**
+         * Освобождение ссылок на счета записанного кадра.
+         */
+        void release() {
+            Arrays.fill(undoAccounts, 0, undoSize, null);
+            undoSize = 0;
+        }
+
+        /**
+         * @param value байт.
+         */
+        void put(final byte value) {
+            ensure(Byte.BYTES);
+            bytes[size++] = value;
+        }
+
+        /**
+         * @param source массив.
+         * @param offset начало.
+         * @param length длина.
+         */
+        void put(final byte[] source, final int offset, final int length) {
+            ensure(length);
+            System.arraycopy(source, offset, bytes, size, length);
+            size += length;
+        }
+
+        /**
+         * @param value число.
+         */
+        void putShort(final int value) {
+            ensure(Short.BYTES);
+            ByteBuffer.wrap(bytes, size, Short.BYTES).putShort((short) value);
+            size += Short.BYTES;
+        }
+
+        /**
+         * @param value число.
+         */
+        void putInt(final int value) {
+            ensure(Integer.BYTES);
+            ByteBuffer.wrap(bytes, size, Integer.BYTES).putInt(value);
+            size += Integer.BYTES;
+        }
+
+        /**
+         * @param value число.
+         */
+        void putLong(final long value) {
+            ensure(Long.BYTES);
+            ByteBuffer.wrap(bytes, size, Long.BYTES).putLong(value);
+            size += Long.BYTES;
+        }
+
+        /**
+         * @param length требуемое место.
+         */
+        private void ensure(final int length) {
+            if (size + length > bytes.length) {
+                bytes = Arrays.copyOf(bytes,
+                        Math.max(bytes.length * 2, size + length));
+            }
+        }
+    }
+}
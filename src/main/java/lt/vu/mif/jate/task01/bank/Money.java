@@ -0,0 +1,182 @@
+package lt.vu.mif.jate.task01.bank;
+
+import java.math.BigDecimal;
+import java.util.Currency;
+import java.util.Objects;
+
+/**
+ * Неизменяемая денежная сумма в минимальных единицах валюты.
+ */
+public final class Money implements Comparable<Money> {
+    /**
+     * Количество знаков после запятой.
+     */
+    public static final int SCALE = 2;
+    /**
+     * Сумма в минимальных единицах.
+     */
+    private final long minorUnits;
+    /**
+     * Валюта.
+     */
+    private final Currency currency;
+
+    /**
+     * @param pMinorUnits сумма в минимальных единицах.
+     * @param pCurrency   валюта.
+     */
+    private Money(final long pMinorUnits,
+                  final Currency pCurrency) {
+        minorUnits = pMinorUnits;
+        currency = Objects.requireNonNull(pCurrency);
+    }
+
+    /**
+     * @param minorUnits сумма в минимальных единицах.
+     * @param currency   валюта.
+     * @return денежная сумма.
+     */
+    public static Money ofMinor(final long minorUnits,
+                                final Currency currency) {
+        return new Money(minorUnits, currency);
+    }
+
+    /**
+     * @param currency валюта.
+     * @return нулевая сумма в валюте.
+     */
+    public static Money zero(final Currency currency) {
+        return new Money(0, currency);
+    }
+
+    /**
+     * Точное преобразование числа в денежную сумму.
+     *
+     * @param amount   сумма.
+     * @param currency валюта.
+     * @return денежная сумма.
+     * @throws NumberFormatException больше двух знаков после запятой.
+     * @throws ArithmeticException   сумма не помещается в long.
+     */
+    public static Money of(final BigDecimal amount,
+                           final Currency currency) {
+        BigDecimal scaled;
+        try {
+            scaled = amount.setScale(SCALE);
+        } catch (ArithmeticException ex) {
+            throw new NumberFormatException();
+        }
+        return new Money(scaled.unscaledValue().longValueExact(), currency);
+    }
+
+    /**
+     * Сумма операции со счётом: проверяет то же, что
+     * {@link Converter#checkRange(BigDecimal)}, за одно преобразование,
+     * без {@link BigDecimal#stripTrailingZeros()}.
+     *
+     * @param amount   неотрицательная сумма.
+     * @param currency валюта.
+     * @return денежная сумма.
+     * @throws NumberFormatException отрицательная сумма или больше двух
+     *                               знаков после запятой.
+     * @throws ArithmeticException   сумма не помещается в long.
+     */
+    static Money ofAmount(final BigDecimal amount,
+                          final Currency currency) {
+        if (amount.signum() < 0) {
+            throw new NumberFormatException();
+        }
+        return of(amount, currency);
+    }
+
+    /**
+     * @return сумма в минимальных единицах.
+     */
+    public long getMinorUnits() {
+        return minorUnits;
+    }
+
+    /**
+     * @return валюта.
+     */
+    public Currency getCurrency() {
+        return currency;
+    }
+
+    /**
+     * @return сумма в виде числа с двумя знаками после запятой.
+     */
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minorUnits, SCALE);
+    }
+
+    /**
+     * @return знак суммы.
+     */
+    public int signum() {
+        return Long.signum(minorUnits);
+    }
+
+    /**
+     * @param other слагаемое в той же валюте.
+     * @return сумма.
+     */
+    public Money plus(final Money other) {
+        checkCurrency(other);
+        return new Money(Math.addExact(minorUnits, other.minorUnits),
+                currency);
+    }
+
+    /**
+     * @param other вычитаемое в той же валюте.
+     * @return разность.
+     */
+    public Money minus(final Money other) {
+        checkCurrency(other);
+        return new Money(Math.subtractExact(minorUnits, other.minorUnits),
+                currency);
+    }
+
+    /**
+     * Проверка совпадения валют.
+     *
+     * @param other другая сумма.
+     */
+    private void checkCurrency(final Money other) {
+        if (!currency.equals(other.currency)) {
+            throw new IllegalArgumentException(String.format(
+                    "Currency mismatch: %s and %s",
+                    currency, other.currency));
+        }
+    }
+
+    @Override
+    public int compareTo(final Money other) {
+        checkCurrency(other);
+        return Long.compare(minorUnits, other.minorUnits);
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        Money money = (Money) o;
+        return minorUnits == money.minorUnits
+                && currency.equals(money.currency);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(minorUnits, currency);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString() + " "
+                + currency.getCurrencyCode();
+    }
+}
@@ -0,0 +1,223 @@
+package lt.vu.mif.jate.task01.bank;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+
+/**
+ * Данные счёта вне кучи: вид на запись {@link AccountStore} банка.
+ * Номер, банк, состояние, позиция журнала и остатки в
+ * {@link #INLINE_SLOTS} валютах хранятся в записи; объект содержит только
+ * хранилище и номер записи, поэтому десятки миллионов счетов не
+ * нагружают сборщик мусора. Валюты сверх {@link #INLINE_SLOTS} хранятся
+ * в {@link CompactBalances} в куче. Остатки не потокобезопасны, как у
+ * {@link CompactBalances}; состояние меняется атомарно.
+ */
+final class OffHeapRecord extends AccountRecord implements Balances {
+    /**
+     * Количество валют, хранимых в записи.
+     */
+    static final int INLINE_SLOTS = 7;
+    /**
+     * Хранилище записей.
+     */
+    private final AccountStore store;
+    /**
+     * Номер записи.
+     */
+    private final int record;
+    /**
+     * Остатки в валютах, не поместившихся в запись, или null.
+     */
+    private CompactBalances overflow;
+
+    /**
+     * @param pStore  хранилище записей.
+     * @param pRecord номер записи.
+     */
+    OffHeapRecord(final AccountStore pStore, final int pRecord) {
+        store = pStore;
+        record = pRecord;
+    }
+
+    @Override
+    long keyWord(final int index) {
+        return slab().getLong(AccountStore.offset(record)
+                + AccountStore.KEY_OFFSET + index * Long.BYTES);
+    }
+
+    @Override
+    String unpackedIban() {
+        return store.unpackedIban(record);
+    }
+
+    @Override
+    Bank bank() {
+        return store.bank(record);
+    }
+
+    @Override
+    BigInteger number() {
+        return store.number(record);
+    }
+
+    @Override
+    int state() {
+        return store.state(record);
+    }
+
+    @Override
+    void setState(final int state) {
+        store.setState(record, state);
+    }
+
+    @Override
+    boolean compareAndSetState(final int expected, final int update) {
+        return store.compareAndSetState(record, expected, update);
+    }
+
+    @Override
+    long journalPosition() {
+        return slab().getLong(AccountStore.offset(record)
+                + AccountStore.JOURNAL_OFFSET);
+    }
+
+    @Override
+    void setJournalPosition(final long position) {
+        slab().putLong(AccountStore.offset(record)
+                + AccountStore.JOURNAL_OFFSET, position);
+    }
+
+    @Override
+    Balances balances() {
+        return this;
+    }
+
+    /**
+     * @return плита записи.
+     */
+    private ByteBuffer slab() {
+        return store.slab(record);
+    }
+
+    /**
+     * @param slot ячейка записи.
+     * @return смещение номера валюты ячейки в плите.
+     */
+    private int currencyOffset(final int slot) {
+        return AccountStore.offset(record) + AccountStore.CURRENCIES_OFFSET
+                + slot * Short.BYTES;
+    }
+
+    /**
+     * @param slot ячейка записи.
+     * @return смещение суммы ячейки в плите.
+     */
+    private int amountOffset(final int slot) {
+        return AccountStore.offset(record) + AccountStore.AMOUNTS_OFFSET
+                + slot * Long.BYTES;
+    }
+
+    @Override
+    public long get(final int currency) {
+        int slot = find(currency);
+        if (slot >= 0) {
+            return amountAt(slot);
+        }
+        if (overflow != null) {
+            return overflow.get(currency);
+        }
+        return 0;
+    }
+
+    @Override
+    public void add(final int currency, final long delta) {
+        int slot = find(currency);
+        if (slot >= 0) {
+            long amount = Math.addExact(amountAt(slot), delta);
+            if (amount == 0) {
+                slab().putShort(currencyOffset(slot), (short) 0);
+            }
+            slab().putLong(amountOffset(slot), amount);
+        } else if (overflow != null && overflow.get(currency) != 0) {
+            overflow.add(currency, delta);
+        } else if (delta != 0) {
+            insert(currency, delta);
+        }
+    }
+
+    @Override
+    public boolean compareAndSet(final int currency,
+                                 final long expected,
+                                 final long update) {
+        if (get(currency) != expected) {
+            return false;
+        }
+        add(currency, update - expected);
+        return true;
+    }
+
+    @Override
+    public int slots() {
+        if (overflow == null) {
+            return INLINE_SLOTS;
+        }
+        return INLINE_SLOTS + overflow.slots();
+    }
+
+    @Override
+    public int currencyAt(final int slot) {
+        if (slot >= INLINE_SLOTS) {
+            return overflow.currencyAt(slot - INLINE_SLOTS);
+        }
+        return Math.max(slab().getShort(currencyOffset(slot)) - 1, 0);
+    }
+
+    @Override
+    public long amountAt(final int slot) {
+        if (slot >= INLINE_SLOTS) {
+            return overflow.amountAt(slot - INLINE_SLOTS);
+        }
+        return slab().getLong(amountOffset(slot));
+    }
+
+    @Override
+    public boolean isAtomic() {
+        return false;
+    }
+
+    /**
+     * @param currency номер валюты.
+     * @return ячейка валюты в записи или -1.
+     */
+    private int find(final int currency) {
+        short key = (short) (currency + 1);
+        ByteBuffer slab = slab();
+        for (int i = 0; i < INLINE_SLOTS; i++) {
+            if (slab.getShort(currencyOffset(i)) == key) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Добавление валюты в свободную ячейку записи или в кучу.
+     *
+     * @param currency номер валюты.
+     * @param amount   остаток.
+     */
+    private void insert(final int currency, final long amount) {
+        ByteBuffer slab = slab();
+        for (int i = 0; i < INLINE_SLOTS; i++) {
+            if (slab.getShort(currencyOffset(i)) == 0) {
+                slab.putShort(currencyOffset(i), (short) (currency + 1));
+                slab.putLong(amountOffset(i), amount);
+                return;
+            }
+        }
+        if (overflow == null) {
+            overflow = new CompactBalances();
+        }
+        overflow.add(currency, amount);
+    }
+}
@@ -0,0 +1,35 @@
+package lt.vu.mif.jate.task01.bank;
+
+/**
+ * Состояние счёта, которое будет установлено вместе с ещё не применёнными
+ * изменениями остатков. Передаётся в
+ * {@link Account#checkCredit(Money, PendingState)}, чтобы проверка могла
+ * решить, каким станет состояние, не меняя сам счёт.
+ */
+public final class PendingState {
+    /**
+     * Состояние.
+     */
+    private int value;
+
+    /**
+     * @param pValue текущее состояние.
+     */
+    PendingState(final int pValue) {
+        value = pValue;
+    }
+
+    /**
+     * @return состояние.
+     */
+    public int get() {
+        return value;
+    }
+
+    /**
+     * @param pValue новое состояние.
+     */
+    public void set(final int pValue) {
+        value = pValue;
+    }
+}
@@ -0,0 +1,269 @@
+package lt.vu.mif.jate.task01.bank;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Currency;
+
+/**
+ * Неизменяемая история курсов валют.
+ * Курсы каждой валюты хранятся по столбцам: моменты начала действия и
+ * курсы в виде чисел без запятой с количеством знаков после запятой.
+ * Курс на момент времени находится двоичным поиском.
+ */
+final class RateHistory {
+    /**
+     * Количество полей в строке истории.
+     */
+    private static final int RATE_ATTRIBUTES = 4;
+    /**
+     * Максимальное количество знаков курса, помещающегося в long.
+     */
+    private static final int MAX_DIGITS = 18;
+    /**
+     * Начальный размер столбцов валюты.
+     */
+    private static final int INITIAL_SIZE = 16;
+    /**
+     * Курсы по номерам валют, пусто для валют без истории.
+     */
+    private final Series[] series;
+
+    /**
+     * @param pSeries курсы по номерам валют.
+     */
+    private RateHistory(final Series[] pSeries) {
+        series = pSeries;
+    }
+
+    /**
+     * @return пустая история.
+     */
+    static RateHistory empty() {
+        return new RateHistory(new Series[0]);
+    }
+
+    /**
+     * Чтение истории в формате
+     * {@code ГГГГ-ММ-ДД:КОД:в базовую:из базовой}; курс действует с начала
+     * дня по UTC до следующего курса той же валюты. Строки с неизвестными
+     * валютами, датами и неверными курсами пропускаются. Базовая валюта без
+     * истории получает единичный курс на всё время.
+     *
+     * @param reader       ридер истории.
+     * @param baseCurrency базовая валюта.
+     * @return история курсов.
+     * @throws IOException ошибка чтения.
+     */
+    static RateHistory read(final BufferedReader reader,
+                            final Currency baseCurrency)
+            throws IOException {
+        Series[] newSeries = new Series[CurrencyId.capacity()];
+        String line;
+        while ((line = reader.readLine()) != null) {
+            String[] attributes = line.split(":");
+            if (attributes.length != RATE_ATTRIBUTES) {
+                continue;
+            }
+            try {
+                long time = LocalDate.parse(attributes[0])
+                        .atStartOfDay(ZoneOffset.UTC).toInstant()
+                        .toEpochMilli();
+                int currency = CurrencyId.of(
+                        Currency.getInstance(attributes[1]));
+                BigDecimal to = checkDigits(new BigDecimal(attributes[2]));
+                BigDecimal from = checkDigits(new BigDecimal(
+                        attributes[RATE_ATTRIBUTES - 1]));
+                if (newSeries[currency] == null) {
+                    newSeries[currency] = new Series();
+                }
+                newSeries[currency].put(time, to, from);
+            } catch (IllegalArgumentException
+                    | DateTimeParseException ignored) {
+            }
+        }
+        int base = CurrencyId.of(baseCurrency);
+        if (newSeries[base] == null) {
+            newSeries[base] = new Series();
+            newSeries[base].put(Long.MIN_VALUE, BigDecimal.ONE,
+                    BigDecimal.ONE);
+        }
+        for (Series currencySeries : newSeries) {
+            if (currencySeries != null) {
+                currencySeries.trim();
+            }
+        }
+        return new RateHistory(newSeries);
+    }
+
+    /**
+     * @param currency номер валюты.
+     * @param time     момент времени в миллисекундах эпохи.
+     * @return курс валюты относительно базовой, действовавший в момент.
+     * @throws IllegalArgumentException курса на момент нет.
+     */
+    BigDecimal getRateToBase(final int currency, final long time) {
+        Series currencySeries = series(currency);
+        int index = currencySeries.indexOf(time);
+        return BigDecimal.valueOf(currencySeries.toUnscaled[index],
+                currencySeries.toScales[index]);
+    }
+
+    /**
+     * @param currency номер валюты.
+     * @param time     момент времени в миллисекундах эпохи.
+     * @return курс базовой относительно валюты, действовавший в момент.
+     * @throws IllegalArgumentException курса на момент нет.
+     */
+    BigDecimal getRateFromBase(final int currency, final long time) {
+        Series currencySeries = series(currency);
+        int index = currencySeries.indexOf(time);
+        return BigDecimal.valueOf(currencySeries.fromUnscaled[index],
+                currencySeries.fromScales[index]);
+    }
+
+    /**
+     * @param currency номер валюты.
+     * @return курсы валюты.
+     * @throws IllegalArgumentException истории валюты нет.
+     */
+    private Series series(final int currency) {
+        if (currency >= series.length || series[currency] == null) {
+            throw new IllegalArgumentException("No rate");
+        }
+        return series[currency];
+    }
+
+    /**
+     * @param rate курс.
+     * @return курс с неотрицательным количеством знаков после запятой.
+     * @throws NumberFormatException курс не помещается в long.
+     */
+    private static BigDecimal checkDigits(final BigDecimal rate) {
+        BigDecimal normalized = rate;
+        if (rate.scale() < 0) {
+            normalized = rate.setScale(0);
+        }
+        if (normalized.precision() > MAX_DIGITS
+                || normalized.scale() > MAX_DIGITS) {
+            throw new NumberFormatException();
+        }
+        return normalized;
+    }
+
+    /**
+     * Столбцы курсов одной валюты, упорядоченные по времени.
+     */
+    private static final class Series {
+        /**
+         * Моменты начала действия курсов в миллисекундах эпохи.
+         */
+        private long[] times = new long[INITIAL_SIZE];
+        /**
+         * Курсы перевода в базовую валюту без запятой.
+         */
+        private long[] toUnscaled = new long[INITIAL_SIZE];
+        /**
+         * Знаков после запятой в курсах перевода в базовую валюту.
+         */
+        private byte[] toScales = new byte[INITIAL_SIZE];
+        /**
+         * Курсы перевода из базовой валюты без запятой.
+         */
+        private long[] fromUnscaled = new long[INITIAL_SIZE];
+        /**
+         * Знаков после запятой в курсах перевода из базовой валюты.
+         */
+        private byte[] fromScales = new byte[INITIAL_SIZE];
+        /**
+         * Количество курсов.
+         */
+        private int size;
+
+        /**
+         * Добавление курса; курс на тот же момент заменяется. Курсы обычно
+         * идут по времени, поэтому вставка в середину - редкий случай.
+         *
+         * @param time момент начала действия.
+         * @param to   курс перевода в базовую валюту.
+         * @param from курс перевода из базовой валюты.
+         */
+        void put(final long time, final BigDecimal to,
+                 final BigDecimal from) {
+            int index = Arrays.binarySearch(times, 0, size, time);
+            if (index < 0) {
+                index = -index - 1;
+                if (size == times.length) {
+                    grow();
+                }
+                shift(index);
+                size++;
+            }
+            times[index] = time;
+            toUnscaled[index] = to.unscaledValue().longValue();
+            toScales[index] = (byte) to.scale();
+            fromUnscaled[index] = from.unscaledValue().longValue();
+            fromScales[index] = (byte) from.scale();
+        }
+
+        /**
+         * @param time момент времени.
+         * @return номер курса, действовавшего в момент.
+         * @throws IllegalArgumentException момент раньше первого курса.
+         */
+        int indexOf(final long time) {
+            int index = Arrays.binarySearch(times, 0, size, time);
+            if (index < 0) {
+                index = -index - 2;
+            }
+            if (index < 0) {
+                throw new IllegalArgumentException("No rate");
+            }
+            return index;
+        }
+
+        /**
+         * Освобождение неиспользуемого места в столбцах.
+         */
+        void trim() {
+            times = Arrays.copyOf(times, size);
+            toUnscaled = Arrays.copyOf(toUnscaled, size);
+            toScales = Arrays.copyOf(toScales, size);
+            fromUnscaled = Arrays.copyOf(fromUnscaled, size);
+            fromScales = Arrays.copyOf(fromScales, size);
+        }
+
+        /**
+         * Увеличение столбцов вдвое.
+         */
+        private void grow() {
+            int capacity = times.length * 2;
+            times = Arrays.copyOf(times, capacity);
+            toUnscaled = Arrays.copyOf(toUnscaled, capacity);
+            toScales = Arrays.copyOf(toScales, capacity);
+            fromUnscaled = Arrays.copyOf(fromUnscaled, capacity);
+            fromScales = Arrays.copyOf(fromScales, capacity);
+        }
+
+        /**
+         * Сдвиг курсов начиная с номера на одну позицию вправо.
+         *
+         * @param index номер.
+         */
+        private void shift(final int index) {
+            int length = size - index;
+            System.arraycopy(times, index, times, index + 1, length);
+            System.arraycopy(toUnscaled, index, toUnscaled, index + 1,
+                    length);
+            System.arraycopy(toScales, index, toScales, index + 1, length);
+            System.arraycopy(fromUnscaled, index, fromUnscaled, index + 1,
+                    length);
+            System.arraycopy(fromScales, index, fromScales, index + 1,
+                    length);
+        }
+    }
+}
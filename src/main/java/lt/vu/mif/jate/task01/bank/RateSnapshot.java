@@ -0,0 +1,293 @@
+package lt.vu.mif.jate.task01.bank;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Неизменяемый набор курсов валют с номером версии.
+ * Конвертер заменяет набор целиком, поэтому конвертация, начатая со
+ * старым набором, не видит частично обновлённых курсов.
+ * Вместе с курсами хранится таблица кросс-курсов, индексированная
+ * номерами валют {@link CurrencyId}.
+ */
+final class RateSnapshot {
+    /**
+     * Признак кросс-курса, не помещающегося в long.
+     */
+    static final int INEXACT = -1;
+    /**
+     * Максимальное количество знаков кросс-курса, помещающегося в long.
+     */
+    private static final int MAX_DIGITS = 18;
+    /**
+     * Количество полей в строке курса.
+     */
+    private static final int RATE_ATTRIBUTES = 3;
+    /**
+     * Версия курсов.
+     */
+    private final long version;
+    /**
+     * Курсы валют.
+     */
+    private final Map<Currency, Rate> rates;
+    /**
+     * Размерность таблицы кросс-курсов: наибольший номер валюты плюс один.
+     */
+    private final int crossSize;
+    /**
+     * Кросс-курсы, строка - валюта из которой выполняется конвертация,
+     * столбец - валюта в которую. Пусто для валют без курса.
+     */
+    private final BigDecimal[] crossRates;
+    /**
+     * Кросс-курсы без запятой.
+     */
+    private final long[] crossUnscaled;
+    /**
+     * Знаков после запятой в кросс-курсах, {@link #INEXACT} если курс не
+     * помещается в long.
+     */
+    private final int[] crossScales;
+
+    /**
+     * Построение таблицы кросс-курсов. Кросс-курс - точное произведение
+     * курса в базовую валюту и курса из базовой, поэтому конвертация по нему
+     * даёт тот же результат, что и конвертация через базовую валюту.
+     *
+     * @param pVersion версия курсов.
+     * @param pRates   курсы валют.
+     */
+    private RateSnapshot(final long pVersion,
+                         final Map<Currency, Rate> pRates) {
+        version = pVersion;
+        rates = Collections.unmodifiableMap(pRates);
+        int size = 0;
+        for (Currency currency : pRates.keySet()) {
+            size = Math.max(size, CurrencyId.of(currency) + 1);
+        }
+        crossSize = size;
+        crossRates = new BigDecimal[size * size];
+        crossUnscaled = new long[size * size];
+        crossScales = new int[size * size];
+        for (Map.Entry<Currency, Rate> from : pRates.entrySet()) {
+            int row = CurrencyId.of(from.getKey()) * size;
+            for (Map.Entry<Currency, Rate> to : pRates.entrySet()) {
+                int cell = row + CurrencyId.of(to.getKey());
+                BigDecimal cross = normalize(from.getValue().to
+                        .multiply(to.getValue().from).stripTrailingZeros());
+                crossRates[cell] = cross;
+                crossScales[cell] = INEXACT;
+                if (cross.precision() <= MAX_DIGITS
+                        && cross.scale() <= MAX_DIGITS) {
+                    crossUnscaled[cell] = cross.unscaledValue().longValue();
+                    crossScales[cell] = cross.scale();
+                }
+            }
+        }
+    }
+
+    /**
+     * @return пустой набор курсов нулевой версии.
+     */
+    static RateSnapshot empty() {
+        return new RateSnapshot(0, new HashMap<>());
+    }
+
+    /**
+     * @param pVersion   версия курсов.
+     * @param currencies валюты.
+     * @param to         курсы перевода в базовую валюту.
+     * @param from       курсы перевода из базовой валюты.
+     * @return набор курсов.
+     */
+    static RateSnapshot of(final long pVersion,
+                           final Currency[] currencies,
+                           final BigDecimal[] to,
+                           final BigDecimal[] from) {
+        Map<Currency, Rate> newRates = new HashMap<>();
+        for (int i = 0; i < currencies.length; i++) {
+            newRates.put(currencies[i], new Rate(to[i], from[i]));
+        }
+        return new RateSnapshot(pVersion, newRates);
+    }
+
+    /**
+     * Чтение курсов валют в формате {@code КОД:в базовую:из базовой}.
+     * Строки с неизвестными валютами и неверными курсами пропускаются.
+     *
+     * @param pVersion версия курсов.
+     * @param reader   ридер курсов.
+     * @return набор курсов.
+     * @throws IOException ошибка чтения.
+     */
+    static RateSnapshot read(final long pVersion,
+                             final BufferedReader reader)
+            throws IOException {
+        Map<Currency, Rate> newRates = new HashMap<>();
+        String rateString;
+        while ((rateString = reader.readLine()) != null) {
+            String[] rateAttributes = rateString.split(":");
+            if (rateAttributes.length != RATE_ATTRIBUTES) {
+                continue;
+            }
+            String currencyCode = rateAttributes[0];
+            try {
+                Currency currency = Currency.getInstance(currencyCode);
+                BigDecimal to = new BigDecimal(rateAttributes[1]);
+                BigDecimal from = new BigDecimal(rateAttributes[2]);
+                newRates.put(currency, new Rate(to, from));
+                CurrencyId.of(currency);
+            } catch (IllegalArgumentException ignored) {
+            }
+        }
+        return new RateSnapshot(pVersion, newRates);
+    }
+
+    /**
+     * @return версия курсов.
+     */
+    long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return валюты.
+     */
+    Set<Currency> getCurrencies() {
+        return rates.keySet();
+    }
+
+    /**
+     * @param currency валюта.
+     * @return курс валюта относительно базовой.
+     */
+    BigDecimal getRateToBase(final Currency currency) {
+        return rate(currency).to;
+    }
+
+    /**
+     * @param currency валюта.
+     * @return курс базовой относительно валюты.
+     */
+    BigDecimal getRateFromBase(final Currency currency) {
+        return rate(currency).from;
+    }
+
+    /**
+     * @param from номер валюты из которой выполняется конвертация.
+     * @param to   номер валюты в которую выполняется конвертация.
+     * @return ячейка таблицы кросс-курсов.
+     * @throws IllegalArgumentException для валюты нет курса.
+     */
+    int cell(final int from, final int to) {
+        if (from >= crossSize || to >= crossSize
+                || crossRates[from * crossSize + to] == null) {
+            throw new IllegalArgumentException("No rate");
+        }
+        return from * crossSize + to;
+    }
+
+    /**
+     * @param cell ячейка таблицы кросс-курсов.
+     * @return кросс-курс.
+     */
+    BigDecimal crossRate(final int cell) {
+        return crossRates[cell];
+    }
+
+    /**
+     * @param cell ячейка таблицы кросс-курсов.
+     * @return кросс-курс без запятой.
+     */
+    long crossUnscaled(final int cell) {
+        return crossUnscaled[cell];
+    }
+
+    /**
+     * @param cell ячейка таблицы кросс-курсов.
+     * @return знаков после запятой в кросс-курсе или {@link #INEXACT}.
+     */
+    int crossScale(final int cell) {
+        return crossScales[cell];
+    }
+
+    /**
+     * Столбец таблицы кросс-курсов для валюты, в которую выполняется
+     * конвертация, индексированный номерами всех валют. Курс валюты к
+     * самой себе единичный; для валют без курса - {@link #INEXACT}.
+     *
+     * @param to       номер валюты в которую выполняется конвертация.
+     * @param unscaled кросс-курсы без запятой.
+     * @param scales   знаков после запятой в кросс-курсах.
+     */
+    void column(final int to, final long[] unscaled, final int[] scales) {
+        Arrays.fill(scales, INEXACT);
+        if (to < crossSize) {
+            for (int from = 0; from < crossSize; from++) {
+                int cell = from * crossSize + to;
+                if (crossRates[cell] != null) {
+                    unscaled[from] = crossUnscaled[cell];
+                    scales[from] = crossScales[cell];
+                }
+            }
+        }
+        unscaled[to] = 1;
+        scales[to] = 0;
+    }
+
+    /**
+     * @param currency валюта.
+     * @return курс валюты.
+     * @throws IllegalArgumentException для валюты нет курса.
+     */
+    private Rate rate(final Currency currency) {
+        Rate rate = rates.get(currency);
+        if (rate == null) {
+            throw new IllegalArgumentException("No rate");
+        }
+        return rate;
+    }
+
+    /**
+     * @param rate курс.
+     * @return курс с неотрицательным количеством знаков после запятой.
+     */
+    private static BigDecimal normalize(final BigDecimal rate) {
+        if (rate.scale() < 0) {
+            return rate.setScale(0);
+        }
+        return rate;
+    }
+
+    /**
+     * Класс курса валюты.
+     */
+    private static final class Rate {
+        /**
+         * Курс перевода в базовую валюту.
+         */
+        private final BigDecimal to;
+        /**
+         * Курс перевода из базовой валюты.
+         */
+        private final BigDecimal from;
+
+        /**
+         * @param pTo курс перевода в базовую валюту.
+         * @param pFrom курс перевода из базовой валюты.
+         */
+        Rate(final BigDecimal pTo,
+             final BigDecimal pFrom) {
+            to = pTo;
+            from = pFrom;
+        }
+    }
+}
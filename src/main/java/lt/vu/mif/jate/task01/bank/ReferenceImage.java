@@ -0,0 +1,550 @@
+package lt.vu.mif.jate.task01.bank;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.zip.CRC32;
+
+/**
+ * Скомпилированный образ справочников: банков, шаблонов международных
+ * кодов и курсов валют.
+ * Образ собирается из текстовых файлов методом {@link #compile(Path)} (или
+ * запуском этого класса) и при старте отображается в память один раз на
+ * контекст; при открытии читается только заголовок и список стран
+ * раздела банков. Банки страны разбираются при первом обращении к ним,
+ * шаблоны и курсы — при первом обращении к разделу. Образ хранит размеры
+ * и время изменения исходных файлов и считается устаревшим, если
+ * какой-либо из них изменился; тогда справочники читаются из текста.
+ * Контрольная сумма разделов при открытии не проверяется, для проверки
+ * есть {@link #verify(Path)}.
+ * <p>
+ * Формат: заголовок (сигнатура, версия формата, размер и время изменения
+ * каждого исходного файла, смещения разделов, контрольная сумма CRC32
+ * разделов), затем разделы банков (список стран со смещениями и банки по
+ * странам), шаблонов и курсов.
+ */
+public final class ReferenceImage {
+    /**
+     * Имя файла образа.
+     */
+    static final String IMAGE_FILE = "reference.bin";
+    /**
+     * Имя файла банков.
+     */
+    static final String BANKS_FILE = "banks.txt";
+    /**
+     * Имя файла шаблонов международных кодов.
+     */
+    static final String IBAN_FILE = "iban.txt";
+    /**
+     * Имя файла курсов.
+     */
+    static final String RATES_FILE = "rates.txt";
+    /**
+     * Сигнатура образа, {@code BREF}.
+     */
+    private static final int MAGIC = 0x42524546;
+    /**
+     * Версия формата.
+     */
+    private static final int VERSION = 2;
+    /**
+     * Исходные файлы в порядке разделов.
+     */
+    private static final String[] SOURCES = {BANKS_FILE, IBAN_FILE,
+            RATES_FILE};
+    /**
+     * Длина кода валюты.
+     */
+    private static final int CODE_LENGTH = 3;
+    /**
+     * Размер заголовка: сигнатура, версия, по два long и одному int на
+     * раздел, контрольная сумма.
+     */
+    private static final int HEADER_SIZE = Integer.BYTES * 2
+            + SOURCES.length * (Long.BYTES * 2 + Integer.BYTES) + Long.BYTES;
+    /**
+     * Начальный размер буфера записи.
+     */
+    private static final int BUFFER_SIZE = 65_536;
+    /**
+     * Отображённый образ.
+     */
+    private final ByteBuffer image;
+    /**
+     * Смещения разделов.
+     */
+    private final int[] sections;
+    /**
+     * Смещения банков по странам.
+     */
+    private final Map<String, Integer> countries;
+
+    /**
+     * @param pImage    отображённый образ.
+     * @param pSections смещения разделов.
+     */
+    private ReferenceImage(final ByteBuffer pImage, final int[] pSections) {
+        image = pImage;
+        sections = pSections;
+        countries = new HashMap<>();
+        ByteBuffer in = section(0);
+        int count = in.getInt();
+        for (int i = 0; i < count; i++) {
+            String country = getString(in);
+            countries.put(country, in.getInt());
+        }
+    }
+
+    /**
+     * Сборка образа из текстовых справочников каталога.
+     *
+     * @param args каталог справочников, по умолчанию
+     *             {@link Banking#RESOURCES_PATH}.
+     * @throws IOException ошибка чтения или записи.
+     */
+    public static void main(final String[] args) throws IOException {
+        String directory = Banking.RESOURCES_PATH;
+        if (args.length > 0) {
+            directory = args[0];
+        }
+        compile(Paths.get(directory));
+    }
+
+    /**
+     * Сборка образа {@value #IMAGE_FILE} из текстовых справочников каталога.
+     * Образ записывается во временный файл и затем заменяет прежний, поэтому
+     * читатели не видят наполовину записанного образа.
+     *
+     * @param directory каталог справочников.
+     * @throws IOException ошибка чтения или записи.
+     */
+    public static void compile(final Path directory) throws IOException {
+        Buffer out = new Buffer();
+        out.putInt(MAGIC);
+        out.putInt(VERSION);
+        for (String source : SOURCES) {
+            Path file = directory.resolve(source);
+            out.putLong(Files.size(file));
+            out.putLong(Files.getLastModifiedTime(file).toMillis());
+        }
+        int sectionsAt = out.position();
+        for (int i = 0; i < SOURCES.length; i++) {
+            out.putInt(0);
+        }
+        int crcAt = out.position();
+        out.putLong(0);
+
+        int[] offsets = new int[SOURCES.length];
+        offsets[0] = out.position();
+        writeBanks(out, directory.resolve(BANKS_FILE));
+        offsets[1] = out.position();
+        writeIban(out, directory.resolve(IBAN_FILE));
+        offsets[2] = out.position();
+        writeRates(out, directory.resolve(RATES_FILE));
+        for (int i = 0; i < SOURCES.length; i++) {
+            out.putInt(sectionsAt + i * Integer.BYTES, offsets[i]);
+        }
+        out.putLong(crcAt, crc(out.bytes(), HEADER_SIZE, out.position()));
+
+        Path target = directory.resolve(IMAGE_FILE);
+        Path temporary = directory.resolve(IMAGE_FILE + ".tmp");
+        Files.write(temporary, out.toArray());
+        Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Проверка контрольной суммы образа каталога.
+     *
+     * @param directory каталог справочников.
+     * @return есть-ли в каталоге неустаревший образ с верной контрольной
+     * суммой.
+     */
+    public static boolean verify(final Path directory) {
+        ReferenceImage opened = open(directory);
+        return opened != null && opened.image.getLong(HEADER_SIZE
+                - Long.BYTES) == crc(opened.image, HEADER_SIZE,
+                opened.image.limit());
+    }
+
+    /**
+     * Отображение образа каталога в память. Проверяются только заголовок
+     * и актуальность, см. {@link #verify(Path)}.
+     *
+     * @param directory каталог справочников.
+     * @return образ или null, если образа нет, он другой версии, с
+     * неверным заголовком или устарел.
+     */
+    static ReferenceImage open(final Path directory) {
+        ByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(
+                directory.resolve(IMAGE_FILE), StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE
+                    || channel.size() > Integer.MAX_VALUE) {
+                return null;
+            }
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                    channel.size());
+        } catch (IOException ex) {
+            return null;
+        }
+        try {
+            if (mapped.getInt() != MAGIC || mapped.getInt() != VERSION) {
+                return null;
+            }
+            for (String source : SOURCES) {
+                long size = mapped.getLong();
+                long modified = mapped.getLong();
+                if (isChanged(directory.resolve(source), size, modified)) {
+                    return null;
+                }
+            }
+            int[] offsets = new int[SOURCES.length];
+            for (int i = 0; i < SOURCES.length; i++) {
+                offsets[i] = mapped.getInt();
+                if (offsets[i] < HEADER_SIZE
+                        || offsets[i] > mapped.limit()) {
+                    return null;
+                }
+            }
+            return new ReferenceImage(mapped, offsets);
+        } catch (IOException | RuntimeException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * @return страны, банки которых есть в образе.
+     */
+    Set<String> countries() {
+        return Collections.unmodifiableSet(countries.keySet());
+    }
+
+    /**
+     * @param country страна.
+     * @return банки страны по кодам или null, если страны нет в образе.
+     */
+    ConcurrentMap<Integer, Bank> banks(final String country) {
+        Integer offset = countries.get(country);
+        if (offset == null) {
+            return null;
+        }
+        ByteBuffer in = image.duplicate();
+        in.position(offset);
+        ConcurrentMap<Integer, Bank> banks = new ConcurrentHashMap<>();
+        int count = in.getInt();
+        for (int i = 0; i < count; i++) {
+            int code = in.getInt();
+            String bicCode = getString(in);
+            String name = getString(in);
+            String address = getString(in);
+            banks.put(code, new Bank(country, code, bicCode, name, address));
+        }
+        return banks;
+    }
+
+    /**
+     * @return парсеры международных кодов по странам.
+     */
+    Map<String, IBANParser> ibanParsers() {
+        ByteBuffer in = section(1);
+        Map<String, IBANParser> parsers = new HashMap<>();
+        int count = in.getInt();
+        for (int i = 0; i < count; i++) {
+            String country = getString(in);
+            parsers.put(country, new IBANParser(country, getString(in)));
+        }
+        return parsers;
+    }
+
+    /**
+     * @param version версия курсов.
+     * @return курсы валют.
+     */
+    RateSnapshot rates(final long version) {
+        ByteBuffer in = section(2);
+        int count = in.getInt();
+        Currency[] currencies = new Currency[count];
+        BigDecimal[] to = new BigDecimal[count];
+        BigDecimal[] from = new BigDecimal[count];
+        byte[] code = new byte[CODE_LENGTH];
+        for (int i = 0; i < count; i++) {
+            in.get(code);
+            currencies[i] = CurrencyId.currency(CurrencyId.of(
+                    new String(code, StandardCharsets.US_ASCII)));
+            to[i] = getDecimal(in);
+            from[i] = getDecimal(in);
+        }
+        return RateSnapshot.of(version, currencies, to, from);
+    }
+
+    /**
+     * @param section номер раздела.
+     * @return буфер, установленный на начало раздела.
+     */
+    private ByteBuffer section(final int section) {
+        ByteBuffer in = image.duplicate();
+        in.position(sections[section]);
+        return in;
+    }
+
+    /**
+     * @param out  буфер записи.
+     * @param file файл банков.
+     * @throws IOException ошибка чтения.
+     */
+    private static void writeBanks(final Buffer out, final Path file)
+            throws IOException {
+        Map<String, Map<Integer, Bank>> banks;
+        try (BufferedReader reader = Files.newBufferedReader(file,
+                StandardCharsets.UTF_8)) {
+            banks = Banking.readBanks(reader);
+        }
+        List<String> countries = new ArrayList<>(banks.keySet());
+        out.putInt(countries.size());
+        int[] offsets = new int[countries.size()];
+        for (int i = 0; i < offsets.length; i++) {
+            out.putString(countries.get(i));
+            offsets[i] = out.position();
+            out.putInt(0);
+        }
+        for (int i = 0; i < offsets.length; i++) {
+            out.putInt(offsets[i], out.position());
+            Collection<Bank> country = banks.get(countries.get(i)).values();
+            out.putInt(country.size());
+            for (Bank bank : country) {
+                out.putInt(bank.getCode());
+                out.putString(bank.getBicCode());
+                out.putString(bank.getName());
+                out.putString(bank.getAddress());
+            }
+        }
+    }
+
+    /**
+     * @param out  буфер записи.
+     * @param file файл шаблонов международных кодов.
+     * @throws IOException ошибка чтения.
+     */
+    private static void writeIban(final Buffer out, final Path file)
+            throws IOException {
+        Map<String, IBANParser> parsers;
+        try (BufferedReader reader = Files.newBufferedReader(file,
+                StandardCharsets.UTF_8)) {
+            parsers = Banking.readIban(reader);
+        }
+        out.putInt(parsers.size());
+        for (IBANParser parser : parsers.values()) {
+            out.putString(parser.getCountry());
+            out.putString(parser.getPatternString());
+        }
+    }
+
+    /**
+     * @param out  буфер записи.
+     * @param file файл курсов.
+     * @throws IOException ошибка чтения.
+     */
+    private static void writeRates(final Buffer out, final Path file)
+            throws IOException {
+        RateSnapshot rates;
+        try (BufferedReader reader = Files.newBufferedReader(file,
+                StandardCharsets.UTF_8)) {
+            rates = RateSnapshot.read(0, reader);
+        }
+        out.putInt(rates.getCurrencies().size());
+        for (Currency currency : rates.getCurrencies()) {
+            out.put(currency.getCurrencyCode()
+                    .getBytes(StandardCharsets.US_ASCII));
+            out.putDecimal(rates.getRateToBase(currency));
+            out.putDecimal(rates.getRateFromBase(currency));
+        }
+    }
+
+    /**
+     * @param file     исходный файл.
+     * @param size     размер файла при сборке образа.
+     * @param modified время изменения файла при сборке образа.
+     * @return изменился-ли файл; отсутствующий файл не считается
+     * изменившимся, справочник берётся из образа.
+     * @throws IOException ошибка чтения атрибутов.
+     */
+    private static boolean isChanged(final Path file,
+                                     final long size,
+                                     final long modified)
+            throws IOException {
+        if (!Files.exists(file)) {
+            return false;
+        }
+        return Files.size(file) != size
+                || Files.getLastModifiedTime(file).toMillis() != modified;
+    }
+
+    /**
+     * @param in    буфер.
+     * @param start начало.
+     * @param end   конец, не включая.
+     * @return контрольная сумма.
+     */
+    private static long crc(final ByteBuffer in,
+                            final int start,
+                            final int end) {
+        ByteBuffer range = in.duplicate();
+        range.position(start);
+        range.limit(end);
+        CRC32 crc = new CRC32();
+        crc.update(range);
+        return crc.getValue();
+    }
+
+    /**
+     * @param in буфер.
+     * @return строка.
+     */
+    private static String getString(final ByteBuffer in) {
+        byte[] bytes = new byte[in.getInt()];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param in буфер.
+     * @return число.
+     */
+    private static BigDecimal getDecimal(final ByteBuffer in) {
+        int scale = in.getInt();
+        byte[] unscaled = new byte[in.getInt()];
+        in.get(unscaled);
+        return new BigDecimal(new BigInteger(unscaled), scale);
+    }
+
+    /**
+     * Растущий буфер записи образа.
+     */
+    private static final class Buffer {
+        /**
+         * Данные.
+         */
+        private ByteBuffer data = ByteBuffer.allocate(BUFFER_SIZE);
+
+        /**
+         * @return текущая позиция.
+         */
+        int position() {
+            return data.position();
+        }
+
+        /**
+         * @return записанные данные.
+         */
+        ByteBuffer bytes() {
+            return data;
+        }
+
+        /**
+         * @return копия записанных данных.
+         */
+        byte[] toArray() {
+            byte[] result = new byte[data.position()];
+            System.arraycopy(data.array(), 0, result, 0, result.length);
+            return result;
+        }
+
+        /**
+         * @param value значение.
+         */
+        void putInt(final int value) {
+            ensure(Integer.BYTES);
+            data.putInt(value);
+        }
+
+        /**
+         * @param index позиция.
+         * @param value значение.
+         */
+        void putInt(final int index, final int value) {
+            data.putInt(index, value);
+        }
+
+        /**
+         * @param value значение.
+         */
+        void putLong(final long value) {
+            ensure(Long.BYTES);
+            data.putLong(value);
+        }
+
+        /**
+         * @param index позиция.
+         * @param value значение.
+         */
+        void putLong(final int index, final long value) {
+            data.putLong(index, value);
+        }
+
+        /**
+         * @param bytes байты.
+         */
+        void put(final byte[] bytes) {
+            ensure(bytes.length);
+            data.put(bytes);
+        }
+
+        /**
+         * @param value строка или null.
+         */
+        void putString(final String value) {
+            String text = value;
+            if (text == null) {
+                text = "";
+            }
+            byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            putInt(bytes.length);
+            put(bytes);
+        }
+
+        /**
+         * @param value число.
+         */
+        void putDecimal(final BigDecimal value) {
+            byte[] unscaled = value.unscaledValue().toByteArray();
+            putInt(value.scale());
+            putInt(unscaled.length);
+            put(unscaled);
+        }
+
+        /**
+         * @param size количество записываемых байтов.
+         */
+        private void ensure(final int size) {
+            if (data.remaining() < size) {
+                ByteBuffer grown = ByteBuffer.allocate(
+                        Math.max(data.capacity() * 2,
+                                data.position() + size));
+                data.flip();
+                grown.put(data);
+                data = grown;
+            }
+        }
+    }
+}
@@ -12,6 +12,8 @@ import java.util.Currency;
 public class SavingsAccount extends Account {
 
     /**
+     * Счёт контекста по умолчанию.
+     *
      * @param iban международный код.
      * @param bank банк.
      * @param number номер.
@@ -22,18 +24,40 @@ public class SavingsAccount extends Account {
         super(iban, bank, number);
     }
 
+    /**
+     * @param context контекст банка.
+     * @param iban международный код.
+     * @param bank банк.
+     * @param number номер.
+     */
+    public SavingsAccount(final BankingContext context,
+                          final String iban,
+                          final Bank bank,
+                          final BigInteger number) {
+        super(context, iban, bank, number);
+    }
+
     @Override
     public final void credit(final BigDecimal amount,
                              final String currencyCode) {
-        credit(Converter.getInstance().checkRange(amount),
-                Currency.getInstance(currencyCode));
+        credit(money(amount, CurrencyId.of(currencyCode)));
+    }
+
+    @Override
+    public final void credit(final BigDecimal amount,
+                             final int currency) {
+        credit(money(amount, currency));
     }
 
     @Override
     public final void credit(final BigDecimal amount,
                              final Currency currency) {
-        getBalance().put(currency,
-                getBalance().get(currency).add(amount));
+        credit(Money.of(amount, currency));
+    }
+
+    @Override
+    public final void credit(final Money amount) {
+        deposit(amount);
     }
 
     @Override
@@ -42,10 +66,26 @@ public class SavingsAccount extends Account {
         throw new AccountActionException();
     }
 
+    @Override
+    public final void debit(final BigDecimal amount,
+                            final int currency) {
+        throw new AccountActionException();
+    }
+
     @Override
     public final void debit(final BigDecimal amount,
                             final Currency currency) {
-        getBalance().put(currency,
-                getBalance().get(currency).subtract(amount));
+        debit(Money.of(amount, currency));
+    }
+
+    @Override
+    public final void debit(final Money amount) {
+        withdraw(amount);
+    }
+
+    @Override
+    protected final void checkDebit(final Money amount,
+                                    final long available) {
+        throw new AccountActionException();
     }
 }
@@ -0,0 +1,407 @@
+package lt.vu.mif.jate.task01.bank;
+
+import lt.vu.mif.jate.task01.bank.exception.BankNotFoundException;
+import lt.vu.mif.jate.task01.bank.exception.WrongAccountTypeException;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Двоичный снимок счетов.
+ * Снимок состоит из заголовка с позицией журнала, записей типов счетов,
+ * записей счетов и завершающей записи с количеством счетов. Запись счёта
+ * содержит международный номер, тип, банк, номер, состояние, позицию
+ * последнего кадра журнала, изменившего счёт, и ненулевые остатки.
+ * Каждый счёт копируется под своей блокировкой. С журналом снимок не
+ * останавливает операции с остальными счетами и сам по себе не согласован
+ * между счетами; согласованное состояние получается применением журнала с
+ * позиции снимка: к каждому счёту применяются только кадры после его
+ * собственной позиции. Без журнала {@link Banking#snapshot} держит
+ * блокировки всех счетов на всё время записи.
+ */
+final class Snapshot {
+    /**
+     * Признак файла снимка.
+     */
+    private static final int MAGIC = 0x42534E50;
+    /**
+     * Версия формата.
+     */
+    private static final short VERSION = 2;
+    /**
+     * Размер буфера ввода-вывода.
+     */
+    private static final int BUFFER_SIZE = 1_048_576;
+    /**
+     * Длина кода валюты.
+     */
+    private static final int CURRENCY_CODE_LENGTH = 3;
+    /**
+     * Размер записи остатка.
+     */
+    private static final int BALANCE_SIZE = CURRENCY_CODE_LENGTH + Long.BYTES;
+    /**
+     * Запись: конец снимка.
+     */
+    private static final byte RECORD_END = 0;
+    /**
+     * Запись: тип счёта.
+     */
+    private static final byte RECORD_TYPE = 1;
+    /**
+     * Запись: счёт.
+     */
+    private static final byte RECORD_ACCOUNT = 2;
+    /**
+     * Максимальный размер записи без остатков.
+     */
+    private static final int MAX_HEADER_SIZE = 1024;
+    /**
+     * Маска беззнакового байта.
+     */
+    private static final int BYTE_MASK = 0xFF;
+
+    /**
+     * Запрет создания.
+     */
+    private Snapshot() {
+    }
+
+    /**
+     * Запись снимка счетов.
+     *
+     * @param accounts счета.
+     * @param position позиция журнала, с которой применяются кадры после
+     *                 восстановления, или 0 без журнала.
+     * @param path     файл снимка.
+     * @throws IOException ошибка записи.
+     */
+    static void write(final Collection<Account> accounts,
+                      final long position,
+                      final Path path) throws IOException {
+        Map<Class<?>, Integer> types = new HashMap<>();
+        Copy copy = new Copy();
+        long count = 0;
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            buffer.putInt(MAGIC);
+            buffer.putShort(VERSION);
+            buffer.putLong(position);
+            for (Account account : accounts) {
+                Integer type = types.get(account.getClass());
+                if (type == null) {
+                    type = types.size();
+                    types.put(account.getClass(), type);
+                    ensure(channel, buffer, MAX_HEADER_SIZE);
+                    buffer.put(RECORD_TYPE);
+                    putString(buffer, account.getClass().getName());
+                }
+                account.locked(() -> copy.of(account));
+                ensure(channel, buffer,
+                        MAX_HEADER_SIZE + copy.size * BALANCE_SIZE);
+                buffer.put(RECORD_ACCOUNT);
+                buffer.put(type.byteValue());
+                putString(buffer, account.toString());
+                Bank bank = account.getBank();
+                if (bank == null) {
+                    putString(buffer, "");
+                } else {
+                    putString(buffer, bank.getLocale().getCountry());
+                    buffer.putInt(bank.getCode());
+                }
+                BigInteger number = account.getNumber();
+                if (number == null) {
+                    buffer.put((byte) 0);
+                } else {
+                    byte[] bytes = number.toByteArray();
+                    buffer.put((byte) bytes.length);
+                    buffer.put(bytes);
+                }
+                buffer.putInt(copy.state);
+                buffer.putLong(copy.journalPosition);
+                buffer.putShort((short) copy.size);
+                for (int b = 0; b < copy.size; b++) {
+                    String code = CurrencyId.currency(copy.currencies[b])
+                            .getCurrencyCode();
+                    for (int c = 0; c < CURRENCY_CODE_LENGTH; c++) {
+                        buffer.put((byte) code.charAt(c));
+                    }
+                    buffer.putLong(copy.amounts[b]);
+                }
+                count++;
+            }
+            ensure(channel, buffer, MAX_HEADER_SIZE);
+            buffer.put(RECORD_END);
+            buffer.putLong(count);
+            flush(channel, buffer);
+            channel.force(false);
+        }
+    }
+
+    /**
+     * Чтение снимка счетов.
+     *
+     * @param path     файл снимка.
+     * @param banking  банк, банки которого используются для счетов.
+     * @param accounts счета по международным номерам, заполняемые
+     *                 снимком.
+     * @return позиция журнала, с которой применяются кадры.
+     * @throws IOException ошибка чтения или повреждённый снимок.
+     */
+    static long read(final Path path,
+                     final Banking banking,
+                     final Map<String, Account> accounts)
+            throws IOException {
+        List<AccountType<?>> types = new ArrayList<>();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        buffer.flip();
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.READ)) {
+            fill(channel, buffer, Integer.BYTES + Short.BYTES + Long.BYTES);
+            if (buffer.getInt() != MAGIC || buffer.getShort() != VERSION) {
+                throw new IOException("Not a snapshot: " + path);
+            }
+            long position = buffer.getLong();
+            while (true) {
+                fill(channel, buffer, Byte.BYTES);
+                byte record = buffer.get();
+                if (record == RECORD_END) {
+                    fill(channel, buffer, Long.BYTES);
+                    if (buffer.getLong() != accounts.size()) {
+                        throw new IOException("Truncated snapshot: " + path);
+                    }
+                    return position;
+                } else if (record == RECORD_TYPE) {
+                    types.add(type(getString(channel, buffer)));
+                } else if (record == RECORD_ACCOUNT) {
+                    Account account = readAccount(channel, buffer,
+                            types, banking);
+                    accounts.put(account.toString(), account);
+                } else {
+                    throw new IOException("Unknown snapshot record "
+                            + record);
+                }
+            }
+        }
+    }
+
+    /**
+     * Чтение записи счёта.
+     *
+     * @param channel файл.
+     * @param buffer  буфер.
+     * @param types   прочитанные типы счетов.
+     * @param banking банк.
+     * @return счёт.
+     * @throws IOException ошибка чтения или повреждённый снимок.
+     */
+    private static Account readAccount(
+            final FileChannel channel,
+            final ByteBuffer buffer,
+            final List<AccountType<?>> types,
+            final Banking banking) throws IOException {
+        fill(channel, buffer, Byte.BYTES);
+        int type = buffer.get() & BYTE_MASK;
+        if (type >= types.size()) {
+            throw new IOException("Unknown account type " + type);
+        }
+        String iban = getString(channel, buffer);
+        String country = getString(channel, buffer);
+        Bank bank = null;
+        if (!country.isEmpty()) {
+            fill(channel, buffer, Integer.BYTES);
+            try {
+                bank = banking.getBank(country, buffer.getInt(), true);
+            } catch (BankNotFoundException ex) {
+                throw new IOException(ex);
+            }
+        }
+        fill(channel, buffer, Byte.BYTES);
+        BigInteger number = null;
+        int length = buffer.get() & BYTE_MASK;
+        if (length > 0) {
+            byte[] bytes = new byte[length];
+            fill(channel, buffer, length);
+            buffer.get(bytes);
+            number = new BigInteger(bytes);
+        }
+        Account account = types.get(type).create(banking.getContext(),
+                iban, bank, number);
+        fill(channel, buffer, Integer.BYTES + Long.BYTES + Short.BYTES);
+        account.restoreState(buffer.getInt());
+        account.setJournalPosition(buffer.getLong());
+        int balances = buffer.getShort();
+        byte[] code = new byte[CURRENCY_CODE_LENGTH];
+        for (int b = 0; b < balances; b++) {
+            fill(channel, buffer, BALANCE_SIZE);
+            buffer.get(code);
+            account.restoreDelta(CurrencyId.of(Currency.getInstance(
+                    new String(code, StandardCharsets.US_ASCII))),
+                    buffer.getLong());
+        }
+        return account;
+    }
+
+    /**
+     * @param name имя класса счёта.
+     * @return тип счёта.
+     * @throws IOException неизвестный тип счёта.
+     */
+    private static AccountType<?> type(final String name)
+            throws IOException {
+        try {
+            return AccountType.of(
+                    Class.forName(name).asSubclass(Account.class));
+        } catch (ClassNotFoundException | ClassCastException
+                | WrongAccountTypeException ex) {
+            throw new IOException("Unknown account type " + name, ex);
+        }
+    }
+
+    /**
+     * @param buffer буфер.
+     * @param value  строка не длиннее 255 байт.
+     */
+    private static void putString(final ByteBuffer buffer,
+                                  final String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.put((byte) bytes.length);
+        buffer.put(bytes);
+    }
+
+    /**
+     * @param channel файл.
+     * @param buffer  буфер.
+     * @return прочитанная строка.
+     * @throws IOException ошибка чтения.
+     */
+    private static String getString(final FileChannel channel,
+                                    final ByteBuffer buffer)
+            throws IOException {
+        fill(channel, buffer, Byte.BYTES);
+        byte[] bytes = new byte[buffer.get() & BYTE_MASK];
+        fill(channel, buffer, bytes.length);
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Запись буфера в файл, если в нём меньше требуемого места.
+     *
+     * @param channel  файл.
+     * @param buffer   буфер.
+     * @param required требуемое место.
+     * @throws IOException ошибка записи.
+     */
+    private static void ensure(final FileChannel channel,
+                               final ByteBuffer buffer,
+                               final int required) throws IOException {
+        if (buffer.remaining() < required) {
+            flush(channel, buffer);
+        }
+    }
+
+    /**
+     * @param channel файл.
+     * @param buffer  буфер.
+     * @throws IOException ошибка записи.
+     */
+    private static void flush(final FileChannel channel,
+                              final ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Чтение из файла, если в буфере меньше требуемого количества байт.
+     *
+     * @param channel  файл.
+     * @param buffer   буфер.
+     * @param required требуемое количество байт.
+     * @throws IOException ошибка чтения или неожиданный конец файла.
+     */
+    private static void fill(final FileChannel channel,
+                             final ByteBuffer buffer,
+                             final int required) throws IOException {
+        if (buffer.remaining() >= required) {
+            return;
+        }
+        buffer.compact();
+        while (buffer.position() < required) {
+            if (channel.read(buffer) < 0) {
+                throw new IOException("Unexpected end of snapshot");
+            }
+        }
+        buffer.flip();
+    }
+
+    /**
+     * Копия состояния, позиции журнала и ненулевых остатков счёта,
+     * переиспользуемая для всех счетов снимка.
+     */
+    private static final class Copy {
+        /**
+         * Состояние счёта.
+         */
+        private int state;
+        /**
+         * Позиция последнего кадра журнала, изменившего счёт.
+         */
+        private long journalPosition;
+        /**
+         * Номера валют остатков.
+         */
+        private short[] currencies = new short[1];
+        /**
+         * Остатки.
+         */
+        private long[] amounts = new long[1];
+        /**
+         * Количество ненулевых остатков.
+         */
+        private int size;
+
+        /**
+         * Копирование счёта; вызывается под его блокировкой.
+         *
+         * @param account счёт.
+         * @return эта копия.
+         */
+        Copy of(final Account account) {
+            Balances balances = account.getBalances();
+            state = account.getState();
+            journalPosition = account.getJournalPosition();
+            size = 0;
+            for (int slot = 0; slot < balances.slots(); slot++) {
+                long amount = balances.amountAt(slot);
+                if (amount != 0) {
+                    if (size == amounts.length) {
+                        currencies = Arrays.copyOf(currencies, size * 2);
+                        amounts = Arrays.copyOf(amounts, size * 2);
+                    }
+                    currencies[size] = (short) balances.currencyAt(slot);
+                    amounts[size] = amount;
+                    size++;
+                }
+            }
+            return this;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package lt.vu.mif.jate.task01.bank;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+
+/**
+ * Перевод денег со счёта на счёт для пакетной обработки.
+ */
+public final class Transfer {
+    /**
+     * Счёт отправителя.
+     */
+    private final Account from;
+    /**
+     * Счёт получателя.
+     */
+    private final Account to;
+    /**
+     * Сумма.
+     */
+    private final BigDecimal amount;
+    /**
+     * Код валюты.
+     */
+    private final String currencyCode;
+
+    /**
+     * @param pFrom         счёт отправителя.
+     * @param pTo           счёт получателя.
+     * @param pAmount       сумма.
+     * @param pCurrencyCode код валюты.
+     */
+    public Transfer(final Account pFrom,
+                    final Account pTo,
+                    final BigDecimal pAmount,
+                    final String pCurrencyCode) {
+        from = Objects.requireNonNull(pFrom);
+        to = Objects.requireNonNull(pTo);
+        amount = Objects.requireNonNull(pAmount);
+        currencyCode = Objects.requireNonNull(pCurrencyCode);
+    }
+
+    /**
+     * @return счёт отправителя.
+     */
+    public Account getFrom() {
+        return from;
+    }
+
+    /**
+     * @return счёт получателя.
+     */
+    public Account getTo() {
+        return to;
+    }
+
+    /**
+     * @return сумма.
+     */
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    /**
+     * @return код валюты.
+     */
+    public String getCurrencyCode() {
+        return currencyCode;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s -> %s: %s %s",
+                from, to, amount.toPlainString(), currencyCode);
+    }
+}
@@ -0,0 +1,269 @@
+package lt.vu.mif.jate.task01.bank;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Пакет переводов.
+ * Все участвующие счета блокируются один раз в порядке
+ * {@link Account#LOCK_ORDER}. Переводы проверяются по очереди по правилам
+ * счетов с учётом уже принятых переводов пакета, изменения остатков
+ * сводятся по счетам и валютам и применяются по одному разу, вместе с
+ * новыми состояниями счетов. Пакет атомарен относительно переводов и
+ * других пакетов. Проверяемые списания атомарных остатков без журнала не
+ * берут блокировку счёта, поэтому сводные списания пакета выполняются
+ * через CAS от остатков, по которым переводы проверялись; если остаток
+ * успел измениться, уже выполненные списания пакета возвращаются и
+ * переводы проверяются заново.
+ */
+final class TransferBatch {
+    /**
+     * Переводы в порядке поступления.
+     */
+    private final List<Transfer> transfers;
+    /**
+     * Сводные изменения остатков по счетам.
+     */
+    private final Map<Account, Posting> deltas = new IdentityHashMap<>();
+    /**
+     * Новые состояния счетов, применяемые вместе с остатками.
+     */
+    private final Map<Account, PendingState> states =
+            new IdentityHashMap<>();
+    /**
+     * Журнал изменений или null.
+     */
+    private final Journal journal;
+
+    /**
+     * @param pTransfers переводы.
+     * @param pJournal   журнал изменений или null.
+     */
+    TransferBatch(final Collection<Transfer> pTransfers,
+                  final Journal pJournal) {
+        transfers = new ArrayList<>(pTransfers);
+        journal = pJournal;
+    }
+
+    /**
+     * Выполнение пакета.
+     *
+     * @return результаты в порядке переводов.
+     */
+    List<TransferResult> apply() {
+        return Account.withLocks(lockOrderedAccounts(), this::applyLocked);
+    }
+
+    /**
+     * @return различные счета пакета в порядке блокировки.
+     */
+    private List<Account> lockOrderedAccounts() {
+        Map<Account, Boolean> distinct = new IdentityHashMap<>();
+        for (Transfer transfer : transfers) {
+            distinct.put(transfer.getFrom(), Boolean.TRUE);
+            distinct.put(transfer.getTo(), Boolean.TRUE);
+        }
+        List<Account> accounts = new ArrayList<>(distinct.keySet());
+        accounts.sort(Account.LOCK_ORDER);
+        return accounts;
+    }
+
+    /**
+     * Выполнение пакета под захваченными блокировками счетов.
+     *
+     * @return результаты в порядке переводов.
+     */
+    private List<TransferResult> applyLocked() {
+        if (journal != null) {
+            journal.begin(Journal.Operation.BATCH);
+        }
+        try {
+            List<TransferResult> results = post();
+            while (!debit()) {
+                deltas.clear();
+                states.clear();
+                results = post();
+            }
+            deltas.forEach((account, posting) -> posting.commit(account));
+            states.forEach((account, state) -> {
+                if (state.get() != account.getState()) {
+                    account.compareAndSetState(account.getState(),
+                            state.get());
+                }
+            });
+            return Collections.unmodifiableList(results);
+        } finally {
+            if (journal != null) {
+                journal.end();
+            }
+        }
+    }
+
+    /**
+     * Проверка переводов и сведение изменений остатков.
+     *
+     * @return результаты в порядке переводов.
+     */
+    private List<TransferResult> post() {
+        List<TransferResult> results = new ArrayList<>(transfers.size());
+        for (Transfer transfer : transfers) {
+            try {
+                int currency = CurrencyId.of(transfer.getCurrencyCode());
+                Money amount = Money.ofAmount(transfer.getAmount(),
+                        CurrencyId.currency(currency));
+                Account from = transfer.getFrom();
+                from.checkDebit(amount,
+                        delta(from).available(from, currency));
+                Account to = transfer.getTo();
+                PendingState state = new PendingState(state(to));
+                to.checkCredit(amount, state);
+                delta(from).add(currency,
+                        Math.negateExact(amount.getMinorUnits()));
+                delta(to).add(currency, amount.getMinorUnits());
+                states.put(to, state);
+                results.add(new TransferResult(transfer, null));
+            } catch (RuntimeException ex) {
+                results.add(new TransferResult(transfer, ex));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * @param account счёт.
+     * @return состояние счёта с учётом принятых переводов пакета.
+     */
+    private int state(final Account account) {
+        PendingState state = states.get(account);
+        if (state == null) {
+            return account.getState();
+        }
+        return state.get();
+    }
+
+    /**
+     * Сводные списания всех счетов от проверенных остатков. Если остаток
+     * одного из счетов изменился, списания возвращаются.
+     *
+     * @return списания выполнены.
+     */
+    private boolean debit() {
+        List<Map.Entry<Account, Posting>> debited = new ArrayList<>();
+        for (Map.Entry<Account, Posting> entry : deltas.entrySet()) {
+            if (!entry.getValue().debit(entry.getKey())) {
+                for (Map.Entry<Account, Posting> done : debited) {
+                    done.getValue().undo(done.getKey(),
+                            done.getValue().deltas.slots());
+                }
+                return false;
+            }
+            debited.add(entry);
+        }
+        return true;
+    }
+
+    /**
+     * @param account счёт.
+     * @return сводные изменения остатков счёта.
+     */
+    private Posting delta(final Account account) {
+        return deltas.computeIfAbsent(account, a -> new Posting());
+    }
+
+    /**
+     * Сводные изменения остатков счёта и остатки, по которым они
+     * проверялись.
+     */
+    private static final class Posting {
+        /**
+         * Изменения остатков по номерам валют.
+         */
+        private final Balances deltas = new CompactBalances();
+        /**
+         * Остатки, прочитанные при первой проверке списания.
+         */
+        private final Balances bases = new CompactBalances();
+        /**
+         * Валюты, остатки которых прочитаны.
+         */
+        private final BitSet read = new BitSet();
+
+        /**
+         * @param currency номер валюты.
+         * @param delta    изменение остатка.
+         */
+        void add(final int currency, final long delta) {
+            deltas.add(currency, delta);
+        }
+
+        /**
+         * @param account  счёт.
+         * @param currency номер валюты.
+         * @return остаток с учётом принятых переводов пакета.
+         */
+        long available(final Account account, final int currency) {
+            if (!read.get(currency)) {
+                read.set(currency);
+                bases.add(currency, account.balanceOf(currency));
+            }
+            return Math.addExact(bases.get(currency), deltas.get(currency));
+        }
+
+        /**
+         * Списание отрицательных изменений от проверенных остатков.
+         *
+         * @param account счёт.
+         * @return списания выполнены; иначе они возвращены.
+         */
+        boolean debit(final Account account) {
+            for (int slot = 0; slot < deltas.slots(); slot++) {
+                long delta = deltas.amountAt(slot);
+                int currency = deltas.currencyAt(slot);
+                if (delta < 0 && !account.compareAndSetBalance(currency,
+                        bases.get(currency),
+                        Math.addExact(bases.get(currency), delta))) {
+                    undo(account, slot);
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Возврат списаний из ячеек до {@code end}.
+         *
+         * @param account счёт.
+         * @param end     граница ячеек.
+         */
+        void undo(final Account account, final int end) {
+            for (int slot = 0; slot < end; slot++) {
+                long delta = deltas.amountAt(slot);
+                if (delta < 0) {
+                    account.restoreDelta(deltas.currencyAt(slot),
+                            Math.negateExact(delta));
+                }
+            }
+        }
+
+        /**
+         * Зачисление положительных изменений и учёт всех изменений.
+         *
+         * @param account счёт.
+         */
+        void commit(final Account account) {
+            for (int slot = 0; slot < deltas.slots(); slot++) {
+                long delta = deltas.amountAt(slot);
+                if (delta < 0) {
+                    account.changed(deltas.currencyAt(slot), delta);
+                } else if (delta > 0) {
+                    account.apply(deltas.currencyAt(slot), delta);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package lt.vu.mif.jate.task01.bank;
+
+/**
+ * Результат перевода из пакета.
+ */
+public final class TransferResult {
+    /**
+     * Перевод.
+     */
+    private final Transfer transfer;
+    /**
+     * Причина отказа или null, если перевод выполнен.
+     */
+    private final RuntimeException error;
+
+    /**
+     * @param pTransfer перевод.
+     * @param pError    причина отказа или null.
+     */
+    TransferResult(final Transfer pTransfer,
+                   final RuntimeException pError) {
+        transfer = pTransfer;
+        error = pError;
+    }
+
+    /**
+     * @return перевод.
+     */
+    public Transfer getTransfer() {
+        return transfer;
+    }
+
+    /**
+     * @return был-ли перевод выполнен.
+     */
+    public boolean isAccepted() {
+        return error == null;
+    }
+
+    /**
+     * @return причина отказа ({@link
+     * lt.vu.mif.jate.task01.bank.exception.NoFundsException},
+     * {@link lt.vu.mif.jate.task01.bank.exception.AccountActionException},
+     * {@link NumberFormatException} и т.п.) или null.
+     */
+    public RuntimeException getError() {
+        return error;
+    }
+
+    @Override
+    public String toString() {
+        if (error == null) {
+            return transfer + ": accepted";
+        }
+        return transfer + ": rejected with " + error.getClass().getSimpleName();
+    }
+}
@@ -19,6 +19,11 @@ public class IBANException extends Exception {
      */
     private static final String FORMAT_WRONG_MESSAGE
             = "IBAN format wrong: %s";
+    /**
+     * Формат сообщения неверные контрольные цифры.
+     */
+    private static final String CHECK_DIGITS_WRONG_MESSAGE
+            = "IBAN check digits wrong: expected %02d, got %s";
     /**
      * Сообщения.
      */
@@ -51,6 +56,17 @@ public class IBANException extends Exception {
         value = pValue;
     }
 
+    /**
+     * @param expected ожидаемые контрольные цифры.
+     * @param pValue   международный код.
+     */
+    public IBANException(final int expected,
+                         final String pValue) {
+        message = String.format(CHECK_DIGITS_WRONG_MESSAGE, expected,
+                pValue.substring(2, 2 + 2));
+        value = pValue;
+    }
+
     /**
      * @param pValue международный код.
      */
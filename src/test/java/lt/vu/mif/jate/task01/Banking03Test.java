@@ -54,25 +54,25 @@ public class Banking03Test {
         Banking banking = Banking.getInstance();
         
         // Create account and test
-        Account a1 = banking.getCurrentAccount("Lt 337 30001 0077 2111 11");
+        Account a1 = banking.getCurrentAccount("Lt 047 30001 0077 2111 11");
         assertSame(banking.getBank("LT", 73000), a1.getBank());
         assertEquals("LT", a1.getBank().getLocale().getCountry());
         assertEquals(new BigInteger("10077211111"), a1.getNumber());
-        assertEquals("LT337300010077211111", new StringBuffer().append(a1).toString());
+        assertEquals("LT047300010077211111", new StringBuffer().append(a1).toString());
 
         // Create account and test. Bank should be created on the fly!
-        Account a2 = banking.getCurrentAccount("NO12 252512 11567");
+        Account a2 = banking.getCurrentAccount("NO36 252512 11567");
         assertSame(banking.getBank("NO", 2525), a2.getBank());
         assertEquals("NO", a2.getBank().getLocale().getCountry());
         assertEquals(new BigInteger("121156"), a2.getNumber());
-        assertEquals("NO1225251211567", a2.toString());
+        assertEquals("NO3625251211567", a2.toString());
         
         // Create account and test. Bank should be created on the fly!
-        Account a3 = banking.getCreditAccount("qa9998761111 2222333344 4455556");
+        Account a3 = banking.getCreditAccount("qa6298761111 2222333344 4455556");
         assertSame(banking.getBank("QA", 9876), a3.getBank());
         assertEquals("QA", a3.getBank().getLocale().getCountry());
         assertEquals(new BigInteger("111122223333444455556"), a3.getNumber());
-        assertEquals("QA999876111122223333444455556", a3.toString());
+        assertEquals("QA629876111122223333444455556", a3.toString());
 
         // Check wrong account number for country!
         try {
@@ -129,15 +129,15 @@ public class Banking03Test {
         }
 
         // Create account and test. Bank should be created on the fly!
-        Account a4 = banking.getCurrentAccount("FI12 1234 5612 3456 78");
+        Account a4 = banking.getCurrentAccount("FI86 1234 5612 3456 78");
         assertEquals((Integer) 123456, a4.getBank().getCode());
         assertEquals("FI", a4.getBank().getLocale().getCountry());
         assertEquals("Finland", a4.getBank().getLocale().getDisplayCountry());
         assertEquals(new BigInteger("1234567"), a4.getNumber());
-        assertEquals("FI1212345612345678", new StringBuffer().append(a4).toString());
+        assertEquals("FI8612345612345678", new StringBuffer().append(a4).toString());
 
         // Once created, same account should be returned!
-        Account a5 = banking.getCurrentAccount("fi 1212345612345678");
+        Account a5 = banking.getCurrentAccount("fi 8612345612345678");
         assertSame(a4.getBank(), a5.getBank());
         assertEquals(a4.getBank().getLocale(), a5.getBank().getLocale());
         
@@ -162,7 +162,7 @@ public class Banking03Test {
         Banking banking = Banking.getInstance();
         
         // Account class should be abstract!
-        Account a0 = new Account("LT337300010077211111") {
+        Account a0 = new Account("LT047300010077211111") {
             
             public void credit(BigDecimal ammount, Currency currency) { }
             
@@ -173,53 +173,53 @@ public class Banking03Test {
         };
         
         // Test CurrentAccount subclass
-        Account a1 = banking.getCurrentAccount("LT337300010077211111");
+        Account a1 = banking.getCurrentAccount("LT047300010077211111");
         assertTrue(a1 instanceof CurrentAccount);
         
         // Trying to take the wrong type account reference should fail
         try {
-            banking.getSavingsAccount("LT337300010077211111");
+            banking.getSavingsAccount("LT047300010077211111");
             fail("Existing account type not checked");
         } catch (WrongAccountTypeException ex) {
             assertEquals("Account type was CurrentAccount", ex.getMessage());
         }
 
         try {
-            banking.getCreditAccount("LT337300010077211111");
+            banking.getCreditAccount("LT047300010077211111");
             fail("Existing account type not checked");
         } catch (WrongAccountTypeException ex) {
             assertEquals("Account type was CurrentAccount", ex.getMessage());
         }
         
-        Account a2 = banking.getSavingsAccount("LT337300010077222112");
+        Account a2 = banking.getSavingsAccount("LT887300010077222112");
         assertTrue(a2 instanceof SavingsAccount);
         
         try {
-            banking.getCurrentAccount("LT337300010077222112");
+            banking.getCurrentAccount("LT887300010077222112");
             fail("Existing account type not checked");
         } catch (WrongAccountTypeException ex) {
             assertEquals("Account type was SavingsAccount", ex.getMessage());
         }
 
         try {
-            banking.getCreditAccount("LT337300010077222112");
+            banking.getCreditAccount("LT887300010077222112");
             fail("Existing account type not checked");
         } catch (WrongAccountTypeException ex) {
             assertEquals("Account type was SavingsAccount", ex.getMessage());
         }
         
-        Account a3 = banking.getCreditAccount("LT337300010077211113");
+        Account a3 = banking.getCreditAccount("LT477300010077211113");
         assertTrue(a3 instanceof CreditAccount);
         
         try {
-            banking.getSavingsAccount("LT337300010077211113");
+            banking.getSavingsAccount("LT477300010077211113");
             fail("Existing account type not checked");
         } catch (WrongAccountTypeException ex) {
             assertEquals("Account type was CreditAccount", ex.getMessage());
         }
 
         try {
-            banking.getCurrentAccount("LT337300010077211113");
+            banking.getCurrentAccount("LT477300010077211113");
             fail("Existing account type not checked");
         } catch (WrongAccountTypeException ex) {
             assertEquals("Account type was CreditAccount", ex.getMessage());
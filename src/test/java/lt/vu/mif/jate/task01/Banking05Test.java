@@ -32,7 +32,7 @@ public class Banking05Test implements BankingTestIf {
     @Test
     public void cashTest() throws IBANException, WrongAccountTypeException, NoFundsException, AccountActionException {
         
-        Account a1 = banking.getCurrentAccount("LT337300010077211111");
+        Account a1 = banking.getCurrentAccount("LT047300010077211111");
         
         a1.credit(BD("1000.00"), "EUR");
         assertEquals(BD("1000.00"), a1.balance("EUR"));
@@ -73,7 +73,7 @@ public class Banking05Test implements BankingTestIf {
         assertEquals(BD("2002183.42"), a1.balanceAll("RUB"));
         
         // Wrong debit values
-        checkException("LT331234010077211111", s -> a1.credit(BD(s), "USD"), NumberFormatException.class);
+        checkException("LT731234010077211111", s -> a1.credit(BD(s), "USD"), NumberFormatException.class);
         checkException("one hundred", s -> a1.credit(BD(s), "USD"), NumberFormatException.class);
         checkException("-100", s -> a1.credit(BD(s), "USD"), NumberFormatException.class);
         checkException("100.123", s -> a1.credit(BD(s), "USD"), NumberFormatException.class);
@@ -82,7 +82,7 @@ public class Banking05Test implements BankingTestIf {
         checkException("100,10", s -> a1.credit(BD(s), "USD"), NumberFormatException.class);
         checkException("FF", s -> a1.credit(BD(s), "USD"), NumberFormatException.class);
         
-        Account a2 = banking.getCurrentAccount("LT337300010077211111");
+        Account a2 = banking.getCurrentAccount("LT047300010077211111");
         
         assertEquals(BD("12960.24"), a2.balance("USD"));
         assertEquals(BD("25920.48"), a2.balanceAll("USD"));
@@ -108,8 +108,8 @@ public class Banking05Test implements BankingTestIf {
     @Test
     public void convertionTest() throws IBANException, WrongAccountTypeException, NoFundsException, AccountActionException {
         
-        Account a1 = banking.getCurrentAccount("LT337300010077211112");
-        Account a2 = banking.getCurrentAccount("LT337300010077211112");
+        Account a1 = banking.getCurrentAccount("LT747300010077211112");
+        Account a2 = banking.getCurrentAccount("LT747300010077211112");
         
         assertEquals(BD("0.00"), a1.balance("EUR"));
         assertEquals(BD("0.00"), a2.balance("EUR"));
@@ -153,10 +153,10 @@ public class Banking05Test implements BankingTestIf {
     @Test
     public void transferTest() throws IBANException, WrongAccountTypeException, NoFundsException, AccountActionException {
 
-        Account a1 = banking.getCurrentAccount("FI1212345612345678");
-        Account a2 = banking.getCurrentAccount("FI1212345612345679");
-        Account a3 = banking.getSavingsAccount("NO1225251234567");
-        Account a4 = banking.getCreditAccount("QA999876111122223333444455556");
+        Account a1 = banking.getCurrentAccount("FI8612345612345678");
+        Account a2 = banking.getCurrentAccount("FI5912345612345679");
+        Account a3 = banking.getSavingsAccount("NO3025251234567");
+        Account a4 = banking.getCreditAccount("QA629876111122223333444455556");
 
         a1.credit(BD("1000.00"), "EUR");
         
@@ -0,0 +1,89 @@
+package lt.vu.mif.jate.task01;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Currency;
+import java.util.Set;
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertSame;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import lt.vu.mif.jate.task01.bank.Account;
+import lt.vu.mif.jate.task01.bank.Banking;
+import lt.vu.mif.jate.task01.bank.Converter;
+import lt.vu.mif.jate.task01.bank.Money;
+import lt.vu.mif.jate.task01.bank.exception.IBANException;
+import lt.vu.mif.jate.task01.bank.exception.NoFundsException;
+import lt.vu.mif.jate.task01.bank.exception.WrongAccountTypeException;
+
+/**
+ * Money value type: fixed-point amounts in minor units must behave exactly
+ * like the BigDecimal based API.
+ */
+@RunWith(JUnit4.class)
+public class Banking06Test implements BankingTestIf {
+
+    private final Banking banking = Banking.getInstance();
+
+    @Test
+    public void moneyTest() {
+
+        Currency eur = Currency.getInstance("EUR");
+        Currency usd = Currency.getInstance("USD");
+
+        Money m1 = Money.of(BD("12.3"), eur);
+        assertEquals(1230L, m1.getMinorUnits());
+        assertEquals(BD("12.30"), m1.toBigDecimal());
+        assertEquals(Money.ofMinor(1230, eur), m1);
+        assertEquals("12.30 EUR", m1.toString());
+
+        assertEquals(BD("13.30"), m1.plus(Money.of(BigDecimal.ONE, eur)).toBigDecimal());
+        assertEquals(BD("-0.70"), m1.minus(Money.of(BD("13.000"), eur)).toBigDecimal());
+
+        checkException(BD("1.001"), v -> Money.of(v, eur), NumberFormatException.class);
+        checkException(Money.zero(usd), v -> m1.plus(v), IllegalArgumentException.class);
+        checkException(Money.zero(usd), v -> m1.compareTo(v), IllegalArgumentException.class);
+
+    }
+
+    @Test
+    public void moneyConversionTest() {
+
+        Converter conv = banking.getConverter();
+        Set<Currency> currencies = conv.getCurrencies();
+
+        // Money conversion must round exactly like BigDecimal conversion
+        currencies.stream().forEach(cfrom -> {
+            currencies.stream().forEach(cto -> {
+                BigDecimal ammount = new BigDecimal(Math.random() * 1000000).setScale(2, RoundingMode.HALF_UP);
+                assertEquals(conv.convert(ammount, cfrom, cto).setScale(2),
+                        conv.convert(Money.of(ammount, cfrom), cto).toBigDecimal());
+            });
+        });
+
+        Money same = Money.of(BD("1.00"), conv.getBaseCurrency());
+        assertSame(same, conv.convert(same, conv.getBaseCurrency()));
+        checkException(Money.ofMinor(-1, conv.getBaseCurrency()), v -> conv.checkRange(v), NumberFormatException.class);
+
+    }
+
+    @Test
+    public void moneyAccountTest() throws IBANException, WrongAccountTypeException {
+
+        Account a1 = banking.getCurrentAccount("LT527300010077211120");
+        Currency eur = Currency.getInstance("EUR");
+        Currency usd = Currency.getInstance("USD");
+
+        a1.credit(Money.of(BD("1000.00"), eur));
+        assertEquals(Money.of(BD("1000.00"), eur), a1.balance(eur));
+        assertEquals(BD("1000.00"), a1.balance("EUR"));
+        assertEquals(Money.of(BD("1116.30"), usd), a1.balanceAll(usd));
+
+        a1.debit(Money.of(BD("0.01"), eur));
+        assertEquals(BD("999.99"), a1.balance("EUR"));
+        checkException(Money.of(BD("1000.00"), eur), v -> a1.debit(v), NoFundsException.class);
+
+    }
+
+}
@@ -0,0 +1,132 @@
+package lt.vu.mif.jate.task01;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertTrue;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import lt.vu.mif.jate.task01.bank.Account;
+import lt.vu.mif.jate.task01.bank.BalanceMode;
+import lt.vu.mif.jate.task01.bank.Banking;
+import lt.vu.mif.jate.task01.bank.exception.AccountActionException;
+import lt.vu.mif.jate.task01.bank.exception.IBANException;
+import lt.vu.mif.jate.task01.bank.exception.NoFundsException;
+import lt.vu.mif.jate.task01.bank.exception.WrongAccountTypeException;
+
+/**
+ * Account balances: an account keeps only the currencies it holds, but
+ * still reports zero for any other currency.
+ */
+@RunWith(JUnit4.class)
+public class Banking07Test implements BankingTestIf {
+
+    private final Banking banking = Banking.getInstance();
+
+    @Test
+    public void balancesTest() throws IBANException, WrongAccountTypeException {
+
+        Account a1 = banking.getCurrentAccount("LT737300010077211130");
+        assertTrue(a1.getBalance().isEmpty());
+        assertEquals(BD("0.00"), a1.balance("EUR"));
+        assertEquals(BD("0.00"), a1.balanceAll("EUR"));
+
+        // Fill enough currencies to go past the sparse representation
+        List<Currency> currencies = new ArrayList<>(banking.getConverter().getCurrencies());
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < 20; i++) {
+            a1.credit(BD("1.00"), currencies.get(i).getCurrencyCode());
+            total = total.add(banking.getConverter().convert(BD("1.00"),
+                    currencies.get(i), banking.getConverter().getBaseCurrency()));
+            assertEquals(i + 1, a1.getBalance().size());
+        }
+        for (int i = 0; i < 20; i++) {
+            assertEquals(BD("1.00"), a1.balance(currencies.get(i).getCurrencyCode()));
+        }
+        assertEquals(total, a1.balanceAll("EUR"));
+        assertEquals(BD("0.00"), a1.balance(currencies.get(20).getCurrencyCode()));
+
+        // Emptied currencies are not reported
+        Account a2 = banking.getCurrentAccount("LT467300010077211131");
+        a2.credit(BD("5.00"), "USD");
+        a2.credit(BD("5.00"), "EUR");
+        a2.debit(BD("5.00"), "USD");
+        Map<Currency, BigDecimal> balance = a2.getBalance();
+        assertEquals(1, balance.size());
+        assertEquals(BD("5.00"), balance.get(Currency.getInstance("EUR")));
+        assertEquals(BD("0.00"), a2.balance("USD"));
+
+        // Returned map is a copy
+        balance.clear();
+        assertEquals(1, a2.getBalance().size());
+
+    }
+
+    /**
+     * Accounts created in ATOMIC mode can be credited and debited from many
+     * threads without lost updates and without overdrawing.
+     */
+    @Test
+    public void concurrentTest() throws Exception {
+
+        Account a1;
+        Account a2;
+        banking.setBalanceMode(BalanceMode.ATOMIC);
+        try {
+            a1 = banking.getCurrentAccount("LT197300010077211132");
+            a2 = banking.getCreditAccount("LT897300010077211133");
+        } finally {
+            banking.setBalanceMode(BalanceMode.COMPACT);
+        }
+
+        int threads = 8;
+        int ops = 10000;
+        a1.credit(BD("100.00"), "EUR");
+        AtomicInteger debited = new AtomicInteger();
+        AtomicInteger credited = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < ops; i++) {
+                        a1.credit(BD("0.01"), "USD");
+                        try {
+                            a1.debit(BD("0.03"), "EUR");
+                            debited.incrementAndGet();
+                        } catch (NoFundsException ex) {
+                            // expected once the funds run out
+                        }
+                    }
+                    try {
+                        a2.credit(BD("1.00"), "EUR");
+                        credited.incrementAndGet();
+                    } catch (AccountActionException ex) {
+                        // only one credit is allowed
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(BD("800.00"), a1.balance("USD"));
+        assertEquals(3333, debited.get());
+        assertEquals(BD("0.01"), a1.balance("EUR"));
+        assertEquals(1, credited.get());
+        assertEquals(BD("1.00"), a2.balance("EUR"));
+
+    }
+
+}
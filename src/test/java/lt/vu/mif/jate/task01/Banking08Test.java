@@ -0,0 +1,117 @@
+package lt.vu.mif.jate.task01;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertTrue;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import lt.vu.mif.jate.task01.bank.Account;
+import lt.vu.mif.jate.task01.bank.BalanceMode;
+import lt.vu.mif.jate.task01.bank.Banking;
+import lt.vu.mif.jate.task01.bank.exception.AccountActionException;
+import lt.vu.mif.jate.task01.bank.exception.IBANException;
+import lt.vu.mif.jate.task01.bank.exception.NoFundsException;
+import lt.vu.mif.jate.task01.bank.exception.WrongAccountTypeException;
+
+/**
+ * Transfers between accounts are all-or-nothing and safe under concurrency.
+ */
+@RunWith(JUnit4.class)
+public class Banking08Test implements BankingTestIf {
+
+    private final Banking banking = Banking.getInstance();
+
+    @Test
+    public void rejectedTransferTest() throws IBANException, WrongAccountTypeException {
+
+        Account a1 = banking.getCurrentAccount("LT947300010077211140");
+        Account a2 = banking.getCreditAccount("LT677300010077211141");
+        Account a3 = banking.getCurrentAccount("LT407300010077211142");
+
+        a1.credit(BD("10.00"), "EUR");
+
+        // Not enough funds: destination is untouched
+        checkException(BD("10.01"), s -> a1.debit(s, "EUR", a3), NoFundsException.class);
+        assertEquals(BD("10.00"), a1.balance("EUR"));
+        assertEquals(BD("0.00"), a3.balance("EUR"));
+
+        // Destination rejects the credit: source is refunded
+        a2.credit(BD("1.00"), "EUR");
+        checkException(BD("5.00"), s -> a1.debit(s, "EUR", a2), AccountActionException.class);
+        assertEquals(BD("10.00"), a1.balance("EUR"));
+        assertEquals(BD("1.00"), a2.balance("EUR"));
+
+        // Wrong amount
+        checkException(BD("1.001"), s -> a1.debit(s, "EUR", a3), NumberFormatException.class);
+        assertEquals(BD("10.00"), a1.balance("EUR"));
+        assertEquals(BD("0.00"), a3.balance("EUR"));
+
+        // Transfer to itself
+        a1.debit(BD("10.00"), "EUR", a1);
+        assertEquals(BD("10.00"), a1.balance("EUR"));
+
+    }
+
+    /**
+     * Opposite transfers between a few hot accounts must neither deadlock
+     * nor lose or create money.
+     */
+    @Test(timeout = 60000)
+    public void concurrentTransferTest() throws Exception {
+
+        String[] ibans = {"LT187300010077211150", "LT887300010077211151", "LT617300010077211152", "LT347300010077211153"};
+        Account[] accounts = new Account[ibans.length];
+        banking.setBalanceMode(BalanceMode.ATOMIC);
+        try {
+            for (int i = 0; i < accounts.length; i++) {
+                accounts[i] = banking.getCurrentAccount(ibans[i]);
+                accounts[i].credit(BD("100.00"), "EUR");
+            }
+        } finally {
+            banking.setBalanceMode(BalanceMode.COMPACT);
+        }
+
+        int threads = 8;
+        int ops = 20000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int seed = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < ops; i++) {
+                        Account from = accounts[(seed + i) % accounts.length];
+                        Account to = accounts[(seed + i + 1 + seed % 3) % accounts.length];
+                        try {
+                            from.debit(BD("7.00"), "EUR", to);
+                        } catch (NoFundsException ex) {
+                            // the hot account ran dry for a moment
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        }
+
+        BigDecimal total = BigDecimal.ZERO;
+        for (Account account : accounts) {
+            assertTrue(account.balance("EUR").signum() >= 0);
+            total = total.add(account.balance("EUR"));
+        }
+        assertEquals(BD("400.00"), total);
+
+    }
+
+}
@@ -0,0 +1,80 @@
+package lt.vu.mif.jate.task01;
+
+import java.util.Arrays;
+import java.util.List;
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertNull;
+import static junit.framework.TestCase.assertSame;
+import static junit.framework.TestCase.assertTrue;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import lt.vu.mif.jate.task01.bank.Account;
+import lt.vu.mif.jate.task01.bank.Banking;
+import lt.vu.mif.jate.task01.bank.Transfer;
+import lt.vu.mif.jate.task01.bank.TransferResult;
+import lt.vu.mif.jate.task01.bank.exception.AccountActionException;
+import lt.vu.mif.jate.task01.bank.exception.IBANException;
+import lt.vu.mif.jate.task01.bank.exception.NoFundsException;
+import lt.vu.mif.jate.task01.bank.exception.WrongAccountTypeException;
+
+/**
+ * Batch transfers: transfers are checked one by one in order against the
+ * balances left by the accepted transfers before them, rejected transfers
+ * are reported and do not affect the rest of the batch.
+ */
+@RunWith(JUnit4.class)
+public class Banking09Test implements BankingTestIf {
+
+    private final Banking banking = Banking.getInstance();
+
+    @Test
+    public void batchTest() throws IBANException, WrongAccountTypeException {
+
+        Account a1 = banking.getCurrentAccount("LT397300010077211160");
+        Account a2 = banking.getCurrentAccount("LT127300010077211161");
+        Account a3 = banking.getSavingsAccount("LT827300010077211162");
+        Account a4 = banking.getCreditAccount("LT557300010077211163");
+
+        a1.credit(BD("100.00"), "EUR");
+        a3.credit(BD("100.00"), "EUR");
+
+        List<Transfer> transfers = Arrays.asList(
+                new Transfer(a1, a2, BD("60.00"), "EUR"),   // accepted
+                new Transfer(a2, a1, BD("10.00"), "EUR"),   // accepted thanks to the first one
+                new Transfer(a1, a2, BD("60.00"), "EUR"),   // no funds: 50.00 left
+                new Transfer(a3, a1, BD("1.00"), "EUR"),    // savings can not be debited
+                new Transfer(a1, a4, BD("5.00"), "EUR"),    // accepted, credit account is credited
+                new Transfer(a2, a4, BD("5.00"), "EUR"),    // credit account can be credited only once
+                new Transfer(a1, a3, BD("1.001"), "EUR"),   // wrong amount
+                new Transfer(a2, a2, BD("50.00"), "EUR"),   // to itself
+                new Transfer(a2, a3, BD("50.00"), "EUR"));  // accepted, drains a2
+
+        List<TransferResult> results = banking.applyTransfers(transfers);
+        assertEquals(transfers.size(), results.size());
+        for (int i = 0; i < transfers.size(); i++) {
+            assertSame(transfers.get(i), results.get(i).getTransfer());
+        }
+
+        assertTrue(results.get(0).isAccepted());
+        assertNull(results.get(0).getError());
+        assertTrue(results.get(1).isAccepted());
+        assertEquals(NoFundsException.class, results.get(2).getError().getClass());
+        assertEquals(AccountActionException.class, results.get(3).getError().getClass());
+        assertTrue(results.get(4).isAccepted());
+        assertEquals(AccountActionException.class, results.get(5).getError().getClass());
+        assertEquals(NumberFormatException.class, results.get(6).getError().getClass());
+        assertTrue(results.get(7).isAccepted());
+        assertTrue(results.get(8).isAccepted());
+
+        assertEquals(BD("45.00"), a1.balance("EUR"));
+        assertEquals(BD("0.00"), a2.balance("EUR"));
+        assertEquals(BD("150.00"), a3.balance("EUR"));
+        assertEquals(BD("5.00"), a4.balance("EUR"));
+
+        // Credit account was credited by the batch
+        checkException(BD("1.00"), s -> a4.credit(s, "EUR"), AccountActionException.class);
+
+    }
+
+}
@@ -0,0 +1,172 @@
+package lt.vu.mif.jate.task01;
+
+import java.io.File;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertTrue;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import lt.vu.mif.jate.task01.bank.Account;
+import lt.vu.mif.jate.task01.bank.Banking;
+import lt.vu.mif.jate.task01.bank.CreditAccount;
+import lt.vu.mif.jate.task01.bank.CurrentAccount;
+import lt.vu.mif.jate.task01.bank.Journal;
+import lt.vu.mif.jate.task01.bank.SavingsAccount;
+import lt.vu.mif.jate.task01.bank.Transfer;
+import lt.vu.mif.jate.task01.bank.exception.AccountActionException;
+import lt.vu.mif.jate.task01.bank.exception.NoFundsException;
+
+/**
+ * Journal: accounts, balances and account states are rebuilt exactly from
+ * the journal after a restart.
+ */
+@RunWith(JUnit4.class)
+public class Banking10Test implements BankingTestIf {
+
+    @Test
+    public void replayTest() throws Exception {
+
+        Path directory = Files.createTempDirectory("journal");
+        try {
+            Banking banking = new Banking();
+            try (Journal journal = new Journal(directory, 16, 10)) {
+                banking.openJournal(journal);
+
+                CurrentAccount a1 = banking.getCurrentAccount("LT60 7300 0100 7721 1170");
+                CurrentAccount a2 = banking.getCurrentAccount("LT337300010077211171");
+                SavingsAccount a3 = banking.getSavingsAccount("LT067300010077211172");
+                CreditAccount a4 = banking.getCreditAccount("LT767300010077211173");
+
+                a1.credit(BD("1000.00"), "EUR");
+                a1.debit(BD("0.01"), "EUR");
+                a1.convert(BD("100.00"), "EUR", "USD");
+                a1.debit(BD("10.00"), "EUR", a2);
+                a3.credit(BD("5.00"), "GBP");
+                a4.credit(BD("7.00"), "EUR");
+
+                // Rejected operations are not journaled
+                checkException(BD("5000.00"), s -> a1.debit(s, "EUR", a2), NoFundsException.class);
+                checkException(BD("1.00"), s -> a2.debit(s, "EUR", a4), AccountActionException.class);
+
+                banking.applyTransfers(Arrays.asList(
+                        new Transfer(a1, a2, BD("20.00"), "EUR"),
+                        new Transfer(a2, a3, BD("5.00"), "EUR"),
+                        new Transfer(a2, a1, BD("500.00"), "EUR")));
+            }
+
+            Banking restored = new Banking();
+            try (Journal journal = new Journal(directory, 16, 10)) {
+                restored.openJournal(journal);
+                assertSameAccounts(banking, restored);
+
+                // Restored accounts keep journaling
+                restored.getCurrentAccount("LT337300010077211171").credit(BD("1.00"), "EUR");
+                CreditAccount a4 = restored.getCreditAccount("LT767300010077211173");
+                checkException(BD("1.00"), s -> a4.credit(s, "EUR"), AccountActionException.class);
+            }
+
+            Banking again = new Banking();
+            try (Journal journal = new Journal(directory, 16, 10)) {
+                again.openJournal(journal);
+                assertSameAccounts(restored, again);
+                assertEquals(BD("26.00"), again.getAccounts().get("LT337300010077211171").balance("EUR"));
+            }
+        } finally {
+            delete(directory.toFile());
+        }
+
+    }
+
+    @Test
+    public void segmentTest() throws Exception {
+
+        Path directory = Files.createTempDirectory("journal");
+        try {
+            Banking banking = new Banking();
+            try (Journal journal = new Journal(directory, 1000, 1000, 256)) {
+                banking.openJournal(journal);
+                Account a1 = banking.getCurrentAccount("LT497300010077211174");
+                for (int i = 0; i < 100; i++) {
+                    a1.credit(BD("0.01"), "EUR");
+                }
+            }
+            assertTrue(directory.toFile().list().length > 1);
+
+            Banking restored = new Banking();
+            try (Journal journal = new Journal(directory, 1000, 1000, 256)) {
+                restored.openJournal(journal);
+                assertSameAccounts(banking, restored);
+                assertEquals(BD("1.00"), restored.getAccounts().get("LT497300010077211174").balance("EUR"));
+            }
+        } finally {
+            delete(directory.toFile());
+        }
+
+    }
+
+    @Test
+    public void failedWriteTest() throws Exception {
+
+        Path directory = Files.createTempDirectory("journal");
+        try {
+            Banking banking = new Banking();
+            try (Journal journal = new Journal(directory, 1000, 1000, 256)) {
+                banking.openJournal(journal);
+                Account a1 = banking.getCurrentAccount("LT227300010077211175");
+                CreditAccount a2 = banking.getCreditAccount("LT927300010077211176");
+                a1.credit(BD("1.00"), "EUR");
+
+                // The next segment can not be created: the failed operation leaves no trace
+                delete(directory.toFile());
+                BigDecimal expected = BD("1.00");
+                boolean failed = false;
+                for (int i = 0; i < 20 && !failed; i++) {
+                    try {
+                        a1.credit(BD("0.01"), "EUR");
+                        expected = expected.add(BD("0.01"));
+                    } catch (UncheckedIOException ex) {
+                        failed = true;
+                    }
+                }
+                assertTrue(failed);
+                assertEquals(expected, a1.balance("EUR"));
+
+                // State change and credit are undone together
+                checkException(BD("7.00"), s -> a2.credit(s, "EUR"), UncheckedIOException.class);
+                assertTrue(a2.getBalance().isEmpty());
+                checkException(BD("7.00"), s -> a2.credit(s, "EUR"), UncheckedIOException.class);
+            }
+        } finally {
+            delete(directory.toFile());
+        }
+
+    }
+
+    private static void assertSameAccounts(Banking expected, Banking actual) {
+        Map<String, Account> accounts = actual.getAccounts();
+        assertEquals(expected.getAccounts().keySet(), accounts.keySet());
+        expected.getAccounts().forEach((iban, account) -> {
+            assertEquals(account.getClass(), accounts.get(iban).getClass());
+            assertEquals(account.getBank(), accounts.get(iban).getBank());
+            assertEquals(account.getNumber(), accounts.get(iban).getNumber());
+            assertEquals(account.getBalance(), accounts.get(iban).getBalance());
+        });
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+
+}
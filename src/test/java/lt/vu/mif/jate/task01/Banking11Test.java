@@ -0,0 +1,78 @@
+package lt.vu.mif.jate.task01;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertTrue;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import lt.vu.mif.jate.task01.bank.Account;
+import lt.vu.mif.jate.task01.bank.Banking;
+import lt.vu.mif.jate.task01.bank.CreditAccount;
+import lt.vu.mif.jate.task01.bank.CurrentAccount;
+import lt.vu.mif.jate.task01.bank.exception.AccountActionException;
+
+/**
+ * Snapshots: every account is restored with its type, bank, number, state
+ * and balances.
+ */
+@RunWith(JUnit4.class)
+public class Banking11Test implements BankingTestIf {
+
+    @Test
+    public void snapshotTest() throws Exception {
+
+        Path file = Files.createTempFile("snapshot", ".bin");
+        try {
+            Banking banking = new Banking();
+            // Generated codes do not carry valid check digits
+            banking.setCheckDigitsValidation(false);
+            CurrentAccount a1 = banking.getCurrentAccount("LT817300010077211180");
+            banking.getSavingsAccount("LT547300010077211181").credit(BD("3.00"), "GBP");
+            CreditAccount a3 = banking.getCreditAccount("LT277300010077211182");
+            banking.getCurrentAccount("LT977300010077211183");
+
+            a1.credit(BD("1000.00"), "EUR");
+            a1.convert(BD("100.00"), "EUR", "USD");
+            a1.debit(BD("10.00"), "EUR", a3);
+            for (int i = 0; i < 5000; i++) {
+                banking.getCurrentAccount(String.format("LT3373000100%08d", i)).credit(BD("0.01"), "EUR");
+            }
+
+            banking.snapshot(file);
+
+            Banking restored = new Banking();
+            restored.restore(file);
+            Map<String, Account> accounts = restored.getAccounts();
+            assertEquals(banking.getAccounts().keySet(), accounts.keySet());
+            banking.getAccounts().forEach((iban, account) -> {
+                assertEquals(account.getClass(), accounts.get(iban).getClass());
+                assertEquals(account.getBank(), accounts.get(iban).getBank());
+                assertEquals(account.getNumber(), accounts.get(iban).getNumber());
+                assertEquals(account.getBalance(), accounts.get(iban).getBalance());
+            });
+            assertTrue(accounts.get("LT977300010077211183").getBalance().isEmpty());
+
+            // Restored accounts keep their state and work as usual
+            CreditAccount r3 = restored.getCreditAccount("LT277300010077211182");
+            checkException(BD("1.00"), s -> r3.credit(s, "EUR"), AccountActionException.class);
+            restored.getCurrentAccount("LT817300010077211180").debit(BD("890.00"), "EUR");
+            assertEquals(BD("0.00"), accounts.get("LT817300010077211180").balance("EUR"));
+
+            // Snapshot is restored into an empty registry only
+            checkException(file, f -> {
+                try {
+                    restored.restore(f);
+                } catch (java.io.IOException ex) {
+                    throw new RuntimeException(ex);
+                }
+            }, IllegalStateException.class);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+
+    }
+
+}
@@ -0,0 +1,134 @@
+package lt.vu.mif.jate.task01;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertNull;
+import static junit.framework.TestCase.assertTrue;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import lt.vu.mif.jate.task01.bank.Account;
+import lt.vu.mif.jate.task01.bank.BalanceMode;
+import lt.vu.mif.jate.task01.bank.Banking;
+import lt.vu.mif.jate.task01.bank.CreditAccount;
+import lt.vu.mif.jate.task01.bank.CurrentAccount;
+import lt.vu.mif.jate.task01.bank.exception.AccountActionException;
+import lt.vu.mif.jate.task01.bank.exception.IBANException;
+import lt.vu.mif.jate.task01.bank.exception.WrongAccountTypeException;
+import lt.vu.mif.jate.task01.bank.exception.NoFundsException;
+
+/**
+ * Off-heap balances behave exactly like the on-heap ones; the off-heap
+ * records belong to their banking and are released when it is closed.
+ */
+@RunWith(JUnit4.class)
+public class Banking12Test implements BankingTestIf {
+
+    private final Banking banking = Banking.getInstance();
+
+    @Test
+    public void offHeapTest() throws Exception {
+
+        Account a1;
+        Account a2;
+        Account a3;
+        banking.setBalanceMode(BalanceMode.OFF_HEAP);
+        try {
+            a1 = banking.getCurrentAccount("LT057300010077211190");
+            a2 = banking.getCurrentAccount("LT757300010077211191");
+            a3 = banking.getCreditAccount("LT487300010077211192");
+        } finally {
+            banking.setBalanceMode(BalanceMode.COMPACT);
+        }
+        Account compact = banking.getCurrentAccount("LT217300010077211193");
+        assertTrue(a1.getBalance().isEmpty());
+        assertEquals(BD("0.00"), a1.balance("EUR"));
+
+        // More currencies than fit into the off-heap record
+        List<Currency> currencies = new ArrayList<>(banking.getConverter().getCurrencies());
+        Map<Currency, BigDecimal> expected = new HashMap<>();
+        for (int i = 0; i < 10; i++) {
+            String code = currencies.get(i).getCurrencyCode();
+            a1.credit(BD("1.00"), code);
+            compact.credit(BD("1.00"), code);
+            expected.put(currencies.get(i), BD("1.00"));
+        }
+        assertEquals(expected, a1.getBalance());
+        assertEquals(compact.balanceAll("EUR"), a1.balanceAll("EUR"));
+
+        // Emptied slots are reused and not reported
+        String first = currencies.get(0).getCurrencyCode();
+        String last = currencies.get(9).getCurrencyCode();
+        a1.debit(BD("1.00"), first);
+        a1.debit(BD("1.00"), last);
+        expected.remove(currencies.get(0));
+        expected.remove(currencies.get(9));
+        assertEquals(expected, a1.getBalance());
+        a1.credit(BD("2.50"), last);
+        expected.put(currencies.get(9), BD("2.50"));
+        assertEquals(expected, a1.getBalance());
+        checkException(BD("2.51"), s -> a1.debit(s, last), NoFundsException.class);
+
+        // Transfers between off-heap and on-heap accounts
+        BigDecimal compactEur = compact.balance("EUR");
+        a1.debit(a1.balance("EUR"), "EUR");
+        a1.credit(BD("100.00"), "EUR");
+        a1.debit(BD("40.00"), "EUR", a2);
+        a2.debit(BD("15.00"), "EUR", compact);
+        a2.debit(BD("5.00"), "EUR", a3);
+        a1.convert(BD("10.00"), "EUR", "USD");
+        assertEquals(BD("50.00"), a1.balance("EUR"));
+        assertEquals(BD("20.00"), a2.balance("EUR"));
+        assertEquals(BD("5.00"), a3.balance("EUR"));
+        assertEquals(compactEur.add(BD("15.00")), compact.balance("EUR"));
+
+    }
+
+    @Test
+    public void offHeapRecordTest() throws Exception {
+
+        Banking own = new Banking();
+        own.setBalanceMode(BalanceMode.OFF_HEAP);
+        Account heap;
+        Account offHeap = own.getCurrentAccount("LT91 7300 0100 7721 1194");
+        CreditAccount credit = own.getCreditAccount("LT647300010077211195");
+        Account unpacked = new CurrentAccount(own.getContext(), "lt-1", null, new BigInteger("123456789012345678901234567890"));
+        own.setBalanceMode(BalanceMode.COMPACT);
+        heap = own.getCurrentAccount("LT107300010077211197");
+        Account reference = new Banking().getCurrentAccount("LT917300010077211194");
+
+        // Number, bank, IBAN and state live in the off-heap record
+        assertEquals("LT917300010077211194", offHeap.toString());
+        assertEquals(reference.getBank(), offHeap.getBank());
+        assertEquals(reference.getNumber(), offHeap.getNumber());
+        assertEquals(offHeap, own.getAccounts().get("LT917300010077211194"));
+        assertEquals("lt-1", unpacked.toString());
+        assertEquals(new BigInteger("123456789012345678901234567890"), unpacked.getNumber());
+        assertNull(unpacked.getBank());
+        credit.credit(BD("1.00"), "EUR");
+        checkException(BD("1.00"), s -> credit.credit(s, "EUR"), AccountActionException.class);
+
+        // Closing the banking releases the records
+        own.close();
+        checkException(BD("1.00"), s -> offHeap.credit(s, "EUR"), IllegalStateException.class);
+        checkException("LT377300010077211196", iban -> {
+            own.setBalanceMode(BalanceMode.OFF_HEAP);
+            try {
+                own.getCurrentAccount(iban);
+            } catch (IBANException | WrongAccountTypeException ex) {
+                throw new RuntimeException(ex);
+            }
+        }, IllegalStateException.class);
+        own.setBalanceMode(BalanceMode.COMPACT);
+        heap.credit(BD("1.00"), "EUR");
+        assertEquals(BD("1.00"), heap.balance("EUR"));
+
+    }
+
+}
@@ -0,0 +1,70 @@
+package lt.vu.mif.jate.task01;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertSame;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import lt.vu.mif.jate.task01.bank.Account;
+import lt.vu.mif.jate.task01.bank.BalanceMode;
+import lt.vu.mif.jate.task01.bank.Banking;
+import lt.vu.mif.jate.task01.bank.CurrentAccount;
+
+/**
+ * Account registry: concurrent requests for the same new IBAN get the same
+ * account.
+ */
+@RunWith(JUnit4.class)
+public class Banking13Test implements BankingTestIf {
+
+    @Test
+    public void concurrentRegistryTest() throws Exception {
+
+        Banking banking = new Banking();
+        // Generated codes do not carry valid check digits
+        banking.setCheckDigitsValidation(false);
+        int threads = 8;
+        int ibans = 2000;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        banking.setBalanceMode(BalanceMode.ATOMIC);
+        try {
+            List<Future<Account[]>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    Account[] resolved = new Account[ibans];
+                    for (int i = 0; i < ibans; i++) {
+                        resolved[i] = banking.getCurrentAccount(String.format("LT3373000101%08d", i));
+                        resolved[i].credit(BD("1.00"), "EUR");
+                    }
+                    return resolved;
+                }));
+            }
+            start.countDown();
+            Account[] first = futures.get(0).get();
+            for (Future<Account[]> future : futures) {
+                Account[] resolved = future.get();
+                for (int i = 0; i < ibans; i++) {
+                    assertSame(first[i], resolved[i]);
+                }
+            }
+        } finally {
+            executor.shutdown();
+            banking.setBalanceMode(BalanceMode.COMPACT);
+        }
+
+        assertEquals(ibans, banking.getAccounts().size());
+        CurrentAccount account = banking.getCurrentAccount("LT3373000101 00000000");
+        assertSame(banking.getAccounts().get("LT337300010100000000"), account);
+        assertEquals(BD("8.00"), account.balance("EUR"));
+
+    }
+
+}
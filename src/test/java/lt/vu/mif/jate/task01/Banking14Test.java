@@ -0,0 +1,107 @@
+package lt.vu.mif.jate.task01;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Currency;
+import java.util.concurrent.atomic.AtomicInteger;
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertSame;
+import static junit.framework.TestCase.assertTrue;
+import static junit.framework.TestCase.fail;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import lt.vu.mif.jate.task01.bank.Account;
+import lt.vu.mif.jate.task01.bank.AccountType;
+import lt.vu.mif.jate.task01.bank.Bank;
+import lt.vu.mif.jate.task01.bank.Banking;
+import lt.vu.mif.jate.task01.bank.CurrentAccount;
+import lt.vu.mif.jate.task01.bank.Money;
+import lt.vu.mif.jate.task01.bank.exception.WrongAccountTypeException;
+
+/**
+ * Account types: accounts are created by registered factories, user
+ * defined types can be added without changing Banking.
+ */
+@RunWith(JUnit4.class)
+public class Banking14Test implements BankingTestIf {
+
+    /**
+     * User defined account type, created by a registered factory.
+     */
+    public static class BonusAccount extends Account {
+
+        public BonusAccount(String iban, Bank bank, BigInteger number) {
+            super(iban, bank, number);
+        }
+
+        @Override
+        public void credit(BigDecimal amount, String currencyCode) {
+            deposit(Money.of(amount.add(amount), Currency.getInstance(currencyCode)));
+        }
+
+    }
+
+    /**
+     * User defined account type without registration.
+     */
+    public static class PlainAccount extends Account {
+
+        public PlainAccount(String iban, Bank bank, BigInteger number) {
+            super(iban, bank, number);
+        }
+
+    }
+
+    /**
+     * Account type which can not be created.
+     */
+    public static class BrokenAccount extends Account {
+
+        public BrokenAccount(String iban) {
+            super(iban);
+        }
+
+    }
+
+    @Test
+    public void accountTypeTest() throws Exception {
+
+        Banking banking = new Banking();
+        AtomicInteger created = new AtomicInteger();
+        AccountType<BonusAccount> bonus = AccountType.register(BonusAccount.class, (iban, bank, number) -> {
+            created.incrementAndGet();
+            return new BonusAccount(iban, bank, number);
+        });
+        assertSame(bonus, AccountType.of(BonusAccount.class));
+
+        Account a1 = banking.getAccount("LT267300010077211200", BonusAccount.class);
+        assertSame(a1, banking.getAccount("LT267300010077211200", BonusAccount.class));
+        assertSame(a1, banking.getAccount("LT267300010077211200", Account.class));
+        assertEquals(1, created.get());
+        assertEquals("LT267300010077211200", a1.toString());
+        assertEquals(new BigInteger("10077211200"), a1.getNumber());
+        a1.credit(BD("1.00"), "EUR");
+        assertEquals(BD("2.00"), a1.balance("EUR"));
+
+        // Unregistered type with the standard constructor
+        Account a2 = banking.getAccount("LT967300010077211201", PlainAccount.class);
+        assertEquals(PlainAccount.class, a2.getClass());
+        assertEquals(PlainAccount.class, AccountType.of(PlainAccount.class).getAccountClass());
+
+        // Built in types
+        assertSame(AccountType.CURRENT, AccountType.of(CurrentAccount.class));
+        assertTrue(banking.getCurrentAccount("LT697300010077211202") instanceof CurrentAccount);
+
+        // Type which can not be created
+        try {
+            banking.getAccount("LT427300010077211203", BrokenAccount.class);
+            fail();
+        } catch (WrongAccountTypeException ex) {
+            assertEquals("Account type was BrokenAccount", ex.getMessage());
+        }
+        assertEquals(3, banking.getAccounts().size());
+
+    }
+
+}
@@ -0,0 +1,132 @@
+package lt.vu.mif.jate.task01;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertTrue;
+import static junit.framework.TestCase.fail;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import lt.vu.mif.jate.task01.bank.Account;
+import lt.vu.mif.jate.task01.bank.Banking;
+import lt.vu.mif.jate.task01.bank.BankingShards;
+import lt.vu.mif.jate.task01.bank.exception.AccountActionException;
+import lt.vu.mif.jate.task01.bank.exception.NoFundsException;
+
+/**
+ * Shards: every account is served by one shard, transfers across shards
+ * neither lose nor create money.
+ */
+@RunWith(JUnit4.class)
+public class Banking15Test implements BankingTestIf {
+
+    @Test(timeout = 60000)
+    public void shardsTest() throws Exception {
+
+        Banking banking = new Banking();
+        // Generated codes do not carry valid check digits
+        banking.setCheckDigitsValidation(false);
+        int[] banks = {70440, 71800, 73000, 40100};
+        Account[] accounts = new Account[8];
+        for (int i = 0; i < accounts.length; i++) {
+            accounts[i] = banking.getCurrentAccount(String.format("LT33%05d10077211%03d", banks[i % 4], i));
+        }
+        Account credit = banking.getCreditAccount("LT697300010077211299");
+
+        try (BankingShards shards = new BankingShards(4)) {
+            Set<Integer> used = new HashSet<>();
+            for (Account account : accounts) {
+                used.add(shards.shardOf(account));
+            }
+            assertEquals(4, used.size());
+
+            List<CompletableFuture<Void>> futures = new ArrayList<>();
+            for (Account account : accounts) {
+                futures.add(shards.credit(account, BD("100.00"), "EUR"));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get();
+
+            futures.clear();
+            for (int i = 0; i < 20000; i++) {
+                Account from = accounts[i % accounts.length];
+                Account to = accounts[(i * 7 + 3) % accounts.length];
+                futures.add(shards.transfer(from, to, BD("3.00"), "EUR")
+                        .exceptionally(ex -> {
+                            assertEquals(NoFundsException.class, ex.getClass());
+                            return null;
+                        }));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get();
+
+            BigDecimal total = BigDecimal.ZERO;
+            for (Account account : accounts) {
+                BigDecimal balance = shards.balance(account, "EUR").get();
+                assertTrue(balance.signum() >= 0);
+                total = total.add(balance);
+            }
+            assertEquals(BD("800.00"), total);
+
+            // Rejected credit on the other shard is refunded
+            Account from = accounts[0];
+            shards.credit(credit, BD("1.00"), "EUR").get();
+            assertTrue(shards.shardOf(from) != shards.shardOf(credit));
+            BigDecimal before = shards.balance(from, "EUR").get();
+            try {
+                shards.transfer(from, credit, BD("1.00"), "EUR").get();
+                fail();
+            } catch (ExecutionException ex) {
+                assertEquals(AccountActionException.class, ex.getCause().getClass());
+            }
+            assertEquals(before, shards.balance(from, "EUR").get());
+            assertEquals(BD("1.00"), shards.balance(credit, "EUR").get());
+
+            // ... and on the same shard as well
+            Account local = accounts[2];
+            assertEquals(shards.shardOf(local), shards.shardOf(credit));
+            before = shards.balance(local, "EUR").get();
+            try {
+                shards.transfer(local, credit, BD("1.00"), "EUR").get();
+                fail();
+            } catch (ExecutionException ex) {
+                assertEquals(AccountActionException.class, ex.getCause().getClass());
+            }
+            assertEquals(before, shards.balance(local, "EUR").get());
+            assertEquals(BD("1.00"), shards.balance(credit, "EUR").get());
+        }
+
+    }
+
+    @Test(timeout = 10000)
+    public void closedTest() throws Exception {
+
+        Banking banking = new Banking();
+        Account from = banking.getCurrentAccount("LT807044010077211000");
+        Account to = banking.getCurrentAccount("LT747180010077211001");
+        BankingShards shards = new BankingShards(4);
+        assertTrue(shards.shardOf(from) != shards.shardOf(to));
+        shards.close();
+
+        // Commands after close fail instead of hanging
+        try {
+            shards.credit(from, BD("1.00"), "EUR").get();
+            fail();
+        } catch (ExecutionException ex) {
+            assertEquals(RejectedExecutionException.class, ex.getCause().getClass());
+        }
+        try {
+            shards.transfer(from, to, BD("1.00"), "EUR").get();
+            fail();
+        } catch (ExecutionException ex) {
+            assertEquals(RejectedExecutionException.class, ex.getCause().getClass());
+        }
+        shards.close();
+    }
+
+}
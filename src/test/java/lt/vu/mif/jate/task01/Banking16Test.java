@@ -0,0 +1,93 @@
+package lt.vu.mif.jate.task01;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.fail;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import lt.vu.mif.jate.task01.bank.Account;
+import lt.vu.mif.jate.task01.bank.BalanceMode;
+import lt.vu.mif.jate.task01.bank.Banking;
+import lt.vu.mif.jate.task01.bank.BankingAsync;
+import lt.vu.mif.jate.task01.bank.Transfer;
+import lt.vu.mif.jate.task01.bank.exception.IBANException;
+import lt.vu.mif.jate.task01.bank.exception.NoFundsException;
+
+/**
+ * Asynchronous facade: operations complete with their results or with the
+ * original exceptions, many operations can be in flight at once.
+ */
+@RunWith(JUnit4.class)
+public class Banking16Test implements BankingTestIf {
+
+    @Test(timeout = 60000)
+    public void asyncTest() throws Exception {
+
+        Banking banking = new Banking();
+        Account a1;
+        Account a2;
+        banking.setBalanceMode(BalanceMode.ATOMIC);
+        try (BankingAsync async = new BankingAsync(banking)) {
+            a1 = async.getCurrentAccount("LT477300010077211210").get();
+            a2 = async.getCurrentAccount("LT207300010077211211").get();
+        } finally {
+            banking.setBalanceMode(BalanceMode.COMPACT);
+        }
+
+        try (BankingAsync async = new BankingAsync(banking)) {
+            List<CompletableFuture<Void>> futures = new ArrayList<>();
+            for (int i = 0; i < 100000; i++) {
+                futures.add(async.credit(a1, BD("0.01"), "EUR"));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get();
+            assertEquals(BD("1000.00"), async.balance(a1, "EUR").get());
+
+            futures.clear();
+            for (int i = 0; i < 10000; i++) {
+                futures.add(async.transfer(a1, a2, BD("0.10"), "EUR"));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get();
+            assertEquals(BD("0.00"), a1.balance("EUR"));
+            assertEquals(BD("1000.00"), a2.balance("EUR"));
+
+            try {
+                async.debit(a1, BD("0.01"), "EUR").get();
+                fail();
+            } catch (ExecutionException ex) {
+                assertEquals(NoFundsException.class, ex.getCause().getClass());
+            }
+            try {
+                async.getCurrentAccount("XX337300010077211212").get();
+                fail();
+            } catch (ExecutionException ex) {
+                assertEquals(IBANException.class, ex.getCause().getClass());
+            }
+
+            // Errors complete the result too instead of leaving it pending
+            List<Transfer> broken = new AbstractList<Transfer>() {
+                @Override
+                public Transfer get(int index) {
+                    throw new AssertionError();
+                }
+
+                @Override
+                public int size() {
+                    throw new AssertionError();
+                }
+            };
+            try {
+                async.applyTransfers(broken).get();
+                fail();
+            } catch (ExecutionException ex) {
+                assertEquals(AssertionError.class, ex.getCause().getClass());
+            }
+        }
+
+    }
+
+}
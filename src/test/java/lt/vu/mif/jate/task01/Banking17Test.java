@@ -0,0 +1,50 @@
+package lt.vu.mif.jate.task01;
+
+import java.math.BigDecimal;
+import java.util.Currency;
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertNotSame;
+import static junit.framework.TestCase.assertSame;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import lt.vu.mif.jate.task01.bank.Account;
+import lt.vu.mif.jate.task01.bank.Banking;
+import lt.vu.mif.jate.task01.bank.Money;
+
+/**
+ * Total balance is remembered per currency until a balance changes.
+ */
+@RunWith(JUnit4.class)
+public class Banking17Test implements BankingTestIf {
+
+    @Test
+    public void balanceAllCacheTest() throws Exception {
+
+        Banking banking = new Banking();
+        Account a = banking.getCurrentAccount("LT607300010077211170");
+        Currency eur = Currency.getInstance("EUR");
+        Currency usd = Currency.getInstance("USD");
+
+        a.credit(BD("100.00"), "EUR");
+        a.credit(BD("10.00"), "USD");
+
+        Money total = a.balanceAll(eur);
+        assertSame(total, a.balanceAll(eur));
+        BigDecimal usdTotal = a.balanceAll("USD");
+        assertSame(usdTotal, a.balanceAll("USD"));
+        assertSame(total, a.balanceAll(eur));
+
+        a.credit(BD("1.00"), "EUR");
+        Money changed = a.balanceAll(eur);
+        assertNotSame(total, changed);
+        assertEquals(total.toBigDecimal().add(BD("1.00")), changed.toBigDecimal());
+        assertNotSame(usdTotal, a.balanceAll("USD"));
+        assertEquals(a.balanceAll(usd).toBigDecimal(), a.balanceAll("USD"));
+
+        a.debit(BD("101.00"), "EUR");
+        assertEquals(BD("10.00"), a.balanceAll("USD"));
+
+    }
+
+}
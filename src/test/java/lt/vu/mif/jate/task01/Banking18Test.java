@@ -0,0 +1,70 @@
+package lt.vu.mif.jate.task01;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Currency;
+import java.util.concurrent.TimeUnit;
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.fail;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import lt.vu.mif.jate.task01.bank.Converter;
+
+/**
+ * Rates are replaced as a whole, under a new version, either explicitly or
+ * when the watched rates file changes.
+ */
+@RunWith(JUnit4.class)
+public class Banking18Test implements BankingTestIf {
+
+    private static final long RELOAD_SECONDS = 20;
+
+    @Test(timeout = 60000)
+    public void rateReloadTest() throws Exception {
+
+        Converter conv = new Converter();
+        long version = conv.getRateVersion();
+        assertEquals(189, conv.getCurrencies().size());
+        assertEquals(BD("0.49"), conv.convert("1.00", "AUD", "GBP"));
+
+        conv.updateRates(new BufferedReader(new StringReader(
+                "EUR:1:1\nUSD:0.5:2\nbroken line\nGBP:x:1\n")));
+        assertEquals(version + 1, conv.getRateVersion());
+        assertEquals(2, conv.getCurrencies().size());
+        assertEquals(BD("2.00"), conv.convert("1.00", "EUR", "USD"));
+        checkException("1.00", v -> conv.convert(v, "AUD", "GBP"), IllegalArgumentException.class);
+
+        Path dir = Files.createTempDirectory("rates");
+        Path file = dir.resolve("rates.txt");
+        Files.write(file, Arrays.asList("EUR:1:1", "USD:0.5:2"), StandardCharsets.UTF_8);
+        Closeable watcher = conv.watchRates(file);
+        try {
+            long before = conv.getRateVersion();
+            Path next = dir.resolve("rates.tmp");
+            Files.write(next, Arrays.asList("EUR:1:1", "USD:0.25:4"), StandardCharsets.UTF_8);
+            Files.move(next, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(RELOAD_SECONDS);
+            while (conv.convert(BD("1.00"), Currency.getInstance("EUR"),
+                    Currency.getInstance("USD")).compareTo(BD("4.00")) != 0) {
+                if (System.nanoTime() > deadline) {
+                    fail("Rates were not reloaded within " + RELOAD_SECONDS + " s after the file changed");
+                }
+                Thread.sleep(10);
+            }
+            assertEquals(true, conv.getRateVersion() > before);
+        } finally {
+            watcher.close();
+            Files.delete(file);
+            Files.delete(dir);
+        }
+
+    }
+
+}
@@ -0,0 +1,71 @@
+package lt.vu.mif.jate.task01;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Currency;
+import java.util.List;
+import static junit.framework.TestCase.assertEquals;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import lt.vu.mif.jate.task01.bank.Banking;
+import lt.vu.mif.jate.task01.bank.Converter;
+import lt.vu.mif.jate.task01.bank.Money;
+
+/**
+ * Historical rates: conversions use the rate in effect at the given moment.
+ */
+@RunWith(JUnit4.class)
+public class Banking19Test implements BankingTestIf {
+
+    @Test
+    public void rateHistoryTest() throws Exception {
+
+        Converter conv = new Converter();
+        Currency eur = Currency.getInstance("EUR");
+        Currency usd = Currency.getInstance("USD");
+        Currency gbp = Currency.getInstance("GBP");
+
+        // A year of daily rates for every currency, USD changes every day
+        List<String> rates = Files.readAllLines(Paths.get(Banking.RESOURCES_PATH + "rates.txt"), StandardCharsets.UTF_8);
+        LocalDate first = LocalDate.parse("2017-01-01");
+        StringBuilder history = new StringBuilder();
+        for (int day = 0; day < 365; day++) {
+            for (String rate : rates) {
+                if (rate.startsWith("USD:")) {
+                    BigDecimal to = BD("0.8000").add(BigDecimal.valueOf(day, 4));
+                    history.append(first.plusDays(day)).append(":USD:").append(to).append(":1\n");
+                } else {
+                    history.append(first.plusDays(day)).append(':').append(rate).append('\n');
+                }
+            }
+        }
+        conv.loadRateHistory(new BufferedReader(new StringReader(history.toString())));
+
+        assertEquals(BD("80.00"), conv.convert(BD("100.00"), usd, eur, Instant.parse("2017-01-01T00:00:00Z")));
+        assertEquals(BD("80.01"), conv.convert(BD("100.00"), usd, eur, Instant.parse("2017-01-02T23:59:59Z")));
+        assertEquals(BD("83.64"), conv.convert(BD("100.00"), usd, eur, Instant.parse("2017-12-31T12:00:00Z")));
+        assertEquals(BD("83.64"), conv.convert(BD("100.00"), usd, eur, Instant.parse("2019-01-01T00:00:00Z")));
+        assertEquals(Money.of(BD("80.10"), eur),
+                conv.convert(Money.of(BD("100.00"), usd), eur, Instant.parse("2017-01-11T08:00:00Z")));
+
+        BigDecimal expected = BD("100.00").multiply(conv.getRateToBase(gbp))
+                .multiply(BD("1")).setScale(2, RoundingMode.HALF_UP);
+        assertEquals(expected, conv.convert(BD("100.00"), gbp, usd, Instant.parse("2017-06-01T00:00:00Z")));
+        assertEquals(BD("5.00"), conv.convert(BD("5.00"), usd, usd, Instant.parse("2000-01-01T00:00:00Z")));
+
+        checkException(Instant.parse("2016-12-31T23:59:59Z"), v -> conv.convert(BD("1.00"), usd, eur, v),
+                IllegalArgumentException.class);
+        checkException(BD("-1.00"), v -> conv.convert(v, usd, eur, Instant.now()),
+                NumberFormatException.class);
+
+    }
+
+}
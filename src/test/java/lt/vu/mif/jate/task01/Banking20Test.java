@@ -0,0 +1,52 @@
+package lt.vu.mif.jate.task01;
+
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+import java.util.Random;
+import static junit.framework.TestCase.assertEquals;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import lt.vu.mif.jate.task01.bank.Converter;
+import lt.vu.mif.jate.task01.bank.Money;
+
+/**
+ * Bulk conversion gives exactly the same amounts as converting one by one.
+ */
+@RunWith(JUnit4.class)
+public class Banking20Test implements BankingTestIf {
+
+    @Test
+    public void bulkConversionTest() throws Exception {
+
+        Converter conv = Converter.getInstance();
+        List<Currency> currencies = new ArrayList<>(conv.getCurrencies());
+        Random random = new Random(20);
+        int size = 100000;
+        long[] amounts = new long[size];
+        int[] ids = new int[size];
+        Currency[] from = new Currency[size];
+        for (int i = 0; i < size; i++) {
+            // every tenth amount is large enough to overflow the long path
+            amounts[i] = random.nextInt(10) == 0
+                    ? random.nextLong() >>> 32 : random.nextInt(100_000_000);
+            from[i] = currencies.get(random.nextInt(currencies.size()));
+            ids[i] = conv.getCurrencyId(from[i]);
+        }
+
+        for (String code : new String[] {"EUR", "USD", "BYR", "XAF"}) {
+            Currency to = Currency.getInstance(code);
+            long[] result = new long[size];
+            conv.convertMinor(amounts, ids, to, result);
+            for (int i = 0; i < size; i++) {
+                assertEquals(conv.convert(Money.ofMinor(amounts[i], from[i]), to).getMinorUnits(), result[i]);
+            }
+        }
+
+        checkException(new long[1], v -> conv.convertMinor(v, new int[2], Currency.getInstance("EUR"), v),
+                IllegalArgumentException.class);
+
+    }
+
+}
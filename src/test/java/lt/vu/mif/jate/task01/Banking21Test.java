@@ -0,0 +1,54 @@
+package lt.vu.mif.jate.task01;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Currency;
+import static junit.framework.TestCase.assertEquals;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import lt.vu.mif.jate.task01.bank.AmountParser;
+import lt.vu.mif.jate.task01.bank.Converter;
+import lt.vu.mif.jate.task01.bank.Money;
+
+/**
+ * Amount parser accepts and rejects exactly what BigDecimal with the range
+ * check does.
+ */
+@RunWith(JUnit4.class)
+public class Banking21Test implements BankingTestIf {
+
+    @Test
+    public void amountParserTest() throws Exception {
+
+        Converter conv = Converter.getInstance();
+        Currency eur = Currency.getInstance("EUR");
+
+        for (String s : Arrays.asList("0", "1", "1.5", "1.50", "1.500", "+7", ".5", "5.", "-0", "-0.00",
+                "0.000000000000000000000", "100", "1e2", "1E+2", "12.5e-1", "1000e-3", "0E+9999",
+                "00012.30", "92233720368547758.07")) {
+            long expected = Money.of(conv.checkRange(new BigDecimal(s)), eur).getMinorUnits();
+            assertEquals(s, expected, AmountParser.parseMinor(s));
+            byte[] bytes = (" " + s + " ").getBytes(StandardCharsets.US_ASCII);
+            assertEquals(s, expected, AmountParser.parseMinor(bytes, 1, bytes.length - 1));
+            assertEquals(s, expected, AmountParser.parseMinor("x" + s + "x", 1, s.length() + 1));
+        }
+
+        for (String s : Arrays.asList("1.001", "-100", "-0.01", "1,00", "12.a", "Labas", "", ".", "+", "-",
+                "1e", "1e+", "1.2.3", "1 ", " 1", "1e-1.0", "0.001", "1e-3", "+-1", "1e2147483648")) {
+            checkException(s, v -> AmountParser.parseMinor(v), NumberFormatException.class);
+        }
+
+        checkException("92233720368547758.08", v -> AmountParser.parseMinor(v), ArithmeticException.class);
+        checkException("1e30", v -> AmountParser.parseMinor(v), ArithmeticException.class);
+
+        // String entry points keep their results, also beyond the long range
+        assertEquals(BD("1.00"), conv.convert("1.00", "EUR", "EUR"));
+        assertEquals(BD("0.49"), conv.convert("1.00", "AUD", "GBP"));
+        assertEquals(new BigDecimal("1E+30").multiply(conv.getRateToBase("GBP")).setScale(2),
+                conv.toBase("1e30", "GBP"));
+
+    }
+
+}
@@ -0,0 +1,61 @@
+package lt.vu.mif.jate.task01;
+
+import java.util.Currency;
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertSame;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import lt.vu.mif.jate.task01.bank.Account;
+import lt.vu.mif.jate.task01.bank.Banking;
+import lt.vu.mif.jate.task01.bank.Converter;
+import lt.vu.mif.jate.task01.bank.CurrencyId;
+import lt.vu.mif.jate.task01.bank.exception.AccountActionException;
+import lt.vu.mif.jate.task01.bank.exception.NoFundsException;
+
+/**
+ * Currency handles: a code resolved once works the same as the code itself.
+ */
+@RunWith(JUnit4.class)
+public class Banking22Test implements BankingTestIf {
+
+    @Test
+    public void currencyIdTest() throws Exception {
+
+        Converter conv = Converter.getInstance();
+        int eur = CurrencyId.of("EUR");
+        int usd = CurrencyId.of("USD");
+        assertEquals(eur, CurrencyId.of(Currency.getInstance("EUR")));
+        assertSame(Currency.getInstance("USD"), CurrencyId.currency(usd));
+        assertEquals(conv.getCurrencyId(Currency.getInstance("GBP")), CurrencyId.of("GBP"));
+        for (String s : new String[] {"gbpa", "10", "eu", "US", "EWR", "usd"}) {
+            checkException(s, v -> CurrencyId.of(v), IllegalArgumentException.class);
+        }
+
+        Banking banking = new Banking();
+        Account current = banking.getCurrentAccount("LT687300010077211220");
+        Account savings = banking.getSavingsAccount("LT417300010077211221");
+        Account credit = banking.getCreditAccount("LT147300010077211222");
+
+        current.credit(BD("10.00"), eur);
+        current.credit(BD("5.00"), "USD");
+        assertEquals(1000, current.balance(eur));
+        assertEquals(BD("10.00"), current.balance("EUR"));
+        assertEquals(current.balanceAll(Currency.getInstance("USD")).getMinorUnits(), current.balanceAll(usd));
+        assertEquals(conv.convertMinor(1000, eur, usd) + 500, current.balanceAll(usd));
+        checkException(BD("10.01"), v -> current.debit(v, eur), NoFundsException.class);
+        checkException(BD("-1"), v -> current.credit(v, eur), NumberFormatException.class);
+        current.debit(BD("10.00"), eur);
+        assertEquals(0, current.balance(eur));
+
+        savings.credit(BD("1.00"), eur);
+        checkException(BD("1.00"), v -> savings.debit(v, eur), AccountActionException.class);
+
+        credit.credit(BD("1.00"), eur);
+        checkException(BD("1.00"), v -> credit.credit(v, eur), AccountActionException.class);
+        credit.debit(BD("2.00"), eur);
+        assertEquals(-100, credit.balance(eur));
+
+    }
+
+}
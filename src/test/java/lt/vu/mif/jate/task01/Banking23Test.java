@@ -0,0 +1,73 @@
+package lt.vu.mif.jate.task01;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.stream.Stream;
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertNotSame;
+import static junit.framework.TestCase.assertSame;
+import static junit.framework.TestCase.assertTrue;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import lt.vu.mif.jate.task01.bank.Banking;
+import lt.vu.mif.jate.task01.bank.Converter;
+import lt.vu.mif.jate.task01.bank.ReferenceImage;
+
+/**
+ * Reference data is loaded from a compiled binary image while the image is
+ * up to date, and from the text files otherwise.
+ */
+@RunWith(JUnit4.class)
+public class Banking23Test implements BankingTestIf {
+
+    private static final String[] FILES = {"banks.txt", "iban.txt", "rates.txt"};
+
+    @Test
+    public void referenceImageTest() throws Exception {
+
+        Path dir = Files.createTempDirectory("reference");
+        try {
+            for (String file : FILES) {
+                Files.copy(Paths.get(Banking.RESOURCES_PATH, file), dir.resolve(file),
+                        StandardCopyOption.COPY_ATTRIBUTES);
+            }
+            ReferenceImage.compile(dir);
+            assertTrue(ReferenceImage.verify(dir));
+            assertFalse(ReferenceImage.verify(Paths.get(Banking.RESOURCES_PATH)));
+
+            Banking text = new Banking();
+            Banking image = new Banking(dir);
+            assertEquals(text.getBanks(), image.getBanks());
+            assertEquals(text.getBank("LT", 70440), image.getBank("LT", 70440));
+            assertNotSame(Converter.getInstance(), image.getConverter());
+            assertSame(image, image.getContext().getBanking());
+            assertSame(image.getConverter(), image.getContext().getConverter());
+
+            Files.delete(dir.resolve("rates.txt"));
+            Converter conv = new Converter(dir);
+            assertEquals(189, conv.getCurrencies().size());
+            assertEquals(BD("0.49"), conv.convert("1.00", "AUD", "GBP"));
+
+            Files.write(dir.resolve("banks.txt"), Collections.singletonList(
+                    "Stale:Address:STALLT2X:70440"), StandardCharsets.UTF_8);
+            Banking stale = new Banking(dir);
+            assertEquals("Stale", stale.getBank("LT", 70440).getName());
+            assertEquals(1, stale.getBanks().get("LT").size());
+        } finally {
+            try (Stream<Path> files = Files.list(dir)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(dir);
+        }
+
+    }
+
+}
@@ -0,0 +1,63 @@
+package lt.vu.mif.jate.task01;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.util.Collections;
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertNotSame;
+import static junit.framework.TestCase.assertSame;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import lt.vu.mif.jate.task01.bank.Account;
+import lt.vu.mif.jate.task01.bank.BalanceMode;
+import lt.vu.mif.jate.task01.bank.Banking;
+import lt.vu.mif.jate.task01.bank.BankingContext;
+import lt.vu.mif.jate.task01.bank.Converter;
+import lt.vu.mif.jate.task01.bank.Transfer;
+
+/**
+ * Banking contexts are isolated: each owns its banking, converter and
+ * accounts, and accounts use the context they were created in.
+ */
+@RunWith(JUnit4.class)
+public class Banking24Test implements BankingTestIf {
+
+    @Test
+    public void contextTest() throws Exception {
+
+        BankingContext defaults = BankingContext.getDefault();
+        assertSame(defaults.getBanking(), Banking.getInstance());
+        assertSame(defaults.getConverter(), Converter.getInstance());
+        assertSame(defaults, Banking.getInstance().getContext());
+
+        BankingContext tenant = new BankingContext();
+        Banking banking = tenant.getBanking();
+        assertSame(tenant, banking.getContext());
+        assertSame(tenant.getConverter(), banking.getConverter());
+        assertNotSame(defaults.getConverter(), tenant.getConverter());
+
+        tenant.getConverter().updateRates(new BufferedReader(new StringReader(
+                "EUR:1:1\nUSD:0.5:2\n")));
+        banking.setBalanceMode(BalanceMode.ATOMIC);
+        Account a1 = banking.getCurrentAccount("LT637300010077211310");
+        Account a2 = banking.getCurrentAccount("LT367300010077211311");
+        assertSame(tenant, a1.getContext());
+        assertSame(banking.getBank("LT", 73000), a1.getBank());
+
+        a1.credit(BD("1.00"), "EUR");
+        a1.credit(BD("1.00"), "USD");
+        assertEquals(BD("3.00"), a1.balanceAll("USD"));
+        checkException("GBP", a1::balanceAll, IllegalArgumentException.class);
+
+        banking.applyTransfers(Collections.singletonList(
+                new Transfer(a1, a2, BD("1.00"), "USD")));
+        assertEquals(BD("1.00"), a2.balanceAll("USD"));
+
+        // The default context is untouched
+        assertEquals(189, Converter.getInstance().getCurrencies().size());
+        assertEquals(false, Banking.getInstance().getAccounts().containsKey("LT637300010077211310"));
+
+    }
+
+}
@@ -0,0 +1,73 @@
+package lt.vu.mif.jate.task01;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Random;
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertSame;
+import static junit.framework.TestCase.fail;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import lt.vu.mif.jate.task01.bank.Account;
+import lt.vu.mif.jate.task01.bank.Banking;
+import lt.vu.mif.jate.task01.bank.BankingContext;
+import lt.vu.mif.jate.task01.bank.exception.IBANException;
+
+/**
+ * IBANs of every country layout are parsed into the same bank code and
+ * account number as reading the pattern positions one by one.
+ */
+@RunWith(JUnit4.class)
+public class Banking25Test implements BankingTestIf {
+
+    @Test
+    public void compiledLayoutTest() throws Exception {
+
+        Banking banking = new BankingContext().getBanking();
+        // Random codes do not carry valid check digits
+        banking.setCheckDigitsValidation(false);
+        Random random = new Random(25);
+        for (String line : Files.readAllLines(Paths.get(Banking.RESOURCES_PATH, "iban.txt"), StandardCharsets.UTF_8)) {
+            String pattern = line.split(":")[1].replace(" ", "");
+            StringBuilder iban = new StringBuilder(pattern.substring(0, 2));
+            StringBuilder bank = new StringBuilder();
+            StringBuilder number = new StringBuilder();
+            for (int i = 2; i < pattern.length(); i++) {
+                char digit = (char) ('0' + random.nextInt(10));
+                iban.append(digit);
+                if (pattern.charAt(i) == 'b') {
+                    bank.append(digit);
+                } else if (pattern.charAt(i) == 'c') {
+                    number.append(digit);
+                }
+            }
+            Account account = banking.getCurrentAccount(iban.toString().toLowerCase());
+            assertEquals(iban.toString(), account.toString());
+            assertEquals(pattern.substring(0, 2), account.getBank().getLocale().getCountry());
+            if (bank.length() > 0) {
+                assertEquals(Integer.valueOf(bank.toString()), account.getBank().getCode());
+            }
+            assertEquals(new BigInteger(number.toString()), account.getNumber());
+            assertSame(account, banking.getCurrentAccount(iban.toString()));
+        }
+
+        // Letters where the layout expects digits
+        try {
+            banking.getCurrentAccount("GB12 NWBK 6016 1331 9268 19");
+            fail("Bank code format is not checked");
+        } catch (IBANException ex) {
+            assertEquals("IBAN format wrong: GB12NWBK60161331926819", ex.getMessage());
+        }
+        try {
+            banking.getCurrentAccount("L");
+            fail("Country is not checked");
+        } catch (IBANException ex) {
+            assertEquals("IBAN country not found: L", ex.getMessage());
+        }
+
+    }
+
+}
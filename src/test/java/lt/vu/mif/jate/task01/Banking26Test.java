@@ -0,0 +1,69 @@
+package lt.vu.mif.jate.task01;
+
+import java.math.BigInteger;
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertTrue;
+import static junit.framework.TestCase.fail;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import lt.vu.mif.jate.task01.bank.Account;
+import lt.vu.mif.jate.task01.bank.Banking;
+import lt.vu.mif.jate.task01.bank.BankingContext;
+import lt.vu.mif.jate.task01.bank.exception.BankNotFoundException;
+import lt.vu.mif.jate.task01.bank.exception.IBANException;
+
+/**
+ * IBAN check digits (ISO 13616 mod-97) are verified by default, and a
+ * mistyped IBAN creates neither an account nor a bank.
+ */
+@RunWith(JUnit4.class)
+public class Banking26Test implements BankingTestIf {
+
+    @Test
+    public void checkDigitsTest() throws Exception {
+
+        Banking banking = new BankingContext().getBanking();
+        assertEquals(true, banking.isCheckDigitsValidation());
+
+        Account lt = banking.getCurrentAccount("LT12 1000 0111 0100 1000");
+        assertEquals(new BigInteger("11101001000"), lt.getNumber());
+        Account de = banking.getCurrentAccount("de89 3704 0044 0532 0130 00");
+        assertEquals((Integer) 37040044, de.getBank().getCode());
+        banking.getCurrentAccount("NO9386011117947");
+
+        int accounts = banking.getAccounts().size();
+        try {
+            banking.getCurrentAccount("DE89 3804 0044 0532 0130 00");
+            fail("Check digits are not verified");
+        } catch (IBANException ex) {
+            assertEquals("DE89380400440532013000", ex.getValue());
+            assertTrue(ex.getMessage().startsWith("IBAN check digits wrong: expected "));
+            assertTrue(ex.getMessage().endsWith(", got 89"));
+        }
+        try {
+            banking.getCurrentAccount("LT121000011101001001");
+            fail("Check digits are not verified");
+        } catch (IBANException ex) {
+            assertEquals("IBAN check digits wrong: expected 82, got 12", ex.getMessage());
+        }
+        try {
+            banking.getCurrentAccount("LTx21000011101001000");
+            fail("Check digits are not verified");
+        } catch (IBANException ex) {
+            assertEquals("IBAN format wrong: LTX21000011101001000", ex.getMessage());
+        }
+        assertEquals(accounts, banking.getAccounts().size());
+        try {
+            banking.getBank("DE", 38040044);
+            fail("Phantom bank created");
+        } catch (BankNotFoundException ignored) {
+        }
+
+        // Without validation any check digits are accepted
+        banking.setCheckDigitsValidation(false);
+        banking.getCurrentAccount("LT121000011101001001");
+
+    }
+
+}
@@ -0,0 +1,84 @@
+package lt.vu.mif.jate.task01;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import static junit.framework.TestCase.assertEquals;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import lt.vu.mif.jate.task01.bank.Banking;
+import lt.vu.mif.jate.task01.bank.BankingContext;
+import lt.vu.mif.jate.task01.bank.IBANValidator;
+import lt.vu.mif.jate.task01.bank.IBANValidator.Category;
+
+/**
+ * Files of IBANs are validated in parallel chunks; lines crossing chunk
+ * boundaries are counted exactly once and rejects keep the input order.
+ */
+@RunWith(JUnit4.class)
+public class Banking27Test implements BankingTestIf {
+
+    private static final String[] LINES = {
+        "LT047300010077211111", "lt26 7044 0123 4567 8901", "LT131234512345678901",
+        "LT057300010077211111", "LT0473000100772111", "XX047300010077211111",
+        "LT04730001007721111A", "", "LT047300010077211111\r"};
+
+    private static final Category[] CATEGORIES = {
+        Category.VALID, Category.VALID, Category.UNKNOWN_BANK,
+        Category.BAD_CHECKSUM, Category.WRONG_LENGTH, Category.UNKNOWN_COUNTRY,
+        Category.BAD_FORMAT, null, Category.VALID};
+
+    @Test
+    public void bulkValidationTest() throws Exception {
+
+        Banking banking = new BankingContext().getBanking();
+        Path input = Files.createTempFile("ibans", ".txt");
+        Path rejects = Files.createTempFile("rejects", ".txt");
+        try {
+            int repeat = 2000;
+            StringBuilder text = new StringBuilder();
+            for (int r = 0; r < repeat; r++) {
+                for (String line : LINES) {
+                    text.append(line).append('\n');
+                }
+            }
+            text.setLength(text.length() - 1);
+            Files.write(input, text.toString().getBytes(StandardCharsets.US_ASCII));
+
+            for (int chunkSize : new int[] {7, 64, 4096, IBANValidator.CHUNK_SIZE}) {
+                IBANValidator.Report report = new IBANValidator(banking, chunkSize).validate(input, rejects);
+                assertEquals(repeat * 3L, report.count(Category.VALID));
+                for (Category category : new Category[] {Category.UNKNOWN_BANK, Category.BAD_CHECKSUM,
+                        Category.WRONG_LENGTH, Category.UNKNOWN_COUNTRY, Category.BAD_FORMAT}) {
+                    assertEquals(category.name(), (long) repeat, report.count(category));
+                }
+                assertEquals(repeat * 8L, report.total());
+
+                List<String> rejected = Files.readAllLines(rejects, StandardCharsets.US_ASCII);
+                assertEquals(repeat * 5, rejected.size());
+                for (int i = 0; i < rejected.size(); i++) {
+                    assertEquals(rejected.get(i % 5), rejected.get(i));
+                }
+                assertEquals("UNKNOWN_BANK:LT131234512345678901", rejected.get(0));
+                assertEquals("BAD_FORMAT:LT04730001007721111A", rejected.get(4));
+            }
+
+            IBANValidator validator = new IBANValidator(banking);
+            for (int i = 0; i < LINES.length; i++) {
+                if (CATEGORIES[i] != null) {
+                    assertEquals(LINES[i], CATEGORIES[i], validator.classify(LINES[i].trim()));
+                }
+            }
+            assertEquals(Category.BAD_FORMAT, validator.classify("LT04730001007721111\u0131"));
+            assertEquals(Category.BAD_FORMAT, validator.classify("LT04730001007721111\u00d1"));
+            assertEquals(0, validator.validate(Files.write(input, new byte[0])).total());
+        } finally {
+            Files.delete(input);
+            Files.delete(rejects);
+        }
+
+    }
+
+}
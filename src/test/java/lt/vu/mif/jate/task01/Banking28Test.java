@@ -0,0 +1,108 @@
+package lt.vu.mif.jate.task01;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertNull;
+import static junit.framework.TestCase.assertSame;
+import static junit.framework.TestCase.fail;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import lt.vu.mif.jate.task01.bank.Account;
+import lt.vu.mif.jate.task01.bank.Banking;
+import lt.vu.mif.jate.task01.bank.BankingContext;
+import lt.vu.mif.jate.task01.bank.CurrentAccount;
+import lt.vu.mif.jate.task01.bank.IbanKey;
+
+/**
+ * Accounts are indexed by packed IBAN keys: keys round-trip, lookups find
+ * the account created once under contention and the account map is a
+ * read-only view.
+ */
+@RunWith(JUnit4.class)
+public class Banking28Test implements BankingTestIf {
+
+    private static final int ACCOUNTS = 5_000;
+    private static final int THREADS = 8;
+
+    @Test
+    public void ibanKeyTest() throws Exception {
+
+        String longest = "MT84MALT011000012345MTLCAST001SABCDE";
+        assertEquals(IbanKey.MAX_LENGTH, longest.length());
+        for (String iban : new String[] {"LT337300010077211310", "NO9386011117947", longest, "0", "Z", ""}) {
+            IbanKey key = IbanKey.of(iban);
+            assertEquals(iban, key.toString());
+            assertEquals(key, IbanKey.of(new StringBuilder(iban)));
+            assertEquals(key.hashCode(), IbanKey.of(iban).hashCode());
+        }
+        assertFalse(IbanKey.of("LT0").equals(IbanKey.of("LT00")));
+        assertFalse(IbanKey.of("LT337300010077211310").equals(IbanKey.of("LT337300010077211311")));
+        assertNull(IbanKey.of(longest + "0"));
+        assertNull(IbanKey.of("lt337300010077211310"));
+        assertNull(IbanKey.of("LT33 7300 0100 7721 1310"));
+    }
+
+    @Test
+    public void accountIndexTest() throws Exception {
+
+        Banking banking = new BankingContext().getBanking();
+        // Generated codes do not carry valid check digits
+        banking.setCheckDigitsValidation(false);
+        List<String> ibans = new ArrayList<>();
+        for (int i = 0; i < ACCOUNTS; i++) {
+            ibans.add(String.format("LT33730001%010d", i));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<List<Account>>> results = new ArrayList<>();
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                int shift = t;
+                Callable<List<Account>> task = () -> {
+                    List<Account> accounts = new ArrayList<>();
+                    for (int i = 0; i < ACCOUNTS; i++) {
+                        String iban = ibans.get((i + shift * 617) % ACCOUNTS);
+                        accounts.add(banking.getCurrentAccount(iban));
+                    }
+                    return accounts;
+                };
+                results.add(executor.submit(task));
+            }
+            for (Future<List<Account>> result : results) {
+                for (Account account : result.get()) {
+                    assertSame(banking.getAccounts().get(account.toString()), account);
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(ACCOUNTS, banking.getAccounts().size());
+        assertEquals(new HashSet<>(ibans), banking.getAccounts().keySet());
+        for (String iban : ibans) {
+            Account account = banking.getAccount(iban, CurrentAccount.class);
+            assertEquals(iban, account.toString());
+            assertSame(account, banking.getAccounts().get(iban));
+        }
+        assertNull(banking.getAccounts().get("LT337300019999999999"));
+        assertNull(banking.getAccounts().get("lt337300010000000000"));
+        assertFalse(banking.getAccounts().containsKey(42));
+
+        Set<String> keys = banking.getAccounts().keySet();
+        try {
+            banking.getAccounts().put("LT337300019999999999", null);
+            fail("Account map is modifiable");
+        } catch (UnsupportedOperationException ex) {
+            assertEquals(ACCOUNTS, keys.size());
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package lt.vu.mif.jate.task01;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import static junit.framework.TestCase.assertEquals;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import lt.vu.mif.jate.task01.bank.Converter;
+import lt.vu.mif.jate.task01.bank.Money;
+
+/**
+ * The cross-rate table converts every currency pair exactly like the
+ * original two-step formula through the base currency: amount times the
+ * from-base rate of the target times the to-base rate of the source,
+ * rounded half-up once.
+ */
+@RunWith(JUnit4.class)
+public class Banking29Test implements BankingTestIf {
+
+    private static final int RANDOM_AMOUNTS = 20;
+
+    @Test
+    public void crossRateTest() {
+
+        Converter conv = new Converter();
+        Set<Currency> currencies = conv.getCurrencies();
+        List<BigDecimal> amounts = new ArrayList<>();
+        for (String amount : new String[] {"0", "0.01", "0.05", "0.5", "1", "2.5", "99.99", "123.45", "1000000", "999999999.99"}) {
+            amounts.add(BD(amount));
+        }
+        Random random = new Random(14);
+        for (int i = 0; i < RANDOM_AMOUNTS; i++) {
+            amounts.add(BigDecimal.valueOf(random.nextInt(Integer.MAX_VALUE), 2));
+        }
+
+        for (Currency from : currencies) {
+            for (Currency to : currencies) {
+                for (BigDecimal amount : amounts) {
+                    BigDecimal expected = amount;
+                    if (!from.equals(to)) {
+                        expected = conv.getRateToBase(from)
+                                .multiply(conv.getRateFromBase(to).multiply(amount))
+                                .setScale(2, RoundingMode.HALF_UP);
+                    }
+                    String pair = amount + " " + from + " -> " + to;
+                    assertEquals(pair, 0, expected.compareTo(conv.convert(amount, from, to)));
+                    assertEquals(pair, expected.setScale(2),
+                            conv.convert(amount.toPlainString(), from.getCurrencyCode(), to.getCurrencyCode()));
+                    assertEquals(pair, expected.setScale(2),
+                            conv.convert(Money.of(amount, from), to).toBigDecimal());
+                }
+            }
+        }
+
+    }
+}
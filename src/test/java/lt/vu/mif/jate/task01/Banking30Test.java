@@ -0,0 +1,165 @@
+package lt.vu.mif.jate.task01;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertTrue;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import lt.vu.mif.jate.task01.bank.Account;
+import lt.vu.mif.jate.task01.bank.BalanceMode;
+import lt.vu.mif.jate.task01.bank.Banking;
+import lt.vu.mif.jate.task01.bank.BankingContext;
+import lt.vu.mif.jate.task01.bank.Transfer;
+import lt.vu.mif.jate.task01.bank.TransferResult;
+import lt.vu.mif.jate.task01.bank.exception.AccountActionException;
+import lt.vu.mif.jate.task01.bank.exception.NoFundsException;
+
+/**
+ * Batches run concurrently with single-account debits and credits: checked
+ * debits do not lock the account, the batch debits with a CAS from the
+ * balances it checked and re-checks when they moved, so it can not
+ * overdraw the account, and a credit account is credited exactly once
+ * whether by a batch or directly.
+ */
+@RunWith(JUnit4.class)
+public class Banking30Test implements BankingTestIf {
+
+    private static final int THREADS = 4;
+
+    @Test
+    public void batchVersusDebitTest() throws Exception {
+
+        Banking banking = new BankingContext().getBanking();
+        banking.setBalanceMode(BalanceMode.ATOMIC);
+        Account from = banking.getCurrentAccount("LT607300010077211170");
+        Account to = banking.getCurrentAccount("LT337300010077211171");
+        from.credit(BD("500.00"), "EUR");
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Callable<Long>> tasks = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                boolean batches = t % 2 == 0;
+                tasks.add(() -> {
+                    start.await();
+                    long moved = 0;
+                    for (int i = 0; i < 1000; i++) {
+                        if (batches) {
+                            List<TransferResult> results = banking.applyTransfers(
+                                    Collections.singletonList(new Transfer(from, to, BD("1.00"), "EUR")));
+                            if (results.get(0).isAccepted()) {
+                                moved++;
+                            } else {
+                                assertEquals(NoFundsException.class, results.get(0).getError().getClass());
+                            }
+                        } else {
+                            try {
+                                from.debit(BD("1.00"), "EUR");
+                                moved++;
+                            } catch (NoFundsException ex) {
+                                // drained by the others
+                            }
+                        }
+                    }
+                    return moved;
+                });
+            }
+            List<Future<Long>> futures = new ArrayList<>();
+            for (Callable<Long> task : tasks) {
+                futures.add(executor.submit(task));
+            }
+            start.countDown();
+            long moved = 0;
+            for (Future<Long> future : futures) {
+                moved += future.get();
+            }
+
+            assertEquals(BD("0.00"), from.balance("EUR"));
+            assertEquals(500, moved);
+            assertTrue(to.balance("EUR").compareTo(BD("500.00")) <= 0);
+
+            // One credit wins, whether it comes in a batch or directly
+            Account credit = banking.getCreditAccount("LT067300010077211172");
+            to.credit(BD("100.00"), "EUR");
+            CountDownLatch race = new CountDownLatch(1);
+            List<Future<Boolean>> credits = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                boolean batch = t % 2 == 0;
+                credits.add(executor.submit(() -> {
+                    race.await();
+                    if (batch) {
+                        return banking.applyTransfers(Collections.singletonList(
+                                new Transfer(to, credit, BD("1.00"), "EUR"))).get(0).isAccepted();
+                    }
+                    try {
+                        credit.credit(BD("1.00"), "EUR");
+                        return true;
+                    } catch (AccountActionException ex) {
+                        return false;
+                    }
+                }));
+            }
+            race.countDown();
+            int accepted = 0;
+            for (Future<Boolean> future : credits) {
+                if (future.get()) {
+                    accepted++;
+                }
+            }
+            assertEquals(1, accepted);
+            assertEquals(BD("1.00"), credit.balance("EUR"));
+        } finally {
+            executor.shutdown();
+        }
+
+    }
+
+    @Test
+    public void lastUnitTest() throws Exception {
+
+        Banking banking = new BankingContext().getBanking();
+        banking.setBalanceMode(BalanceMode.ATOMIC);
+        Account from = banking.getCurrentAccount("LT607300010077211170");
+        Account to = banking.getCurrentAccount("LT337300010077211171");
+
+        // A batch and a direct debit race for the last unit: one of them wins
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            CyclicBarrier barrier = new CyclicBarrier(2);
+            for (int round = 0; round < 2000; round++) {
+                from.credit(BD("1.00"), "EUR");
+                Future<Boolean> batch = executor.submit(() -> {
+                    barrier.await();
+                    return banking.applyTransfers(Collections.singletonList(
+                            new Transfer(from, to, BD("1.00"), "EUR"))).get(0).isAccepted();
+                });
+                Future<Boolean> debit = executor.submit(() -> {
+                    barrier.await();
+                    try {
+                        from.debit(BD("1.00"), "EUR");
+                        return true;
+                    } catch (NoFundsException ex) {
+                        return false;
+                    }
+                });
+                assertTrue(batch.get() ^ debit.get());
+                assertEquals(BD("0.00"), from.balance("EUR"));
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+    }
+
+}
@@ -0,0 +1,143 @@
+package lt.vu.mif.jate.task01;
+
+import java.io.File;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import lt.vu.mif.jate.task01.bank.Account;
+import lt.vu.mif.jate.task01.bank.Banking;
+import lt.vu.mif.jate.task01.bank.Journal;
+import lt.vu.mif.jate.task01.bank.exception.NoFundsException;
+
+/**
+ * Snapshot and journal together: a snapshot taken while accounts change
+ * records the journal position, older segments are dropped, and a restart
+ * restores the snapshot and replays only the journal tail.
+ */
+@RunWith(JUnit4.class)
+public class Banking31Test implements BankingTestIf {
+
+    private static final int ACCOUNTS = 20;
+    private static final int THREADS = 4;
+
+    @Test
+    public void snapshotJournalTailTest() throws Exception {
+
+        Path directory = Files.createTempDirectory("journal");
+        Path file = Files.createTempFile("snapshot", ".bin");
+        try {
+            Banking banking = new Banking();
+            // Generated codes do not carry valid check digits
+            banking.setCheckDigitsValidation(false);
+            try (Journal journal = new Journal(directory, 1000, 1000, 4096)) {
+                banking.openJournal(journal);
+                List<Account> accounts = new ArrayList<>();
+                for (int i = 0; i < ACCOUNTS; i++) {
+                    Account account = banking.getCurrentAccount(String.format("LT3373000100772111%02d", i));
+                    account.credit(BD("100.00"), "EUR");
+                    accounts.add(account);
+                }
+
+                ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+                AtomicBoolean stop = new AtomicBoolean();
+                try {
+                    List<Future<?>> futures = new ArrayList<>();
+                    for (int t = 0; t < THREADS; t++) {
+                        int thread = t;
+                        futures.add(executor.submit(() -> {
+                            ThreadLocalRandom random = ThreadLocalRandom.current();
+                            int opened = 0;
+                            while (!stop.get()) {
+                                Account from = accounts.get(random.nextInt(ACCOUNTS));
+                                Account to = accounts.get(random.nextInt(ACCOUNTS));
+                                try {
+                                    if (from != to) {
+                                        from.debit(BD("0.01"), "EUR", to);
+                                    }
+                                } catch (NoFundsException ex) {
+                                    // drained
+                                }
+                                if (random.nextInt(16) == 0) {
+                                    banking.getCurrentAccount(String.format("LT3373000101%d%07d", thread, opened++))
+                                            .credit(BD("0.01"), "USD");
+                                }
+                            }
+                            return null;
+                        }));
+                    }
+                    Thread.sleep(200);
+                    banking.snapshot(file);
+                    Thread.sleep(200);
+                    stop.set(true);
+                    for (Future<?> future : futures) {
+                        future.get();
+                    }
+                } finally {
+                    executor.shutdown();
+                }
+            }
+            try (Stream<Path> segments = Files.list(directory)) {
+                assertFalse(segments.anyMatch(p -> p.getFileName().toString().equals("journal-0000000000000001.log")));
+            }
+
+            Banking restored = new Banking();
+            restored.restore(file);
+            try (Journal journal = new Journal(directory, 1000, 1000, 4096)) {
+                restored.openJournal(journal);
+                Map<String, Account> accounts = restored.getAccounts();
+                assertEquals(banking.getAccounts().keySet(), accounts.keySet());
+                BigDecimal total = BigDecimal.ZERO;
+                for (Map.Entry<String, Account> entry : banking.getAccounts().entrySet()) {
+                    assertEquals(entry.getKey(), entry.getValue().getBalance(), accounts.get(entry.getKey()).getBalance());
+                    if (entry.getKey().startsWith("LT3373000100772111")) {
+                        total = total.add(accounts.get(entry.getKey()).balance("EUR"));
+                    }
+                }
+                assertEquals(BD("2000.00"), total);
+            }
+
+            // The journal can not be attached once accounts were opened after the restore
+            Banking again = new Banking();
+            again.restore(file);
+            again.getCurrentAccount("LT537300010077211199");
+            try (Journal journal = new Journal(directory, 1000, 1000, 4096)) {
+                checkException(journal, j -> {
+                    try {
+                        again.openJournal(j);
+                    } catch (java.io.IOException ex) {
+                        throw new RuntimeException(ex);
+                    }
+                }, IllegalStateException.class);
+            }
+        } finally {
+            delete(directory.toFile());
+            Files.deleteIfExists(file);
+        }
+
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+
+}
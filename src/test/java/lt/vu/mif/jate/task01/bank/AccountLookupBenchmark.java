@@ -0,0 +1,64 @@
+package lt.vu.mif.jate.task01.bank;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Account lookup in the packed-key index against a ConcurrentHashMap keyed
+ * by IBAN strings. Lookups use fresh strings, as parsed from a request,
+ * so the string hash is not cached. Run with:
+ * <pre>
+ * java -cp target/classes:target/test-classes \
+ *     lt.vu.mif.jate.task01.bank.AccountLookupBenchmark [accounts]
+ * </pre>
+ */
+public class AccountLookupBenchmark {
+
+    private static final int ROUNDS = 10;
+    private static final int LOOKUPS = 4_000_000;
+
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        Banking banking = new BankingContext().getBanking();
+        Bank bank = banking.findBank("LT", 73000);
+        Random random = new Random(25);
+        String[] ibans = new String[size];
+        AccountIndex index = new AccountIndex();
+        Map<String, Account> map = new ConcurrentHashMap<>();
+        for (int i = 0; i < size; i++) {
+            ibans[i] = String.format("LT%02d73000%011d", random.nextInt(100),
+                    Math.floorMod(random.nextLong(), 100_000_000_000L));
+            Account account = index.computeIfAbsent(ibans[i],
+                    iban -> new CurrentAccount(banking.getContext(), iban, bank, null));
+            map.put(ibans[i], account);
+        }
+        char[][] queries = new char[LOOKUPS][];
+        for (int i = 0; i < LOOKUPS; i++) {
+            queries[i] = ibans[random.nextInt(size)].toCharArray();
+        }
+
+        System.out.printf("%8s %16s %16s%n", "round", "map ns/op", "index ns/op");
+        long sink = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long begin = System.nanoTime();
+            for (char[] query : queries) {
+                sink += map.get(new String(query)).hashCode();
+            }
+            long mapElapsed = System.nanoTime() - begin;
+            begin = System.nanoTime();
+            for (char[] query : queries) {
+                sink -= index.get(new String(query)).hashCode();
+            }
+            long indexElapsed = System.nanoTime() - begin;
+            System.out.printf("%8d %16.1f %16.1f%n", round, perOp(LOOKUPS, mapElapsed), perOp(LOOKUPS, indexElapsed));
+        }
+        if (sink != 0) {
+            throw new IllegalStateException("Lookups disagree");
+        }
+    }
+
+    private static double perOp(int ops, long nanos) {
+        return (double) nanos / ops;
+    }
+}
@@ -0,0 +1,82 @@
+package lt.vu.mif.jate.task01.bank;
+
+import java.math.BigDecimal;
+import java.util.Currency;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Contention benchmark: {@link Account#credit(Money)} and
+ * {@link Account#debit(Money)} on a {@link BalanceMode#ATOMIC} account against
+ * the same calls on a {@link BalanceMode#COMPACT} account, whose balances are
+ * changed under the account lock. Every thread credits and debits the same
+ * account, the worst case for both. Run with:
+ * <pre>
+ * java -cp target/classes:target/test-classes \
+ *     lt.vu.mif.jate.task01.bank.BalancesContentionBenchmark [opsPerThread]
+ * </pre>
+ */
+public class BalancesContentionBenchmark {
+
+    private static final int[] THREADS = {1, 2, 4, 8, 16, 32, 64};
+
+    private static final String IBAN = "LT607300010077211170";
+
+    private static final Money[] AMOUNTS = {
+        Money.ofAmount(new BigDecimal("1.00"), Currency.getInstance("EUR")),
+        Money.ofAmount(new BigDecimal("1.00"), Currency.getInstance("USD"))
+    };
+
+    public static void main(String[] args) throws Exception {
+        int ops = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        System.out.printf("%8s %16s %16s%n", "threads", "atomic ops/ms", "locked ops/ms");
+        for (int threads : THREADS) {
+            // warm up both variants first
+            run(BalanceMode.ATOMIC, threads, ops / 10);
+            run(BalanceMode.COMPACT, threads, ops / 10);
+            double atomic = run(BalanceMode.ATOMIC, threads, ops);
+            double locked = run(BalanceMode.COMPACT, threads, ops);
+            System.out.printf("%8d %16.0f %16.0f%n", threads, atomic, locked);
+        }
+    }
+
+    private static double run(BalanceMode mode, int threads, int ops) throws Exception {
+        Banking banking = new Banking();
+        banking.setBalanceMode(mode);
+        Account account = banking.getCurrentAccount(IBAN);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            executor.execute(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < ops; i++) {
+                        Money amount = AMOUNTS[i % AMOUNTS.length];
+                        account.credit(amount);
+                        account.debit(amount);
+                    }
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        long elapsed = System.nanoTime() - begin;
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+        for (Money amount : AMOUNTS) {
+            if (account.balance(amount.getCurrency()).getMinorUnits() != 0) {
+                throw new IllegalStateException("Lost update: " + account.balance(amount.getCurrency()));
+            }
+        }
+        return 2.0 * threads * ops / TimeUnit.NANOSECONDS.toMillis(Math.max(elapsed, 1_000_000));
+    }
+}
@@ -0,0 +1,59 @@
+package lt.vu.mif.jate.task01.bank;
+
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bulk conversion against the scalar path: the same amounts converted into
+ * one currency element by element and with one bulk call. Run with:
+ * <pre>
+ * java -cp target/classes:target/test-classes \
+ *     lt.vu.mif.jate.task01.bank.ConversionBenchmark [amounts]
+ * </pre>
+ */
+public class ConversionBenchmark {
+
+    private static final int ROUNDS = 10;
+
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        Converter converter = Converter.getInstance();
+        List<Currency> currencies = new ArrayList<>(converter.getCurrencies());
+        Currency target = Currency.getInstance("USD");
+        int to = CurrencyId.of(target);
+        Random random = new Random(17);
+        long[] amounts = new long[size];
+        int[] ids = new int[size];
+        for (int i = 0; i < size; i++) {
+            amounts[i] = random.nextInt(100_000_000);
+            ids[i] = CurrencyId.of(currencies.get(random.nextInt(currencies.size())));
+        }
+        long[] scalar = new long[size];
+        long[] bulk = new long[size];
+
+        System.out.printf("%8s %16s %16s%n", "round", "scalar ops/ms", "bulk ops/ms");
+        for (int round = 0; round < ROUNDS; round++) {
+            long begin = System.nanoTime();
+            for (int i = 0; i < size; i++) {
+                scalar[i] = converter.convertMinor(amounts[i], ids[i], to);
+            }
+            long scalarElapsed = System.nanoTime() - begin;
+            begin = System.nanoTime();
+            converter.convertMinor(amounts, ids, target, bulk);
+            long bulkElapsed = System.nanoTime() - begin;
+            for (int i = 0; i < size; i++) {
+                if (scalar[i] != bulk[i]) {
+                    throw new IllegalStateException("Mismatch at " + i + ": " + scalar[i] + " != " + bulk[i]);
+                }
+            }
+            System.out.printf("%8d %16.0f %16.0f%n", round, perMilli(size, scalarElapsed), perMilli(size, bulkElapsed));
+        }
+    }
+
+    private static double perMilli(int ops, long nanos) {
+        return (double) ops * TimeUnit.MILLISECONDS.toNanos(1) / Math.max(nanos, 1);
+    }
+}
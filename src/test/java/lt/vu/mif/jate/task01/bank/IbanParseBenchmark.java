@@ -0,0 +1,67 @@
+package lt.vu.mif.jate.task01.bank;
+
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import lt.vu.mif.jate.task01.bank.exception.IBANException;
+
+/**
+ * IBAN parsing through the compiled layout spans against walking the
+ * pattern string into a new string per field. Run with:
+ * <pre>
+ * java -cp target/classes:target/test-classes \
+ *     lt.vu.mif.jate.task01.bank.IbanParseBenchmark [ibans]
+ * </pre>
+ */
+public class IbanParseBenchmark {
+
+    private static final int ROUNDS = 10;
+
+    public static void main(String[] args) throws IBANException {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        IBANParser parser = new IBANParser("LT", "LTkkbbbbbccccccccccc");
+        Random random = new Random(22);
+        String[] ibans = new String[size];
+        for (int i = 0; i < size; i++) {
+            ibans[i] = String.format("LT%02d%05d%011d", random.nextInt(100), random.nextInt(100_000),
+                    Math.floorMod(random.nextLong(), 100_000_000_000L));
+        }
+
+        System.out.printf("%8s %16s %16s%n", "round", "pattern ns/op", "spans ns/op");
+        long sink = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long begin = System.nanoTime();
+            for (String iban : ibans) {
+                sink += Integer.parseInt(byChar(parser, 'b', iban));
+                sink += new BigInteger(byChar(parser, 'c', iban)).longValue();
+            }
+            long patternElapsed = System.nanoTime() - begin;
+            begin = System.nanoTime();
+            for (String iban : ibans) {
+                parser.checkLength(iban);
+                sink -= parser.bankCode(iban);
+                sink -= parser.number(iban).longValue();
+            }
+            long spansElapsed = System.nanoTime() - begin;
+            System.out.printf("%8d %16.1f %16.1f%n", round, perOp(size, patternElapsed), perOp(size, spansElapsed));
+        }
+        if (sink != 0) {
+            throw new IllegalStateException("Parsers disagree");
+        }
+    }
+
+    private static String byChar(IBANParser parser, char c, String iban) {
+        String pattern = parser.getPatternString();
+        StringBuilder result = new StringBuilder();
+        for (int i = 0; i < pattern.length(); i++) {
+            if (pattern.charAt(i) == c) {
+                result.append(iban.charAt(i));
+            }
+        }
+        return result.toString();
+    }
+
+    private static double perOp(int ops, long nanos) {
+        return (double) nanos / ops;
+    }
+}
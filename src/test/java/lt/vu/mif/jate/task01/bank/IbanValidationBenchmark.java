@@ -0,0 +1,56 @@
+package lt.vu.mif.jate.task01.bank;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bulk validation throughput over a generated file of Lithuanian IBANs,
+ * about one in ten of them with a broken check digit. Run with:
+ * <pre>
+ * java -cp target/classes:target/test-classes \
+ *     lt.vu.mif.jate.task01.bank.IbanValidationBenchmark [lines]
+ * </pre>
+ */
+public class IbanValidationBenchmark {
+
+    private static final int ROUNDS = 5;
+
+    private static final int[] BANKS = {70440, 40100, 71800, 72900, 73000};
+
+    public static void main(String[] args) throws IOException {
+        int lines = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        Path input = Files.createTempFile("ibans", ".txt");
+        try {
+            Random random = new Random(24);
+            try (BufferedWriter writer = Files.newBufferedWriter(input, StandardCharsets.US_ASCII)) {
+                for (int i = 0; i < lines; i++) {
+                    String bban = String.format("%05d%011d", BANKS[random.nextInt(BANKS.length)],
+                            Math.floorMod(random.nextLong(), 100_000_000_000L));
+                    int check = IBANParser.expectedCheckDigits("LT00" + bban);
+                    if (random.nextInt(10) == 0) {
+                        check = (check + 1) % 100;
+                    }
+                    writer.write(String.format("LT%02d%s%n", check, bban));
+                }
+            }
+            long bytes = Files.size(input);
+            IBANValidator validator = new IBANValidator(new Banking());
+            System.out.printf("%8s %12s %12s  %s%n", "round", "MB/s", "lines/ms", "report");
+            for (int round = 0; round < ROUNDS; round++) {
+                long begin = System.nanoTime();
+                IBANValidator.Report report = validator.validate(input);
+                long elapsed = System.nanoTime() - begin;
+                System.out.printf("%8d %12.0f %12.0f  %s%n", round,
+                        bytes / 1e6 / (elapsed / 1e9),
+                        (double) lines * TimeUnit.MILLISECONDS.toNanos(1) / elapsed, report);
+            }
+        } finally {
+            Files.delete(input);
+        }
+    }
+}